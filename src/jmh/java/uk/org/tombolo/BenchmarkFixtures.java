@@ -0,0 +1,107 @@
+package uk.org.tombolo;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import uk.org.tombolo.core.Provider;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+import uk.org.tombolo.core.utils.DatabaseUtils;
+import uk.org.tombolo.field.Field;
+import uk.org.tombolo.recipe.FieldRecipe;
+import uk.org.tombolo.recipe.RecipeDeserializer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * In-memory subjects and fields for the benchmarks, so that they run without a database, and the setup of the
+ * benchmarks that need the test database.
+ */
+public class BenchmarkFixtures {
+    private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(), Subject.SRID);
+    private static final SubjectType SUBJECT_TYPE =
+            new SubjectType(new Provider("benchmark_provider", "Benchmark provider"), "benchmark_subject", "Benchmark subject");
+
+    /**
+     * Returns subjects with ids and square shapes spread over a grid, as in a typical export of small areas.
+     */
+    public static List<Subject> makeSubjects(int numSubjects) {
+        Random random = new Random(42);
+        int gridSize = (int) Math.ceil(Math.sqrt(numSubjects));
+        List<Subject> subjects = new ArrayList<>(numSubjects);
+        for (int i = 0; i < numSubjects; i++) {
+            Subject subject = new Subject(SUBJECT_TYPE, "subject" + i, "Subject " + i,
+                    makeSquare(-0.5 + (i % gridSize) * 0.001, 51.3 + (i / gridSize) * 0.001, 0.001 * random.nextDouble()));
+            subject.setId(i + 1);
+            subjects.add(subject);
+        }
+        return subjects;
+    }
+
+    /**
+     * Empties the test database for a database benchmark, refusing to run against any other database.
+     */
+    public static void clearTestDatabase() {
+        if (!System.getProperty("environment", "").equals("test"))
+            throw new IllegalStateException("Database benchmarks only run against the test database, " +
+                    "see testDatabaseURI in gradle.properties");
+        DatabaseUtils.clearAllData();
+    }
+
+    /**
+     * Returns a balanced tree of arithmetic fields with constant fields at the leaves.
+     *
+     * @param depth Number of arithmetic levels, so the tree has 2^depth constant fields
+     */
+    public static String arithmeticTree(String label, int depth) {
+        if (depth == 0)
+            return constantField(label, Integer.toString(label.length()));
+        return "{\"fieldClass\":\"uk.org.tombolo.field.transformation.ArithmeticField\"," +
+                "\"label\":\"" + label + "\",\"operation\":\"" + (depth % 2 == 0 ? "mul" : "add") + "\"," +
+                "\"field1\":" + arithmeticTree(label + "_1", depth - 1) + "," +
+                "\"field2\":" + arithmeticTree(label + "_2", depth - 1) + "}";
+    }
+
+    /**
+     * Returns a linear combination of arithmetic trees.
+     *
+     * @param width Number of combined fields
+     * @param depth Depth of each of the combined arithmetic trees
+     */
+    public static String linearCombination(String label, int width, int depth) {
+        return "{\"fieldClass\":\"uk.org.tombolo.field.transformation.LinearCombinationField\"," +
+                "\"label\":\"" + label + "\"," +
+                "\"scalars\":[" + IntStream.range(0, width).mapToObj(i -> "0.5").collect(Collectors.joining(",")) + "]," +
+                "\"fields\":[" + IntStream.range(0, width).mapToObj(i -> arithmeticTree(label + "_" + i, depth))
+                        .collect(Collectors.joining(",")) + "]}";
+    }
+
+    public static String constantField(String label, String value) {
+        return "{\"fieldClass\":\"uk.org.tombolo.field.value.ConstantField\",\"label\":\"" + label + "\",\"value\":\"" + value + "\"}";
+    }
+
+    /**
+     * Builds a field from its recipe, as the exporter does.
+     */
+    public static Field toField(String json) {
+        try {
+            return RecipeDeserializer.fromJson(json, FieldRecipe.class).toField();
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Field class not found", e);
+        }
+    }
+
+    private static Geometry makeSquare(double x, double y, double size) {
+        return GEOMETRY_FACTORY.createPolygon(new Coordinate[]{
+                new Coordinate(x, y),
+                new Coordinate(x, y + size),
+                new Coordinate(x + size, y + size),
+                new Coordinate(x + size, y),
+                new Coordinate(x, y)});
+    }
+}
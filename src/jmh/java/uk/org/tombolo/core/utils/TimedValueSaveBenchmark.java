@@ -0,0 +1,67 @@
+package uk.org.tombolo.core.utils;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import org.openjdk.jmh.annotations.*;
+import uk.org.tombolo.BenchmarkFixtures;
+import uk.org.tombolo.core.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves N timed values of one subject into an empty table, with Hibernate or with the COPY bulk save.
+ * Needs the test database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimedValueSaveBenchmark {
+    @Param({"hibernate", "copy"})
+    String method;
+
+    @Param({"1000", "20000"})
+    int numValues;
+
+    private Subject subject;
+    private Attribute attribute;
+    private List<TimedValue> timedValues;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.clearTestDatabase();
+        Provider provider = new Provider("benchmark_provider", "Benchmark provider");
+        ProviderUtils.save(provider);
+        SubjectType subjectType = SubjectTypeUtils.getOrCreate(provider, "benchmark_subject", "Benchmark subject");
+        subject = new Subject(subjectType, "subject", "Subject",
+                new GeometryFactory(new PrecisionModel(), Subject.SRID).createPoint(new Coordinate(0, 0)));
+        SubjectUtils.save(Collections.singletonList(subject));
+        attribute = new Attribute(provider, "benchmark_attribute", "Benchmark attribute");
+        AttributeUtils.save(attribute);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpValues() {
+        HibernateUtil.withSession(session -> {
+            session.beginTransaction();
+            session.createNativeQuery("TRUNCATE timed_value").executeUpdate();
+            session.getTransaction().commit();
+        });
+        LocalDateTime timestamp = LocalDateTime.parse("2011-01-01T00:00");
+        timedValues = new ArrayList<>(numValues);
+        for (int i = 0; i < numValues; i++)
+            timedValues.add(new TimedValue(subject, attribute, timestamp.plusHours(i), (double) i));
+    }
+
+    @Benchmark
+    public int save() {
+        return method.equals("copy") ? TimedValueUtils.bulkSave(timedValues) : TimedValueUtils.save(timedValues);
+    }
+}
@@ -0,0 +1,26 @@
+package uk.org.tombolo.core.utils;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the timestamp formats found in the imported datasets, from the ISO format that most importers produce
+ * to the formats that are only recognised after several patterns have been tried.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimestampParsingBenchmark {
+    @Param({"2011-01-01T00:00:00", "2011", "2011 - 12", "Jan-11", "March 2011"})
+    String timestamp;
+
+    @Benchmark
+    public LocalDateTime parseTimestampString() throws Exception {
+        return TimedValueUtils.parseTimestampString(timestamp);
+    }
+}
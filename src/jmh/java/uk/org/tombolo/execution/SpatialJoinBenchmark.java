@@ -0,0 +1,75 @@
+package uk.org.tombolo.execution;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import org.openjdk.jmh.annotations.*;
+import uk.org.tombolo.BenchmarkFixtures;
+import uk.org.tombolo.core.Provider;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+import uk.org.tombolo.core.utils.ProviderUtils;
+import uk.org.tombolo.core.utils.SubjectTypeUtils;
+import uk.org.tombolo.core.utils.SubjectUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the 3 nearest of N random points within a radius, with PostGIS or with the in-memory index of the
+ * spatial join service. The index is loaded during the warmup. Needs the test database.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialJoinBenchmark {
+    private static final int NUM_LOOKUPS = 500;
+
+    @Param({"postgis", "index"})
+    String path;
+
+    @Param({"10000", "100000"})
+    int numPoints;
+
+    private SpatialJoinService service;
+    private SubjectType pointType;
+    private List<Subject> lookups;
+    private int nextLookup;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkFixtures.clearTestDatabase();
+        Provider provider = new Provider("benchmark_provider", "Benchmark provider");
+        ProviderUtils.save(provider);
+        pointType = SubjectTypeUtils.getOrCreate(provider, "benchmark_point", "Benchmark point");
+        SubjectType lookupType = SubjectTypeUtils.getOrCreate(provider, "benchmark_lookup", "Benchmark lookup");
+
+        GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), Subject.SRID);
+        Random random = new Random(42);
+        List<Subject> points = new ArrayList<>(numPoints);
+        for (int i = 0; i < numPoints; i++)
+            points.add(new Subject(pointType, "point" + i, "Point " + i,
+                    geometryFactory.createPoint(new Coordinate(random.nextDouble(), random.nextDouble()))));
+        SubjectUtils.bulkSave(points);
+
+        lookups = new ArrayList<>(NUM_LOOKUPS);
+        for (int i = 0; i < NUM_LOOKUPS; i++)
+            lookups.add(new Subject(lookupType, "lookup" + i, "Lookup " + i,
+                    geometryFactory.createPoint(new Coordinate(random.nextDouble(), random.nextDouble()))));
+
+        // Without a memory budget every lookup goes to PostGIS
+        service = path.equals("index") ? new SpatialJoinService() : new SpatialJoinService(0);
+    }
+
+    @Benchmark
+    public List<Subject> subjectsNearestSubject() {
+        Subject lookup = lookups.get(nextLookup);
+        nextLookup = (nextLookup + 1) % NUM_LOOKUPS;
+        return service.subjectsNearestSubject(pointType, lookup, 0.01d, 3);
+    }
+}
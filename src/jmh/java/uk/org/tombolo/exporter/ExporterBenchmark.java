@@ -0,0 +1,64 @@
+package uk.org.tombolo.exporter;
+
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.*;
+import uk.org.tombolo.BenchmarkFixtures;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.execution.EvaluationContext;
+import uk.org.tombolo.execution.FieldCache;
+import uk.org.tombolo.field.Field;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes N subjects with a constant field and a small arithmetic field, discarding the output. Fields and field
+ * cache are new for every invocation, as for an export.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExporterBenchmark {
+    @Param({"csv", "geojson"})
+    String format;
+
+    @Param({"1000", "10000"})
+    int numSubjects;
+
+    @Param({"1", "4"})
+    int workers;
+
+    private List<Subject> subjects;
+    private List<Field> fields;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        subjects = BenchmarkFixtures.makeSubjects(numSubjects);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpFields() {
+        EvaluationContext context = new EvaluationContext(new FieldCache(), null);
+        fields = Arrays.asList(
+                BenchmarkFixtures.toField(BenchmarkFixtures.constantField("constant", "42")),
+                BenchmarkFixtures.toField(BenchmarkFixtures.arithmeticTree("arithmetic", 2)));
+        fields.forEach(field -> field.setEvaluationContext(context));
+    }
+
+    @Benchmark
+    public void write() throws Exception {
+        if (format.equals("csv"))
+            write(new CSVExporter());
+        else
+            write(new GeoJsonExporter());
+    }
+
+    private <T extends AbstractExporter & Exporter> void write(T exporter) throws Exception {
+        exporter.setWorkers(workers);
+        exporter.write(new NullWriter(), subjects, fields, false);
+    }
+}
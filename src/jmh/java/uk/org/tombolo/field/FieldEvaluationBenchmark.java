@@ -0,0 +1,94 @@
+package uk.org.tombolo.field;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.org.tombolo.BenchmarkFixtures;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.execution.EvaluationContext;
+import uk.org.tombolo.execution.FieldCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates trees of transformation fields for all the subjects of an export.
+ *
+ * The cold benchmarks start every invocation with new fields and an empty field cache, as an export does; the warm
+ * ones evaluate fields whose values are all cached, which is what fields shared between parents see.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldEvaluationBenchmark {
+    @Param({"1000"})
+    int numSubjects;
+
+    @Param({"2", "4"})
+    int depth;
+
+    @Param({"4"})
+    int width;
+
+    private List<Subject> subjects;
+    private String arithmeticRecipe;
+    private String linearCombinationRecipe;
+
+    private SingleValueField coldArithmeticField;
+    private SingleValueField coldLinearCombinationField;
+    private SingleValueField warmArithmeticField;
+    private SingleValueField warmLinearCombinationField;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        subjects = BenchmarkFixtures.makeSubjects(numSubjects);
+        arithmeticRecipe = BenchmarkFixtures.arithmeticTree("arithmetic", depth);
+        linearCombinationRecipe = BenchmarkFixtures.linearCombination("linear_combination", width, depth);
+
+        warmArithmeticField = makeField(arithmeticRecipe);
+        warmLinearCombinationField = makeField(linearCombinationRecipe);
+        for (Subject subject : subjects) {
+            warmArithmeticField.valueForSubject(subject, false);
+            warmLinearCombinationField.valueForSubject(subject, false);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpColdFields() {
+        coldArithmeticField = makeField(arithmeticRecipe);
+        coldLinearCombinationField = makeField(linearCombinationRecipe);
+    }
+
+    @Benchmark
+    public void arithmeticTreeCold(Blackhole blackhole) throws Exception {
+        evaluate(coldArithmeticField, blackhole);
+    }
+
+    @Benchmark
+    public void arithmeticTreeWarm(Blackhole blackhole) throws Exception {
+        evaluate(warmArithmeticField, blackhole);
+    }
+
+    @Benchmark
+    public void linearCombinationCold(Blackhole blackhole) throws Exception {
+        evaluate(coldLinearCombinationField, blackhole);
+    }
+
+    @Benchmark
+    public void linearCombinationWarm(Blackhole blackhole) throws Exception {
+        evaluate(warmLinearCombinationField, blackhole);
+    }
+
+    private void evaluate(SingleValueField field, Blackhole blackhole) throws Exception {
+        for (Subject subject : subjects)
+            blackhole.consume(field.valueForSubject(subject, false));
+    }
+
+    private SingleValueField makeField(String recipe) {
+        Field field = BenchmarkFixtures.toField(recipe);
+        field.setEvaluationContext(new EvaluationContext(new FieldCache(), null));
+        return (SingleValueField) field;
+    }
+}
@@ -0,0 +1,65 @@
+package uk.org.tombolo.importer.osm;
+
+import de.topobyte.osm4j.core.model.iface.OsmEntity;
+import de.topobyte.osm4j.core.model.iface.OsmTag;
+import de.topobyte.osm4j.core.model.impl.Node;
+import de.topobyte.osm4j.core.model.impl.Tag;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches the tags of OSM entities against the categories of a built-in importer, as the entity handler does for
+ * every node, way and relation it reads. Most entities of an extract match no category.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OSMTagMatchingBenchmark {
+    private static final String[][] COMMON_TAGS = {
+            {"highway", "residential"}, {"highway", "footway"}, {"highway", "cycleway"}, {"building", "yes"},
+            {"amenity", "bench"}, {"amenity", "school"}, {"amenity", "pharmacy"}, {"landuse", "grass"},
+            {"leisure", "park"}, {"natural", "tree"}, {"surface", "asphalt"}, {"source", "survey"},
+            {"cycleway", "lane"}, {"oneway", "yes"}, {"barrier", "fence"}, {"shop", "convenience"}};
+
+    @Param({"OSMCycling", "OSMGreenspace", "OSMHealth"})
+    String datasourceId;
+
+    @Param({"10000"})
+    int numEntities;
+
+    private List<OsmEntity> entities;
+    private OSMTagMatcher tagMatcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        entities = new ArrayList<>(numEntities);
+        for (int i = 0; i < numEntities; i++) {
+            // Most nodes only carry coordinates, the other entities a few tags
+            List<OsmTag> tags = new ArrayList<>();
+            int numTags = (i % 4 == 0) ? 1 + random.nextInt(4) : 0;
+            for (int j = 0; j < numTags; j++) {
+                String[] tag = COMMON_TAGS[random.nextInt(COMMON_TAGS.length)];
+                tags.add(new Tag(tag[0], tag[1]));
+            }
+            if (numTags > 0)
+                tags.add(new Tag("name", "Entity " + i));
+            entities.add(new Node(i, -0.1, 51.5, tags));
+        }
+        tagMatcher = OSMBuiltInImporters.valueOf(datasourceId).getTagMatcher();
+    }
+
+    @Benchmark
+    public void matchCategories(Blackhole blackhole) {
+        for (OsmEntity entity : entities)
+            blackhole.consume(tagMatcher.matches(entity));
+    }
+}
@@ -0,0 +1,64 @@
+package uk.org.tombolo.importer.utils;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import org.geotools.geometry.GeneralDirectPosition;
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.operation.DefaultCoordinateOperationFactory;
+import org.opengis.referencing.operation.CoordinateOperation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transforms British National Grid points to WGS84, in points per second.
+ *
+ * The uncached benchmark decodes the reference systems and creates the operation for every point, as
+ * CoordinateUtils used to; the others use the shared transforms, one point at a time and in bulk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoordinateTransformBenchmark {
+    private static final int NUM_POINTS = 1000;
+
+    private double[] eastNorths;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        eastNorths = new double[2 * NUM_POINTS];
+        for (int i = 0; i < NUM_POINTS; i++) {
+            eastNorths[2 * i] = 100000 + random.nextDouble() * 500000;
+            eastNorths[2 * i + 1] = 50000 + random.nextDouble() * 900000;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void uncachedPerPoint(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < NUM_POINTS; i++) {
+            CoordinateOperation operation = new DefaultCoordinateOperationFactory().createOperation(
+                    CRS.decode(CoordinateUtils.OSGBCRS), CRS.decode(CoordinateUtils.WGS84CRS));
+            blackhole.consume(operation.getMathTransform().transform(
+                    new GeneralDirectPosition(eastNorths[2 * i], eastNorths[2 * i + 1]), null));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public void cachedPerPoint(Blackhole blackhole) throws Exception {
+        for (int i = 0; i < NUM_POINTS; i++)
+            blackhole.consume(CoordinateUtils.osgbToWgs84(eastNorths[2 * i], eastNorths[2 * i + 1]));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_POINTS)
+    public Coordinate[] cachedBulk() throws Exception {
+        return CoordinateUtils.eastNorthToLatLong(eastNorths, CoordinateUtils.OSGBCRS, CoordinateUtils.WGS84CRS);
+    }
+}
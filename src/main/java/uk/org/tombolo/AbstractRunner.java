@@ -73,6 +73,16 @@ public abstract class AbstractRunner {
         }
     }
 
+    protected OutputStream getOutputStream(String path) {
+        try {
+            return new BufferedOutputStream(new FileOutputStream(path));
+        } catch (IOException e) {
+            log.error("Error initialising output stream: {}", path);
+            System.exit(1);
+            return null;
+        }
+    }
+
     protected Writer getOutputWriter(String path) {
         try {
             return new FileWriter(path);
@@ -14,7 +14,7 @@ import uk.org.tombolo.importer.ImporterMatcher;
 import uk.org.tombolo.recipe.DataExportRecipe;
 import uk.org.tombolo.recipe.FieldRecipe;
 
-import java.io.Writer;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Properties;
 
@@ -35,12 +35,14 @@ public class DataExportRunner extends AbstractRunner {
         String correlation = args[3];
         String forceImports = args[4];
         Boolean clearDatabaseCache = Boolean.parseBoolean(args[5]);
+        // Optional number of export workers, overriding the one in the recipe
+        Integer workers = args.length > 6 && !args[6].equals("None") ? Integer.parseInt(args[6]) : null;
 
-        run(isString, recipe, output, correlation, forceImports, clearDatabaseCache);
+        run(isString, recipe, output, correlation, forceImports, clearDatabaseCache, workers);
     }
 
     private static void run(Boolean isString, String recipe, String output, String correlation, String forceImports,
-                            Boolean clearDatabaseCache) throws Exception {
+                            Boolean clearDatabaseCache, Integer workers) throws Exception {
         HibernateUtil.startup();
         if (clearDatabaseCache) {
             DatabaseUtils.clearAllData();
@@ -51,12 +53,15 @@ public class DataExportRunner extends AbstractRunner {
 
         // Loading the recipe for future use
         DataExportRecipe dataExportRecipe = runner.getRecipe(recipe, isString);
+        if (workers != null) {
+            dataExportRecipe.setWorkers(workers);
+        }
 
         // Create engine
         DataExportEngine engine = new DataExportEngine(apiKeys, runner.initialiseDowloadUtils());
 
-        try (Writer writer = runner.getOutputWriter(output)) {
-            engine.execute(dataExportRecipe, writer, new ImporterMatcher(forceImports));
+        try (OutputStream outputStream = runner.getOutputStream(output)) {
+            engine.execute(dataExportRecipe, outputStream, new ImporterMatcher(forceImports));
         } catch (Exception e) {
             log.error("\n" + BRIGHT_RED+ "-----> TASK FAILED: " + e.getMessage()  + "<-----\nCaused by " +
                     e.getCause() + "\n\n" + RED + ExceptionUtils.getStackTrace(e) + END);
@@ -4,29 +4,68 @@ import org.hibernate.query.Query;
 import uk.org.tombolo.core.Attribute;
 import uk.org.tombolo.core.Provider;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
 
 public class AttributeUtils {
-	public static void save(List<Attribute> attributes){
+	// Synchronized since concurrent imports may save the same attributes
+	public static synchronized void save(List<Attribute> attributes){
 		HibernateUtil.withSession(session -> {
 			session.beginTransaction();
 			for (Attribute attribute : attributes) {
-				// FIXME: This might be inefficient if we are updating the attribute over and over again without actually changing it
 				Attribute savedAttribute = getByProviderAndLabel(attribute.getProvider(), attribute.getLabel());
 				if (savedAttribute == null) {
 					Integer id = (Integer) session.save(attribute);
 					attribute.setId(id);
 				} else {
+					// The saved attribute may be detached, so its row is updated through the new one
 					attribute.setId(savedAttribute.getId());
-					savedAttribute.setProvider(attribute.getProvider());
-					savedAttribute.setLabel(attribute.getLabel());
-					savedAttribute.setDescription(attribute.getDescription());
-					session.save(savedAttribute);
+					session.merge(attribute);
 				}
 			}
 			session.getTransaction().commit();
 		});
+		attributes.forEach(MetadataRegistry::putAttribute);
+	}
+
+	/**
+	 * Returns the attributes of the provider with the given labels, creating the ones that do not exist yet.
+	 * The new attributes are saved in a single transaction, one caller at a time so that concurrent importers
+	 * do not create the same attribute twice.
+	 *
+	 * @param provider The provider of the attributes
+	 * @param labels The labels of the attributes
+	 * @param factory Makes the attribute for a label that does not exist yet
+	 * @return The attributes by label
+	 */
+	public static Map<String, Attribute> getOrCreate(Provider provider, Collection<String> labels, Function<String, Attribute> factory) {
+		Map<String, Attribute> attributes = new LinkedHashMap<>();
+		boolean missing = false;
+		for (String label : labels) {
+			Attribute attribute = getByProviderAndLabel(provider, label);
+			missing |= attribute == null;
+			attributes.put(label, attribute);
+		}
+		if (!missing)
+			return attributes;
+
+		synchronized (AttributeUtils.class) {
+			List<Attribute> newAttributes = new ArrayList<>();
+			for (Map.Entry<String, Attribute> entry : attributes.entrySet()) {
+				if (entry.getValue() != null)
+					continue;
+				// Another caller may have created it in the meantime
+				Attribute attribute = getByProviderAndLabel(provider, entry.getKey());
+				if (attribute == null) {
+					attribute = factory.apply(entry.getKey());
+					newAttributes.add(attribute);
+				}
+				entry.setValue(attribute);
+			}
+			if (!newAttributes.isEmpty())
+				save(newAttributes);
+		}
+		return attributes;
 	}
 
 	public static void save(Attribute attribute) {
@@ -38,12 +77,12 @@ public class AttributeUtils {
 	}
 
 	public static Attribute getByProviderAndLabel(String providerLabel, String attributeLabel) {
-		return HibernateUtil.withSession(session -> {
+		return MetadataRegistry.getAttribute(providerLabel, attributeLabel, () -> HibernateUtil.withSession(session -> {
 			Query query = session.createQuery("from Attribute where provider.label = :providerLabel and label = :attributeLabel", Attribute.class);
 			query.setCacheable(true);
 			query.setParameter("providerLabel", providerLabel);
 			query.setParameter("attributeLabel", attributeLabel);
 			return (Attribute) query.uniqueResult();
-		});
+		}));
 	}
 }
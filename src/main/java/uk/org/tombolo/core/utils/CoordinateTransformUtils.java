@@ -0,0 +1,105 @@
+package uk.org.tombolo.core.utils;
+
+import org.geotools.referencing.CRS;
+import org.geotools.referencing.operation.DefaultCoordinateOperationFactory;
+import org.opengis.referencing.FactoryException;
+import org.opengis.referencing.crs.CoordinateReferenceSystem;
+import org.opengis.referencing.operation.MathTransform;
+import org.opengis.referencing.operation.TransformException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared registry of coordinate reference systems and the math transforms between them.
+ *
+ * Decoding an EPSG code and finding a transform are far more expensive than transforming a point, so both are done
+ * once per code and pair of codes and kept for the lifetime of the application. The transforms are immutable and
+ * can be shared between threads.
+ */
+public class CoordinateTransformUtils {
+    private static final ConcurrentMap<String, CoordinateReferenceSystem> crsCache = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, MathTransform> transformCache = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the coordinate reference system of the code, with the axes in the order given by the authority.
+     *
+     * @param code Code of the reference system, e.g. EPSG:4326
+     */
+    public static CoordinateReferenceSystem getCrs(String code) throws FactoryException {
+        return getCrs(code, false);
+    }
+
+    /**
+     * Returns the coordinate reference system of the code.
+     *
+     * @param code Code of the reference system, e.g. EPSG:4326
+     * @param longitudeFirst Whether to force the longitude (or easting) axis first, whatever the authority says
+     */
+    public static CoordinateReferenceSystem getCrs(String code, boolean longitudeFirst) throws FactoryException {
+        String key = code + (longitudeFirst ? ":xy" : ":authority");
+        CoordinateReferenceSystem crs = crsCache.get(key);
+        if (crs == null) {
+            crs = CRS.decode(code, longitudeFirst);
+            crsCache.putIfAbsent(key, crs);
+        }
+        return crs;
+    }
+
+    /**
+     * Returns the transform between two reference systems, with the axes in the order given by the authority.
+     */
+    public static MathTransform getTransform(String sourceCrs, String targetCrs) throws FactoryException {
+        return getTransform(sourceCrs, false, targetCrs, false);
+    }
+
+    /**
+     * Returns the transform between two reference systems.
+     *
+     * @param sourceCrs Code of the reference system of the coordinates
+     * @param sourceLongitudeFirst Whether the source coordinates have the longitude (or easting) first
+     * @param targetCrs Code of the reference system to transform the coordinates to
+     * @param targetLongitudeFirst Whether the transformed coordinates have the longitude (or easting) first
+     */
+    public static MathTransform getTransform(String sourceCrs, boolean sourceLongitudeFirst,
+                                             String targetCrs, boolean targetLongitudeFirst) throws FactoryException {
+        String key = sourceCrs + ":" + sourceLongitudeFirst + ">" + targetCrs + ":" + targetLongitudeFirst;
+        MathTransform transform = transformCache.get(key);
+        if (transform == null) {
+            transform = CRS.findMathTransform(
+                    getCrs(sourceCrs, sourceLongitudeFirst), getCrs(targetCrs, targetLongitudeFirst));
+            transformCache.putIfAbsent(key, transform);
+        }
+        return transform;
+    }
+
+    /**
+     * Returns the transform between two reference systems built by the default coordinate operation factory from
+     * the datum shifts of the reference systems, rather than from the operations of the EPSG database as
+     * getTransform does. The axes are in the order given by the authority.
+     */
+    public static MathTransform getDefaultOperationTransform(String sourceCrs, String targetCrs) throws FactoryException {
+        String key = "default:" + sourceCrs + ">" + targetCrs;
+        MathTransform transform = transformCache.get(key);
+        if (transform == null) {
+            transform = new DefaultCoordinateOperationFactory()
+                    .createOperation(getCrs(sourceCrs), getCrs(targetCrs)).getMathTransform();
+            transformCache.putIfAbsent(key, transform);
+        }
+        return transform;
+    }
+
+    /**
+     * Transforms two dimensional coordinates packed as x1, y1, x2, y2, ... in a single call.
+     *
+     * @param transform Two dimensional transform
+     * @param coordinates Packed coordinates, which are replaced by the transformed ones
+     * @return The array of coordinates
+     */
+    public static double[] transform(MathTransform transform, double[] coordinates) throws TransformException {
+        if (coordinates.length % 2 != 0)
+            throw new IllegalArgumentException("Packed coordinates must have an even length");
+        transform.transform(coordinates, 0, coordinates, 0, coordinates.length / 2);
+        return coordinates;
+    }
+}
@@ -1,8 +1,18 @@
 package uk.org.tombolo.core.utils;
 
 import org.hibernate.Transaction;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
 
 public class DatabaseUtils {
+    // Number of rows encoded before they are sent down a COPY stream
+    private static final int COPY_CHUNK_SIZE = 1000;
+
     public static void clearAllData() {
         HibernateUtil.restart(); // We need to do this to clear the data from the session
         HibernateUtil.withSession(session -> {
@@ -12,5 +22,69 @@ public class DatabaseUtils {
             session.createNativeQuery("DELETE FROM provider WHERE label NOT IN ('default_provider_label')").executeUpdate();
             transaction.commit();
         });
+        MetadataRegistry.clear();
+        SubjectLabelIndex.clear();
+    }
+
+    /**
+     * Streams rows into a table using the PostgreSQL COPY protocol in text format.
+     * Each row must be a line of tab separated values, with every value encoded by {@link #copyValue(Object)}.
+     *
+     * @param connection The connection to copy on, usually from Session#doWork
+     * @param table The table to copy into
+     * @param columns The comma separated columns the rows are made of
+     * @param rows The encoded rows
+     * @throws SQLException if the copy fails
+     */
+    static void copyRows(Connection connection, String table, String columns, Collection<String> rows) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+        try {
+            StringBuilder chunk = new StringBuilder();
+            int chunkRows = 0;
+            for (String row : rows) {
+                chunk.append(row).append('\n');
+                if (++chunkRows == COPY_CHUNK_SIZE) {
+                    writeToCopy(copyIn, chunk);
+                    chunkRows = 0;
+                }
+            }
+            writeToCopy(copyIn, chunk);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive())
+                copyIn.cancelCopy();
+        }
+    }
+
+    /**
+     * Encodes a value for the COPY text format, escaping the characters that delimit rows and values.
+     *
+     * @param value The value, null is encoded as the COPY null marker
+     * @return The encoded value
+     */
+    static String copyValue(Object value) {
+        if (value == null)
+            return "\\N";
+
+        String string = value.toString();
+        StringBuilder encoded = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '\\': encoded.append("\\\\"); break;
+                case '\t': encoded.append("\\t"); break;
+                case '\n': encoded.append("\\n"); break;
+                case '\r': encoded.append("\\r"); break;
+                default: encoded.append(c);
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static void writeToCopy(CopyIn copyIn, StringBuilder chunk) throws SQLException {
+        byte[] bytes = chunk.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        chunk.setLength(0);
     }
 }
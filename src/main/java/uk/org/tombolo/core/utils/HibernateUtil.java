@@ -3,33 +3,40 @@ package uk.org.tombolo.core.utils;
 import org.hibernate.CacheMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.boot.Metadata;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 import org.hibernate.cfg.Configuration;
 import org.hibernate.cfg.Environment;
-import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceConfigurationError;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
+/**
+ * HibernateUtil.java
+ * Owns the SessionFactory and hands out sessions backed by a pooled set of connections.
+ *
+ * Sessions are scoped to a unit of work. The outermost call to withSession on a thread opens a new
+ * session and closes it when it returns, and any calls nested inside it on the same thread share that
+ * session. Each thread therefore works with its own session and sessions never grow beyond a single
+ * unit of work. Callers that need a longer lived session can use openSession with try-with-resources,
+ * and bulk reads can use a stateless session, which bypasses the first-level cache entirely.
+ */
 public class HibernateUtil {
-	private static SessionFactory sessionFactory;
-    private static Session sharedSession;
+	private static volatile SessionFactory sessionFactory;
+    // The session of the unit of work the current thread is in, if any
+    private static final ThreadLocal<Session> currentSession = new ThreadLocal<>();
 
-    public static void startup() {
+    public static synchronized void startup() {
         sessionFactory = buildSessionFactory();
-        sharedSession = sessionFactory.openSession();
-        sharedSession.setCacheMode(CacheMode.NORMAL);
     }
 
-    public static void startUpForPython() {
+    public static synchronized void startUpForPython() {
         sessionFactory = buildSessionFactoryForPython();
-        sharedSession = sessionFactory.openSession();
-        sharedSession.setCacheMode(CacheMode.NORMAL);
     }
 
     private static SessionFactory buildSessionFactoryForPython() {
@@ -43,6 +50,7 @@ public class HibernateUtil {
             settings.put(Environment.USER, "tombolo");
             settings.put(Environment.PASS, "tombolo");
             settings.put(Environment.DIALECT, "org.hibernate.spatial.dialect.postgis.PostgisDialect");
+            settings.put(Environment.CONNECTION_PROVIDER, "org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
             
             registryBuilder.applySettings(settings);
             registry = registryBuilder.build();
@@ -64,23 +72,82 @@ public class HibernateUtil {
         return factory;
     }
     
-    public static void shutdown() {
+    public static synchronized void shutdown() {
     	// Close caches and connection pools
-        sharedSession.close();
     	sessionFactory.close();
+    	sessionFactory = null;
     }
 
-    public static void restart() {
+    public static synchronized void restart() {
         if (isStarted()) { shutdown(); }
         startup();
     }
 
+    /**
+     * Opens a new session for a unit of work. The caller owns the session and must close it,
+     * preferably with try-with-resources.
+     *
+     * @return A new session
+     */
+    public static Session openSession() {
+        Session session = getSessionFactory().openSession();
+        session.setCacheMode(CacheMode.NORMAL);
+        return session;
+    }
+
+    /**
+     * Opens a new stateless session for reads. Stateless sessions neither keep nor dirty check the
+     * entities they load, which makes them suited to reading large result sets. Entities loaded
+     * through them are detached and changes to them are never written back. The caller must close
+     * the session.
+     *
+     * @return A new stateless session
+     */
+    public static StatelessSession openStatelessSession() {
+        return getSessionFactory().openStatelessSession();
+    }
+
     public static <T> T withSession(Function<Session, T> fn) {
-        return fn.apply(sharedSession);
+        Session session = currentSession.get();
+        if (null != session) {
+            // We are nested in a unit of work on this thread so we share its session
+            return fn.apply(session);
+        }
+
+        try (Session unitOfWorkSession = openSession()) {
+            currentSession.set(unitOfWorkSession);
+            try {
+                return fn.apply(unitOfWorkSession);
+            } finally {
+                // Do not hand a connection back to the pool in the middle of a transaction
+                if (unitOfWorkSession.getTransaction().isActive())
+                    unitOfWorkSession.getTransaction().rollback();
+            }
+        } finally {
+            currentSession.remove();
+        }
     }
 
     public static void withSession(Consumer<Session> fn) {
-        fn.accept(sharedSession);
+        withSession(session -> {
+            fn.accept(session);
+            return null;
+        });
+    }
+
+    public static <T> T withStatelessSession(Function<StatelessSession, T> fn) {
+        try (StatelessSession session = openStatelessSession()) {
+            return fn.apply(session);
+        }
+    }
+
+    private static SessionFactory getSessionFactory() {
+        if (!isStarted()) {
+            synchronized (HibernateUtil.class) {
+                if (!isStarted()) { startup(); }
+            }
+        }
+        return sessionFactory;
     }
 
     private static SessionFactory buildSessionFactory() {
@@ -107,9 +174,13 @@ public class HibernateUtil {
         if (null != System.getProperty("databasePassword")) {
             cfg.setProperty("hibernate.connection.password", System.getProperty("databasePassword"));
         }
+
+        if (null != System.getProperty("databasePoolSize")) {
+            cfg.setProperty("hibernate.hikari.maximumPoolSize", System.getProperty("databasePoolSize"));
+        }
     }
 
     private static boolean isStarted() {
-        return null != sharedSession;
+        return null != sessionFactory;
     }
 }
@@ -0,0 +1,87 @@
+package uk.org.tombolo.core.utils;
+
+import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.Provider;
+import uk.org.tombolo.core.SubjectType;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory copy of the providers, subject types and attributes, which importers and fields look up by label
+ * over and over again.
+ *
+ * All of them are loaded on the first lookup. Lookups that miss go to the database, in case another process has
+ * added the entity since, and what they find is added. The utils keep the registry up to date when they save and
+ * the registry is emptied when the database is cleared.
+ */
+class MetadataRegistry {
+	private static final ConcurrentMap<String, Provider> providers = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, SubjectType> subjectTypes = new ConcurrentHashMap<>();
+	private static final ConcurrentMap<String, Attribute> attributes = new ConcurrentHashMap<>();
+	private static volatile boolean loaded = false;
+
+	static Provider getProvider(String label, Supplier<Provider> loader) {
+		return get(providers, label, loader);
+	}
+
+	static SubjectType getSubjectType(String providerLabel, String label, Supplier<SubjectType> loader) {
+		return get(subjectTypes, key(providerLabel, label), loader);
+	}
+
+	static Attribute getAttribute(String providerLabel, String label, Supplier<Attribute> loader) {
+		return get(attributes, key(providerLabel, label), loader);
+	}
+
+	static void putProvider(Provider provider) {
+		providers.put(provider.getLabel(), provider);
+	}
+
+	static void putSubjectType(SubjectType subjectType) {
+		subjectTypes.put(key(subjectType.getProvider().getLabel(), subjectType.getLabel()), subjectType);
+	}
+
+	static void putAttribute(Attribute attribute) {
+		attributes.put(key(attribute.getProvider().getLabel(), attribute.getLabel()), attribute);
+	}
+
+	static synchronized void clear() {
+		providers.clear();
+		subjectTypes.clear();
+		attributes.clear();
+		loaded = false;
+	}
+
+	private static <T> T get(ConcurrentMap<String, T> entities, String key, Supplier<T> loader) {
+		if (!loaded)
+			load();
+		T entity = entities.get(key);
+		if (entity == null) {
+			entity = loader.get();
+			if (entity != null)
+				entities.putIfAbsent(key, entity);
+		}
+		return entity;
+	}
+
+	private static synchronized void load() {
+		if (loaded)
+			return;
+		HibernateUtil.withSession(session -> {
+			List<Provider> allProviders = session.createQuery("from Provider", Provider.class).list();
+			allProviders.forEach(MetadataRegistry::putProvider);
+			List<SubjectType> allSubjectTypes = session.createQuery("from SubjectType", SubjectType.class).list();
+			allSubjectTypes.forEach(MetadataRegistry::putSubjectType);
+			List<Attribute> allAttributes = session.createQuery("from Attribute", Attribute.class).list();
+			allAttributes.forEach(MetadataRegistry::putAttribute);
+		});
+		loaded = true;
+	}
+
+	// Labels may contain any character, so the two parts are told apart by their length
+	private static String key(String providerLabel, String label) {
+		return providerLabel.length() + ":" + providerLabel + label;
+	}
+}
@@ -10,7 +10,8 @@ public class ProviderUtils {
 		});
 	}
 
-	public static void save(Provider provider){
+	// Synchronized since concurrent imports may save the same provider
+	public static synchronized void save(Provider provider){
 		HibernateUtil.withSession(session -> {
 			session.beginTransaction();
 			// FIXME: This might be inefficient if we are updating the provider over and over again without actually changing it
@@ -22,14 +23,15 @@ public class ProviderUtils {
 			}
 			session.getTransaction().commit();
 		});
+		MetadataRegistry.putProvider(provider);
 	}
 
 	public static Provider getByLabel(String label){
-		return HibernateUtil.withSession(session -> {
+		return MetadataRegistry.getProvider(label, () -> HibernateUtil.withSession(session -> {
 			Query query = session.createQuery("from Provider where label = :label", Provider.class)
 					.setParameter("label", label);
 			query.setCacheable(true);
 			return (Provider) query.uniqueResult();
-		});
+		}));
 	}
 }
@@ -0,0 +1,97 @@
+package uk.org.tombolo.core.utils;
+
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the labels of the subjects of a subject type to their ids in memory.
+ *
+ * The labels and ids of all the subjects of a type are read with one query the first time the type is looked up,
+ * into an open addressing map of labels to primitive ids, and shared by all the importers. The index of a type
+ * is dropped whenever subjects of that type are saved through {@link SubjectUtils}, and loaded again on the
+ * next lookup.
+ *
+ * The subjects returned are references holding only the id, the subject type and the label, which is all that
+ * is needed to save timed and fixed values. Their name and shape are not loaded.
+ */
+public class SubjectLabelIndex {
+	private static final int NO_ID = -1;
+	private static final ConcurrentMap<Integer, SubjectLabelIndex> indexes = new ConcurrentHashMap<>();
+
+	private final SubjectType subjectType;
+	private final TObjectIntMap<String> idsByLabel;
+
+	private SubjectLabelIndex(SubjectType subjectType, List<Object[]> idsAndLabels) {
+		this.subjectType = subjectType;
+		this.idsByLabel = new TObjectIntHashMap<>(Math.max(idsAndLabels.size(), 10), 0.5f, NO_ID);
+		for (Object[] idAndLabel : idsAndLabels)
+			idsByLabel.put((String) idAndLabel[1], (Integer) idAndLabel[0]);
+	}
+
+	/**
+	 * Returns the index of the subject type, loading it if needed.
+	 *
+	 * @param subjectType A saved subject type
+	 */
+	public static SubjectLabelIndex forSubjectType(SubjectType subjectType) {
+		return indexes.computeIfAbsent(subjectType.getId(), id -> load(subjectType));
+	}
+
+	/**
+	 * Returns a reference to the subject of the subject type with the label, or null if there is none.
+	 * Subject types that have not been saved are looked up in the database.
+	 */
+	public static Subject getSubject(SubjectType subjectType, String label) {
+		if (subjectType == null || subjectType.getId() == null)
+			return SubjectUtils.getSubjectByTypeAndLabel(subjectType, label);
+		return forSubjectType(subjectType).getSubject(label);
+	}
+
+	static void invalidate(Integer subjectTypeId) {
+		if (subjectTypeId != null)
+			indexes.remove(subjectTypeId);
+	}
+
+	static void clear() {
+		indexes.clear();
+	}
+
+	/**
+	 * Returns the id of the subject with the label, or null if there is none.
+	 */
+	public Integer getId(String label) {
+		int id = idsByLabel.get(label);
+		return (id == NO_ID) ? null : id;
+	}
+
+	/**
+	 * Returns a reference to the subject with the label, or null if there is none.
+	 */
+	public Subject getSubject(String label) {
+		int id = idsByLabel.get(label);
+		if (id == NO_ID)
+			return null;
+		Subject subject = new Subject(subjectType, label, null, null);
+		subject.setId(id);
+		return subject;
+	}
+
+	public int size() {
+		return idsByLabel.size();
+	}
+
+	private static SubjectLabelIndex load(SubjectType subjectType) {
+		return HibernateUtil.withStatelessSession(session -> {
+			List<Object[]> idsAndLabels = session.createQuery("select s.id, s.label from Subject s where s.subjectType = :subjectType", Object[].class)
+					.setParameter("subjectType", subjectType)
+					.list();
+			return new SubjectLabelIndex(subjectType, idsAndLabels);
+		});
+	}
+}
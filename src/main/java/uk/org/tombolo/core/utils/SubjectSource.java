@@ -0,0 +1,119 @@
+package uk.org.tombolo.core.utils;
+
+import org.hibernate.ScrollableResults;
+import org.hibernate.StatelessSession;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.recipe.SubjectRecipe;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Subjects matching a list of subject recipes, read from the database as they are iterated.
+ *
+ * Each iteration scrolls through the subjects with a database cursor on its own stateless session, so only
+ * about one fetch of subjects is held in memory at a time however many subjects match. The cursor is closed
+ * when the iteration reaches the end, or when the source is closed.
+ */
+public class SubjectSource implements Iterable<Subject>, AutoCloseable {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final List<SubjectRecipe> subjectRecipes;
+    private final int fetchSize;
+    private final List<SubjectCursor> openCursors = new ArrayList<>();
+
+    public SubjectSource(List<SubjectRecipe> subjectRecipes) {
+        this(subjectRecipes, DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * @param subjectRecipes Recipes of the subjects, which are returned one recipe after the other
+     * @param fetchSize Number of subjects fetched from the database at a time
+     */
+    public SubjectSource(List<SubjectRecipe> subjectRecipes, int fetchSize) {
+        this.subjectRecipes = subjectRecipes;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public Iterator<Subject> iterator() {
+        SubjectCursor cursor = new SubjectCursor();
+        synchronized (openCursors) {
+            openCursors.add(cursor);
+        }
+        return cursor;
+    }
+
+    @Override
+    public void close() {
+        List<SubjectCursor> cursors;
+        synchronized (openCursors) {
+            cursors = new ArrayList<>(openCursors);
+        }
+        cursors.forEach(SubjectCursor::close);
+    }
+
+    private class SubjectCursor implements Iterator<Subject> {
+        private StatelessSession session;
+        private ScrollableResults results;
+        private int nextRecipe = 0;
+        private Subject next;
+        private boolean closed = false;
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && !closed) {
+                if (results == null) {
+                    if (nextRecipe == subjectRecipes.size()) {
+                        close();
+                        break;
+                    }
+                    results = SubjectUtils.scrollSubjectBySpecification(getSession(), subjectRecipes.get(nextRecipe++), fetchSize);
+                }
+                if (results.next()) {
+                    next = (Subject) results.get(0);
+                } else {
+                    results.close();
+                    results = null;
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Subject next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            Subject subject = next;
+            next = null;
+            return subject;
+        }
+
+        private StatelessSession getSession() {
+            if (session == null) {
+                session = HibernateUtil.openStatelessSession();
+                // The JDBC driver only fetches in batches inside a transaction, otherwise it reads all rows at once
+                session.beginTransaction();
+            }
+            return session;
+        }
+
+        void close() {
+            if (closed)
+                return;
+            closed = true;
+            if (results != null)
+                results.close();
+            if (session != null) {
+                // Nothing has been written, the transaction only holds the cursor
+                session.getTransaction().rollback();
+                session.close();
+            }
+            synchronized (openCursors) {
+                openCursors.remove(this);
+            }
+        }
+    }
+}
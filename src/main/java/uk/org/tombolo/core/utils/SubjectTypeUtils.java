@@ -14,7 +14,8 @@ public class SubjectTypeUtils {
 		}
 	}
 	
-	public static void save(SubjectType subjectType) {
+	// Synchronized since concurrent imports may save the same subject type
+	public static synchronized void save(SubjectType subjectType) {
 		ProviderUtils.save(subjectType.getProvider());
 		HibernateUtil.withSession(session -> {
 			session.beginTransaction();
@@ -27,25 +28,32 @@ public class SubjectTypeUtils {
 			}
 			session.getTransaction().commit();
 		});
+		MetadataRegistry.putSubjectType(subjectType);
 	}
 
 	public static SubjectType getOrCreate(Provider provider, String label, String name) {
 		SubjectType subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel(provider.getLabel(), label);
 		if (null == subjectType) {
-			subjectType = new SubjectType(provider, label, name);
-			SubjectTypeUtils.save(subjectType);
+			synchronized (SubjectTypeUtils.class) {
+				// Another import may have created it in the meantime
+				subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel(provider.getLabel(), label);
+				if (null == subjectType) {
+					subjectType = new SubjectType(provider, label, name);
+					SubjectTypeUtils.save(subjectType);
+				}
+			}
 		}
 
 		return subjectType;
 	}
 
 	public static SubjectType getSubjectTypeByProviderAndLabel(String providerLabel, String subjectTypeLabel) {
-		return HibernateUtil.withSession(session -> {
+		return MetadataRegistry.getSubjectType(providerLabel, subjectTypeLabel, () -> HibernateUtil.withSession(session -> {
 			Query query =  session.createQuery("from SubjectType where label = :subjectTypeLabel and provider.label = :providerLabel", SubjectType.class)
 					.setParameter("providerLabel", providerLabel)
 					.setParameter("subjectTypeLabel", subjectTypeLabel);
 			query.setCacheable(true);
 			return (SubjectType) query.uniqueResult();
-		});
+		}));
 	}
 }
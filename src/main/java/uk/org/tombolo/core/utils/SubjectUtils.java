@@ -1,8 +1,12 @@
 package uk.org.tombolo.core.utils;
 
 import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKBWriter;
 import org.hibernate.NonUniqueObjectException;
-import org.hibernate.Session;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,9 +17,13 @@ import uk.org.tombolo.recipe.SubjectRecipe;
 import uk.org.tombolo.recipe.SubjectRecipe.SubjectAttributeMatchRule;
 
 import javax.persistence.Parameter;
+import java.sql.ResultSet;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -23,6 +31,9 @@ import java.util.stream.Stream;
 public class SubjectUtils {
 	static Logger log = LoggerFactory.getLogger(TimedValueUtils.class);
 
+	// Staging table used by bulkSave, it only lives for the duration of the transaction
+	private static final String STAGING_TABLE = "subject_staging";
+
 	public static List<Subject> getSubjectByTypeAndLabelPattern(SubjectType subjectType, String labelPattern){
 		return HibernateUtil.withSession(session -> {
 			return session.createQuery("from Subject where subjectType = :subjectType and lower(label) like :labelPattern", Subject.class)
@@ -87,7 +98,8 @@ public class SubjectUtils {
 
 
 	public static List<Subject> getSubjectBySpecification(SubjectRecipe subjectRecipe) {
-		return HibernateUtil.withSession(session -> {
+		// This is the bulk read of an export so we use a stateless session that does not hold on to the subjects
+		return HibernateUtil.withStatelessSession(session -> {
 			return (List<Subject>) queryFromSubjectSpecification(session, subjectRecipe).list();
 		});
 	}
@@ -99,6 +111,32 @@ public class SubjectUtils {
 		}
 		return subjects;
 	}
+
+	/**
+	 * getSubjectIdsBySpecifications
+	 * Returns the ids of the subjects matching the recipes, without loading the subjects themselves.
+	 *
+	 * @param subjectRecipes The recipes of the subjects
+	 * @return The ids of the subjects
+	 */
+	public static List<Integer> getSubjectIdsBySpecifications(List<SubjectRecipe> subjectRecipes) {
+		List<Integer> subjectIds = new ArrayList<>();
+		for (SubjectRecipe subjectRecipe : subjectRecipes) {
+			subjectIds.addAll(HibernateUtil.withStatelessSession(session -> {
+				return (List<Integer>) queryFromSubjectSpecification(session, subjectRecipe, "select s.id from Subject s", Integer.class).list();
+			}));
+		}
+		return subjectIds;
+	}
+
+	/*
+	Opens a forward-only cursor over the subjects matching a recipe, see SubjectSource.
+	*/
+	static ScrollableResults scrollSubjectBySpecification(StatelessSession session, SubjectRecipe subjectRecipe, int fetchSize) {
+		return queryFromSubjectSpecification(session, subjectRecipe)
+				.setFetchSize(fetchSize)
+				.scroll(ScrollMode.FORWARD_ONLY);
+	}
 	
 	public static void save(List<Subject> subjects){
 		HibernateUtil.withSession(session -> {
@@ -124,6 +162,70 @@ public class SubjectUtils {
 			}
 			session.getTransaction().commit();
 		});
+		invalidateLabelIndexes(subjects);
+	}
+
+	/**
+	 * bulkSave
+	 * Saves a list of Subjects with the same insert-or-update semantics as save, but resolves
+	 * existing subjects with set-based statements instead of one lookup per subject.
+	 *
+	 * The subjects are streamed into a temporary staging table using the PostgreSQL COPY protocol,
+	 * merged into subject with a single INSERT ... ON CONFLICT (subject_type_id, label) DO UPDATE
+	 * and their ids read back with one join. The subject types must already have been saved.
+	 * If the same subject type and label appears more than once the last subject wins, and all
+	 * of them are given its id.
+	 *
+	 * @param subjects The Subjects to save, their ids are set to the ids assigned by the database
+	 * @return The ids of the subjects, in the same order as the subjects
+	 */
+	public static List<Integer> bulkSave(List<Subject> subjects){
+		Map<String, List<Subject>> subjectsByKey = new LinkedHashMap<>();
+		Map<String, String> rows = new LinkedHashMap<>();
+		WKBWriter wkbWriter = new WKBWriter(2, true);
+		for (Subject subject : subjects) {
+			String key = subject.getSubjectType().getId() + "\t" + DatabaseUtils.copyValue(subject.getLabel());
+			subjectsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(subject);
+			rows.put(key, key
+					+ "\t" + DatabaseUtils.copyValue(subject.getName())
+					+ "\t" + DatabaseUtils.copyValue(subject.getShape() == null ? null : WKBWriter.toHex(wkbWriter.write(subject.getShape()))));
+		}
+
+		if (!rows.isEmpty()) {
+			HibernateUtil.withSession(session -> {
+				session.beginTransaction();
+				session.createNativeQuery("CREATE TEMPORARY TABLE " + STAGING_TABLE + " ("
+						+ "subject_type_id integer, label text, name text, shape geometry"
+						+ ") ON COMMIT DROP")
+						.addSynchronizedQuerySpace(STAGING_TABLE)
+						.executeUpdate();
+				session.doWork(connection -> DatabaseUtils.copyRows(connection, STAGING_TABLE, "subject_type_id, label, name, shape", rows.values()));
+				// Synchronising on Subject makes Hibernate invalidate the cached queries on subject
+				session.createNativeQuery("INSERT INTO subject (subject_type_id, label, name, shape) "
+						+ "SELECT subject_type_id, label, name, shape FROM " + STAGING_TABLE + " "
+						+ "ON CONFLICT (subject_type_id, label) DO UPDATE SET name = EXCLUDED.name, shape = EXCLUDED.shape")
+						.addSynchronizedEntityClass(Subject.class)
+						.executeUpdate();
+				session.doWork(connection -> {
+					try (Statement statement = connection.createStatement();
+						 ResultSet resultSet = statement.executeQuery("SELECT s.id, s.subject_type_id, s.label FROM subject s "
+								 + "JOIN " + STAGING_TABLE + " st ON s.subject_type_id = st.subject_type_id AND s.label = st.label")) {
+						while (resultSet.next()) {
+							String key = resultSet.getInt(2) + "\t" + DatabaseUtils.copyValue(resultSet.getString(3));
+							for (Subject subject : subjectsByKey.get(key)) {
+								subject.setId(resultSet.getInt(1));
+							}
+						}
+					}
+				});
+				session.getTransaction().commit();
+				// Any Subject already in the session may now be stale
+				session.clear();
+			});
+			invalidateLabelIndexes(subjects);
+		}
+
+		return subjects.stream().map(Subject::getId).collect(Collectors.toList());
 	}
 
 	/*
@@ -156,19 +258,31 @@ public class SubjectUtils {
 			}
 			session.getTransaction().commit();
 		});
+		invalidateLabelIndexes(subjects);
 	}
 
-	private static Query queryFromSubjectSpecification(Session session, SubjectRecipe subjectRecipe) {
+	private static void invalidateLabelIndexes(List<Subject> subjects) {
+		subjects.stream().map(subject -> subject.getSubjectType().getId()).distinct().forEach(SubjectLabelIndex::invalidate);
+	}
+
+	private static Query queryFromSubjectSpecification(SharedSessionContract session, SubjectRecipe subjectRecipe) {
+		// Fetch the subject type along with the subjects, as a stateless session would otherwise load it once per subject
+		return queryFromSubjectSpecification(session, subjectRecipe,
+				"from Subject s join fetch s.subjectType st join fetch st.provider", Subject.class);
+	}
+
+	private static Query queryFromSubjectSpecification(SharedSessionContract session, SubjectRecipe subjectRecipe,
+													   String selectClause, Class<?> resultClass) {
 		SubjectType subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel(subjectRecipe.getProvider(), subjectRecipe.getSubjectType());
 
-		String hqlQuery = "from Subject s where s.subjectType = :subjectType";
+		String hqlQuery = selectClause + " where s.subjectType = :subjectType";
 
 		// Add Attribute Match Rule if exists
 		if (null != subjectRecipe.getMatchRule()){
 			if (subjectRecipe.getMatchRule().attribute == SubjectAttributeMatchRule.MatchableAttribute.label) {
-				hqlQuery += " and lower(label) like :pattern";
+				hqlQuery += " and lower(s.label) like :pattern";
 			} else if (subjectRecipe.getMatchRule().attribute == SubjectAttributeMatchRule.MatchableAttribute.name) {
-				hqlQuery += " and lower(name) like :pattern";
+				hqlQuery += " and lower(s.name) like :pattern";
 			} else {
 				throw new IllegalArgumentException(
 						"SubjectAttributeMatchRule attribute is not a valid type (can be either name or label)");
@@ -181,7 +295,7 @@ public class SubjectUtils {
 			Collections.addAll(geoRel, SubjectRecipe.SubjectGeoMatchRule.GeoRelation.values());
 			SubjectRecipe.SubjectGeoMatchRule.GeoRelation gr = subjectRecipe.getGeoMatchRule().geoRelation;
 			if (geoRel.contains(subjectRecipe.getGeoMatchRule().geoRelation)){
-				hqlQuery += " and " + subjectRecipe.getGeoMatchRule().geoRelation.name() + "(shape, :geom) = true";
+				hqlQuery += " and " + subjectRecipe.getGeoMatchRule().geoRelation.name() + "(s.shape, :geom) = true";
 			} else {
 				throw new IllegalArgumentException(String.format(
 						"SubjectGeoMatchRule geoRelation is not a valid type.\nSupported spatial joins: %s.",
@@ -191,7 +305,7 @@ public class SubjectUtils {
 		}
 
 		// Create the basic query with obligatory paramaters
-		Query query = session.createQuery(hqlQuery, Subject.class);
+		Query query = session.createQuery(hqlQuery, resultClass);
 
 		for (Parameter parameter : query.getParameters()) {
 			if (Objects.equals(parameter.getName(), "subjectType")) {
@@ -236,15 +350,75 @@ public class SubjectUtils {
 		});
 	}
 
+	public static List<Subject> subjectsIntersectingSubject(SubjectType subjectType, Subject subject) {
+		return HibernateUtil.withSession(session -> {
+			Query query = session.createQuery("from Subject where subjectType = :subjectType and intersects(shape, :geom) = true", Subject.class);
+			query.setParameter("subjectType", subjectType);
+			query.setParameter("geom", subject.getShape());
+			query.setCacheable(true);
+			return (List<Subject>) query.getResultList();
+		});
+	}
+
+	/**
+	 * getSubjectsBySubjectType
+	 * Returns every subject of a subject type, read with a stateless session as it is meant for bulk loads.
+	 *
+	 * @param subjectType The type of the subjects
+	 * @return The subjects of the type
+	 */
+	public static List<Subject> getSubjectsBySubjectType(SubjectType subjectType) {
+		return HibernateUtil.withStatelessSession(session -> {
+			return session.createQuery("from Subject s join fetch s.subjectType st join fetch st.provider where s.subjectType = :subjectType", Subject.class)
+					.setParameter("subjectType", subjectType)
+					.list();
+		});
+	}
+
+	/**
+	 * countSubjectsAndPoints
+	 * Returns the number of subjects of a subject type and the total number of points in their shapes,
+	 * which gives an estimate of the memory they take once loaded.
+	 *
+	 * @param subjectType The type of the subjects
+	 * @return An array with the number of subjects and the number of points
+	 */
+	public static long[] countSubjectsAndPoints(SubjectType subjectType) {
+		return HibernateUtil.withSession(session -> {
+			Object[] counts = (Object[]) session.createNativeQuery("select count(*), coalesce(sum(st_npoints(shape)), 0) from subject where subject_type_id = :subjectTypeId")
+					.setParameter("subjectTypeId", subjectType.getId())
+					.uniqueResult();
+			return new long[]{((Number) counts[0]).longValue(), ((Number) counts[1]).longValue()};
+		});
+	}
+
 	public static Subject subjectNearestSubject(SubjectType subjectType, Subject subject, Double radius){
+		List<Subject> subjects = subjectsNearestSubject(subjectType, subject, radius, 1);
+		return subjects.isEmpty() ? null : subjects.get(0);
+	}
+
+	/**
+	 * subjectsNearestSubject
+	 * Returns up to k subjects of a subject type nearest to a subject, nearest first.
+	 *
+	 * @param subjectType The type of the subjects to look for
+	 * @param subject The subject to measure the distance from
+	 * @param radius The maximum distance of the subjects, or null for no limit
+	 * @param k The maximum number of subjects to return
+	 * @return The nearest subjects
+	 */
+	public static List<Subject> subjectsNearestSubject(SubjectType subjectType, Subject subject, Double radius, int k){
 		return HibernateUtil.withSession(session -> {
-			Query query = session.createQuery("from Subject where subjectType = :subjectType and st_dwithin(shape, :geom, :radius) = true order by st_distance(shape, :geom)", Subject.class);
+			Query query = session.createQuery("from Subject where subjectType = :subjectType"
+					+ (radius != null ? " and st_dwithin(shape, :geom, :radius) = true" : "")
+					+ " order by st_distance(shape, :geom)", Subject.class);
 			query.setParameter("subjectType", subjectType);
 			query.setParameter("geom", subject.getShape());
-			query.setParameter("radius", radius);
+			if (radius != null)
+				query.setParameter("radius", radius);
 			query.setCacheable(true);
-			query.setMaxResults(1);
-			return (Subject) query.uniqueResult();
+			query.setMaxResults(k);
+			return (List<Subject>) query.getResultList();
 		});
 	}
 }
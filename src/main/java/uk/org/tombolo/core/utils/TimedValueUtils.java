@@ -9,12 +9,15 @@ import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.importer.ParsingException;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.temporal.ChronoField;
 import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -23,6 +26,11 @@ import java.util.stream.Collectors;
 public class TimedValueUtils {
 	static Logger log = LoggerFactory.getLogger(TimedValueUtils.class);
 
+	// Staging table used by bulkSave, it only lives for the duration of the transaction
+	private static final String STAGING_TABLE = "timed_value_staging";
+	// Timestamps are written with the offset of the JVM time zone, as the JDBC driver does for the Hibernate path
+	private static final DateTimeFormatter COPY_TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSSxxx");
+
 	public static List<TimedValue> getBySubjectAndAttribute(Subject subject, Attribute attribute){
 		return HibernateUtil.withSession((session) -> {
 			return session.createQuery("from TimedValue where id.subject = :subject and id.attribute = :attribute", TimedValue.class)
@@ -123,6 +131,68 @@ public class TimedValueUtils {
 		});
 	}
 
+	/**
+	 * bulkSave
+	 * Saves a list of TimedValues with the same insert-or-update semantics as save, but without
+	 * going through the Hibernate session for every row.
+	 *
+	 * The values are streamed into a temporary staging table using the PostgreSQL COPY protocol
+	 * and then merged into timed_value with a single INSERT ... ON CONFLICT DO UPDATE statement.
+	 * The subjects and attributes of the values must already have been saved. If the same
+	 * subject, attribute and timestamp appears more than once in the list the last value wins.
+	 *
+	 * @param timedValues The TimedValues to save
+	 * @return The number of TimedValues saved
+	 * @throws IllegalArgumentException if a subject or attribute has not been saved
+	 */
+	public static int bulkSave(List<TimedValue> timedValues){
+		Collection<String> rows = copyRowsForTimedValues(timedValues);
+		if (rows.isEmpty())
+			return 0;
+
+		return HibernateUtil.withSession((session) -> {
+			session.beginTransaction();
+			session.createNativeQuery("CREATE TEMPORARY TABLE " + STAGING_TABLE + " ("
+					+ "subject_id integer, attribute_id integer, timestamp timestamp with time zone, value double precision"
+					+ ") ON COMMIT DROP")
+					.addSynchronizedQuerySpace(STAGING_TABLE)
+					.executeUpdate();
+			session.doWork(connection -> DatabaseUtils.copyRows(connection, STAGING_TABLE, "subject_id, attribute_id, timestamp, value", rows));
+			// Synchronising on TimedValue makes Hibernate invalidate the cached queries on timed_value
+			int saved = session.createNativeQuery("INSERT INTO timed_value (subject_id, attribute_id, timestamp, value) "
+					+ "SELECT subject_id, attribute_id, timestamp, value FROM " + STAGING_TABLE + " "
+					+ "ON CONFLICT (subject_id, attribute_id, timestamp) DO UPDATE SET value = EXCLUDED.value")
+					.addSynchronizedEntityClass(TimedValue.class)
+					.executeUpdate();
+			session.getTransaction().commit();
+			// Any TimedValue already in the session may now be stale
+			session.clear();
+			return saved;
+		});
+	}
+
+	/*
+	Encodes the TimedValues as rows in the COPY text format, keyed by their primary key so that
+	duplicates within the same list do not make the merge statement update a row twice.
+	*/
+	private static Collection<String> copyRowsForTimedValues(List<TimedValue> timedValues){
+		Map<String, String> rows = new LinkedHashMap<>();
+		for (TimedValue timedValue : timedValues){
+			Subject subject = timedValue.getId().getSubject();
+			Attribute attribute = timedValue.getId().getAttribute();
+			if (subject.getId() == null || attribute.getId() == null)
+				// The Hibernate save fails on unsaved references too, rather than losing the value
+				throw new IllegalArgumentException(String.format(
+						"Could not save timed value for subject %s, attribute %s: subject or attribute has not been saved",
+						subject.getLabel(), attribute.getLabel()));
+			String key = subject.getId()
+					+ "\t" + attribute.getId()
+					+ "\t" + timedValue.getId().getTimestamp().atZone(ZoneId.systemDefault()).format(COPY_TIMESTAMP_FORMATTER);
+			rows.put(key, key + "\t" + DatabaseUtils.copyValue(timedValue.getValue()));
+		}
+		return rows.values();
+	}
+
 	/*
 	Save and update requries to check in the database whether the entry exists or not,
 	if exists it updates else adds, but that increase overhead and compute time.
@@ -3,25 +3,44 @@ package uk.org.tombolo.execution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.AbstractRunner;
+import uk.org.tombolo.core.Attribute;
 import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.utils.AttributeUtils;
+import uk.org.tombolo.core.utils.DatabaseJournal;
+import uk.org.tombolo.core.utils.SubjectSource;
 import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.exporter.AbstractExporter;
+import uk.org.tombolo.exporter.BinaryExporter;
 import uk.org.tombolo.exporter.Exporter;
 import uk.org.tombolo.field.Field;
 import uk.org.tombolo.field.ParentField;
+import uk.org.tombolo.field.PrefetchableField;
 import uk.org.tombolo.field.modelling.ModellingField;
 import uk.org.tombolo.importer.Config;
+import uk.org.tombolo.importer.Download;
+import uk.org.tombolo.importer.DownloadManager;
 import uk.org.tombolo.importer.DownloadUtils;
+import uk.org.tombolo.importer.ImportPlanner;
 import uk.org.tombolo.importer.Importer;
 import uk.org.tombolo.importer.ImporterMatcher;
 import uk.org.tombolo.importer.utils.ConfigUtils;
+import uk.org.tombolo.importer.utils.JournalEntryUtils;
+import uk.org.tombolo.recipe.AttributeMatcher;
 import uk.org.tombolo.recipe.DataExportRecipe;
 import uk.org.tombolo.recipe.DatasourceRecipe;
 import uk.org.tombolo.recipe.FieldRecipe;
 import uk.org.tombolo.recipe.SubjectRecipe;
 
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class DataExportEngine implements ExecutionEngine {
@@ -29,72 +48,182 @@ public class DataExportEngine implements ExecutionEngine {
 	private static DownloadUtils downloadUtils;
 	private static Properties apiKeys;
 	private FieldCache fieldCache;
+	private SpatialJoinService spatialJoinService;
 
 	public DataExportEngine(Properties apiKeys, DownloadUtils downloadUtils) {
 		this.apiKeys = apiKeys;
 		this.downloadUtils = downloadUtils;
 		fieldCache = new FieldCache();
+		spatialJoinService = new SpatialJoinService();
 	}
 
+	/**
+	 * Writes the export of a recipe with a character writer, which binary exporters cannot use.
+	 */
 	public void execute(DataExportRecipe dataExportRecipe, Writer writer, ImporterMatcher forceImports) throws Exception {
-		List<SubjectRecipe> subjectRecipes = dataExportRecipe.getDataset().getSubjects();
-		// Import datasources that are in the global dataset specification
-		for (DatasourceRecipe datasourceSpec : dataExportRecipe.getDataset().getDatasources()) {
-			if (!datasourceSpec.getImporterClass().isEmpty()) {
-				importDatasource(forceImports, datasourceSpec, subjectRecipes);
+		execute(dataExportRecipe, forceImports, (exporter, subjects, fields) -> {
+			if (exporter instanceof BinaryExporter)
+				throw new IllegalArgumentException(String.format("Exporter %s writes a binary format and needs an " +
+						"output stream", dataExportRecipe.getExporter()));
+			((Exporter) exporter).write(writer, subjects, fields, dataExportRecipe.getTimeStamp());
+		});
+	}
+
+	/**
+	 * Writes the export of a recipe to an output stream. Text formats are written in UTF-8.
+	 */
+	public void execute(DataExportRecipe dataExportRecipe, OutputStream outputStream, ImporterMatcher forceImports) throws Exception {
+		execute(dataExportRecipe, forceImports, (exporter, subjects, fields) -> {
+			if (exporter instanceof BinaryExporter) {
+				((BinaryExporter) exporter).write(outputStream, subjects, fields, dataExportRecipe.getTimeStamp());
+			} else {
+				// Text exporters may close their writer, while the stream is closed by the caller
+				Writer writer = new FilterWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+					@Override
+					public void close() throws IOException {
+						flush();
+					}
+				};
+				((Exporter) exporter).write(writer, subjects, fields, dataExportRecipe.getTimeStamp());
+				writer.flush();
 			}
-		}
+		});
+	}
+
+	@FunctionalInterface
+	private interface ExportWriter {
+		/**
+		 * @param exporter Either an {@link Exporter} or a {@link BinaryExporter}
+		 */
+		void write(Object exporter, Iterable<Subject> subjects, List<Field> fields) throws Exception;
+	}
+
+	private void execute(DataExportRecipe dataExportRecipe, ImporterMatcher forceImports, ExportWriter exportWriter) throws Exception {
+		List<SubjectRecipe> subjectRecipes = dataExportRecipe.getDataset().getSubjects();
 
 		// Generate fields
 		List<FieldRecipe> fieldSpecs = dataExportRecipe.getDataset().getFields();
 		List<Field> fields = new ArrayList<>();
+		EvaluationContext context = new EvaluationContext(fieldCache, spatialJoinService);
 		for (FieldRecipe fieldSpec : fieldSpecs) {
 			Field field = fieldSpec.toField();
-			field.setFieldCache(fieldCache);
+			field.setEvaluationContext(context);
 			fields.add(field);
 		}
 
-		prepareFields(fields, dataExportRecipe.getDataset().getSubjects(), forceImports);
+		// Plan the imports of the datasources in the global dataset specification and in the predefined fields
+		List<DatasourceRecipe> datasourceRecipes = new ArrayList<>(dataExportRecipe.getDataset().getDatasources());
+		collectDatasources(fields, datasourceRecipes);
+		ImportPlanner importPlanner = new ImportPlanner(
+				datasourceRecipe -> initialiseImporter(datasourceRecipe, subjectRecipes), forceImports);
+		for (DatasourceRecipe datasourceRecipe : datasourceRecipes) {
+			if (!datasourceRecipe.getImporterClass().isEmpty()) {
+				importPlanner.add(datasourceRecipe);
+			}
+		}
+
+		// Download the files of all the datasources before importing any of them
+		prefetchDownloads(importPlanner.getImports(), forceImports);
+		importPlanner.run();
 
 		// Use the new fields method
 		log.info("Exporting ...");
 		List<SubjectRecipe> subjectSpecList = subjectRecipes;
-		Exporter exporter = (Exporter) Class.forName(dataExportRecipe.getExporter()).newInstance();
-		List<Subject> subjects = SubjectUtils.getSubjectBySpecifications(subjectSpecList);
-		exporter.write(writer, subjects, fields, dataExportRecipe.getTimeStamp());
+		Object exporter = Class.forName(dataExportRecipe.getExporter()).newInstance();
+		if (!(exporter instanceof Exporter || exporter instanceof BinaryExporter))
+			throw new IllegalArgumentException(String.format("%s is not an exporter", dataExportRecipe.getExporter()));
+		if (exporter instanceof AbstractExporter && dataExportRecipe.getWorkers() != null) {
+			log.info("Evaluating fields with {} workers", dataExportRecipe.getWorkers());
+			((AbstractExporter) exporter).setWorkers(dataExportRecipe.getWorkers());
+		}
+		context.setValueStore(prefetchValues(fields, SubjectUtils.getSubjectIdsBySpecifications(subjectSpecList)));
+		// Subjects are streamed from the database rather than loaded all at once
+		try (SubjectSource subjects = new SubjectSource(subjectSpecList)) {
+			exportWriter.write(exporter, subjects, fields);
+		}
+		log.info("Field cache: {} hits, {} misses, {} evictions, {} values cached",
+				fieldCache.getHits(), fieldCache.getMisses(), fieldCache.getEvictions(), fieldCache.getSize());
 	}
 
-	private void prepareFields(List<Field> fields, List<SubjectRecipe> subjectRecipes, ImporterMatcher forceImports) throws Exception {
-		// Import datasources that are specified as part of a predefined field
+
+	private void collectDatasources(List<Field> fields, List<DatasourceRecipe> datasourceRecipes) {
 		for (Field field : fields) {
 			if (field instanceof ModellingField) {
 				// This is a predefined field and hence we need to import the appropriate datasources
-				for (DatasourceRecipe datasourceRecipe : ((ModellingField) field).getDatasources()) {
-					importDatasource(forceImports, datasourceRecipe, subjectRecipes);
-				}
+				datasourceRecipes.addAll(((ModellingField) field).getDatasources());
 			}
 
 			if (field instanceof ParentField) {
-				// This is a parent field and hence we need to prepare its children
-				prepareFields(((ParentField) field).getChildFields(), subjectRecipes, forceImports);
+				// This is a parent field and hence we need to collect the datasources of its children
+				collectDatasources(((ParentField) field).getChildFields(), datasourceRecipes);
 			}
 		}
 	}
 
+	/*
+	Downloads the remote files of the datasources that are going to be imported, several at a time.
+	Datasources that have been imported previously and are not forced are skipped, and importers that fail to
+	list their files simply download them during the import.
+	*/
+	private void prefetchDownloads(List<ImportPlanner.PlannedImport> plannedImports, ImporterMatcher forceImports)
+			throws InterruptedException {
+		List<Download> downloads = new ArrayList<>();
+		for (ImportPlanner.PlannedImport plannedImport : plannedImports) {
+			DatasourceRecipe datasourceRecipe = plannedImport.getDatasourceRecipe();
+			if (!forceImports.doesMatch(datasourceRecipe.getImporterClass())
+					&& DatabaseJournal.journalHasEntry(JournalEntryUtils.getJournalEntryForDatasourceId(
+							datasourceRecipe.getImporterClass(), datasourceRecipe.getDatasourceId(),
+							datasourceRecipe.getGeographyScope(), datasourceRecipe.getTemporalScope(),
+							datasourceRecipe.getLocalData())))
+				continue;
+			try {
+				downloads.addAll(plannedImport.getImporter().getDownloads(
+						datasourceRecipe.getDatasourceId(),
+						datasourceRecipe.getGeographyScope(),
+						datasourceRecipe.getTemporalScope(),
+						datasourceRecipe.getLocalData()));
+			} catch (Exception e) {
+				log.warn("Could not list the files of {}:{}: {}",
+						datasourceRecipe.getImporterClass(), datasourceRecipe.getDatasourceId(), e.getMessage());
+			}
+		}
+		new DownloadManager(downloadUtils).prefetch(downloads);
+	}
+
+	/*
+	Loads the values of every attribute read by the fields for all the exported subjects at once,
+	instead of letting each field query them one subject at a time.
+	*/
+	private ValueStore prefetchValues(List<Field> fields, List<Integer> subjectIds) {
+		Map<Integer, Attribute> attributes = new HashMap<>();
+		collectAttributes(fields, attributes);
+		log.info("Prefetching values of {} attributes for {} subjects", attributes.size(), subjectIds.size());
+		return ValueStore.loadBySubjectIds(subjectIds, attributes.values());
+	}
+
+	private void collectAttributes(List<Field> fields, Map<Integer, Attribute> attributes) {
+		for (Field field : fields) {
+			if (field instanceof PrefetchableField) {
+				for (AttributeMatcher attributeMatcher : ((PrefetchableField) field).getAttributeMatchers()) {
+					Attribute attribute = AttributeUtils.getByProviderAndLabel(attributeMatcher.provider, attributeMatcher.label);
+					// Missing attributes are reported by the fields themselves
+					if (attribute != null)
+						attributes.put(attribute.getId(), attribute);
+				}
+			}
 
-	private void importDatasource(ImporterMatcher forceImports, DatasourceRecipe datasourceRecipe, List<SubjectRecipe> subjectRecipes) throws Exception {
+			if (field instanceof ParentField) {
+				collectAttributes(((ParentField) field).getChildFields(), attributes);
+			}
+		}
+	}
 
+	private Importer initialiseImporter(DatasourceRecipe datasourceRecipe, List<SubjectRecipe> subjectRecipes) throws Exception {
 		Importer importer = initialiseImporter(datasourceRecipe.getImporterClass(), datasourceRecipe.getConfigFile());
 		importer.configure(apiKeys);
 		importer.setDownloadUtils(downloadUtils);
 		importer.setSubjectRecipes(subjectRecipes);
-		importer.importDatasource(
-				datasourceRecipe.getDatasourceId(),
-				datasourceRecipe.getGeographyScope(),
-				datasourceRecipe.getTemporalScope(),
-				datasourceRecipe.getLocalData(),
-				forceImports.doesMatch(datasourceRecipe.getImporterClass())
-		);
+		return importer;
 	}
 
 	private Importer initialiseImporter(String importerClass, String configFile) throws Exception {
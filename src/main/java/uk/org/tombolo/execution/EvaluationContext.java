@@ -0,0 +1,40 @@
+package uk.org.tombolo.execution;
+
+/**
+ * What the fields of an export use besides the database to compute their values: the cache of field values,
+ * the values prefetched for the exported subjects and the in-memory spatial lookups.
+ *
+ * Any of them may be missing, in which case the fields compute their values from the database. The value store
+ * is only known once the datasources have been imported, so it is set after the context has been given to the
+ * fields and before they are evaluated.
+ */
+public class EvaluationContext {
+    private final FieldCache fieldCache;
+    private final SpatialJoinService spatialJoinService;
+    private volatile ValueStore valueStore;
+
+    /**
+     * @param fieldCache The cache of field values, or null for none
+     * @param spatialJoinService The spatial lookups between subjects, or null to send them to the database
+     */
+    public EvaluationContext(FieldCache fieldCache, SpatialJoinService spatialJoinService) {
+        this.fieldCache = fieldCache;
+        this.spatialJoinService = spatialJoinService;
+    }
+
+    public FieldCache getFieldCache() {
+        return fieldCache;
+    }
+
+    public SpatialJoinService getSpatialJoinService() {
+        return spatialJoinService;
+    }
+
+    public ValueStore getValueStore() {
+        return valueStore;
+    }
+
+    public void setValueStore(ValueStore valueStore) {
+        this.valueStore = valueStore;
+    }
+}
@@ -1,55 +1,197 @@
 package uk.org.tombolo.execution;
 
-import org.ehcache.Cache;
-import org.ehcache.CacheManager;
-import org.ehcache.config.builders.CacheConfigurationBuilder;
-import org.ehcache.config.builders.CacheManagerBuilder;
-import org.ehcache.config.builders.ResourcePoolsBuilder;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.field.Field;
 
+import java.util.IdentityHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Class for caching field values when exporting. This will speed up exports that re-use calculated fields.
+ *
+ * Values are keyed by the field instance and the subject id. Numeric values are kept as primitive doubles so that
+ * they do not have to be parsed again on every hit. The cache holds at most the given amount of memory: when it
+ * is full the least recently written half of the entries is evicted. Hits, misses and evictions are counted.
  */
 public class FieldCache {
-    private Logger log = LoggerFactory.getLogger(FieldCache.class);
-    private static final int LOGGING_FREQUENCY = 1000;
-    private static final int DEFAULT_CACHE_SIZE_ENTRIES = 100000;
-    private Cache<String,String> fieldCache;
+    // System property with the memory budget of the cache, in megabytes
+    public static final String MEMORY_BUDGET_PROPERTY = "fieldCacheMemoryBudget";
+    private static final long DEFAULT_MEMORY_BUDGET_MB = 64;
+    // Concurrent workers lock one segment at a time
+    private static final int SEGMENTS = 16;
+    // Rough heap cost of an entry of the primitive map, and of an entry of the string map before the characters
+    private static final long BYTES_PER_DOUBLE_ENTRY = 40;
+    private static final long BYTES_PER_STRING_ENTRY = 96;
 
-    int hits = 0;
-    int misses = 0;
+    // Fields are told apart by identity, so fields with colliding hash codes cannot see each other's values.
+    // The map is replaced rather than modified when a field is registered, so that it is read without locking.
+    private volatile IdentityHashMap<Field, Integer> fieldIds = new IdentityHashMap<>();
+    private final Segment[] segments = new Segment[SEGMENTS];
 
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
 
     public FieldCache(){
-        CacheManager cacheManager = CacheManagerBuilder.newCacheManagerBuilder()
-                .withCache("fields",
-                        CacheConfigurationBuilder.newCacheConfigurationBuilder(String.class, String.class, ResourcePoolsBuilder.heap(DEFAULT_CACHE_SIZE_ENTRIES)))
-                .build();
-        cacheManager.init();
-        fieldCache = cacheManager.getCache("fields", String.class, String.class);
+        this(Long.getLong(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET_MB) * 1024 * 1024);
+    }
+
+    /**
+     * @param memoryBudget Estimated number of bytes the cached values may take
+     */
+    public FieldCache(long memoryBudget){
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(memoryBudget / SEGMENTS);
+    }
+
+    /**
+     * Assigns the field its id in the cache keys. Fields that are not registered are registered on first use.
+     */
+    public synchronized int register(Field field){
+        Integer fieldId = fieldIds.get(field);
+        if (fieldId == null) {
+            IdentityHashMap<Field, Integer> registered = new IdentityHashMap<>(fieldIds);
+            fieldId = registered.size();
+            registered.put(field, fieldId);
+            fieldIds = registered;
+        }
+        return fieldId;
     }
 
     public String getChachedValue(Field field, Subject subject){
-        String cachedValue = fieldCache.get(getCacheKey(field, subject));
-        if (cachedValue != null)
-            hits++;
-        else
-            misses++;
-        if ((hits+misses) % LOGGING_FREQUENCY == 0)
-            log.info("Caching milestone {} ({} hits) ({} misses)", hits+misses, hits, misses);
-        return cachedValue;
+        long key = getCacheKey(field, subject);
+        return count(segmentFor(key).getString(key));
     }
 
     public void putCachedValue(Field field, Subject subject, String value){
-        fieldCache.put(getCacheKey(field, subject),value);
+        long key = getCacheKey(field, subject);
+        segmentFor(key).putString(key, value);
+    }
+
+    /**
+     * Returns the cached numeric value of the field for the subject, or null if there is none.
+     */
+    public Double getCachedDouble(Field field, Subject subject){
+        long key = getCacheKey(field, subject);
+        return count(segmentFor(key).getDouble(key));
+    }
+
+    public void putCachedDouble(Field field, Subject subject, double value){
+        long key = getCacheKey(field, subject);
+        segmentFor(key).putDouble(key, value);
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
     }
 
-    private String getCacheKey(Field field, Subject subject){
-        return field.hashCode()
-                + "\t"
-                +subject.getId();
+    /**
+     * Returns the number of values currently in the cache.
+     */
+    public long getSize() {
+        long size = 0;
+        for (Segment segment : segments)
+            size += segment.size();
+        return size;
+    }
+
+    private <T> T count(T value){
+        if (value != null)
+            hits.incrementAndGet();
+        else
+            misses.incrementAndGet();
+        return value;
+    }
+
+    private long getCacheKey(Field field, Subject subject){
+        Integer fieldId = fieldIds.get(field);
+        if (fieldId == null)
+            fieldId = register(field);
+        return ((long) fieldId << 32) | (subject.getId() & 0xffffffffL);
+    }
+
+    private Segment segmentFor(long key){
+        // Spread the subject ids of one field over the segments
+        return segments[(int) ((key ^ (key >>> 32)) & (SEGMENTS - 1))];
+    }
+
+    /*
+    Part of the cache with its own lock. Values are written to the current generation; when it takes half of the
+    budget of the segment the previous generation is evicted and the current one takes its place. Values read
+    from the previous generation are moved back to the current one.
+    */
+    private final class Segment {
+        private final long generationBudget;
+        private TLongDoubleHashMap currentDoubles = new TLongDoubleHashMap();
+        private TLongObjectHashMap<String> currentStrings = new TLongObjectHashMap<>();
+        private TLongDoubleHashMap previousDoubles = new TLongDoubleHashMap();
+        private TLongObjectHashMap<String> previousStrings = new TLongObjectHashMap<>();
+        private long currentBytes = 0;
+
+        Segment(long budget) {
+            this.generationBudget = budget / 2;
+        }
+
+        synchronized Double getDouble(long key) {
+            if (currentDoubles.containsKey(key))
+                return currentDoubles.get(key);
+            if (previousDoubles.containsKey(key)) {
+                double value = previousDoubles.remove(key);
+                putDouble(key, value);
+                return value;
+            }
+            return null;
+        }
+
+        synchronized String getString(long key) {
+            String value = currentStrings.get(key);
+            if (value == null) {
+                value = previousStrings.remove(key);
+                if (value != null)
+                    putString(key, value);
+            }
+            return value;
+        }
+
+        synchronized void putDouble(long key, double value) {
+            if (!currentDoubles.containsKey(key))
+                reserve(BYTES_PER_DOUBLE_ENTRY);
+            currentDoubles.put(key, value);
+            previousDoubles.remove(key);
+        }
+
+        synchronized void putString(long key, String value) {
+            String replaced = currentStrings.get(key);
+            reserve(BYTES_PER_STRING_ENTRY + 2L * value.length()
+                    - (replaced != null ? BYTES_PER_STRING_ENTRY + 2L * replaced.length() : 0));
+            currentStrings.put(key, value);
+            previousStrings.remove(key);
+        }
+
+        synchronized long size() {
+            return currentDoubles.size() + currentStrings.size() + previousDoubles.size() + previousStrings.size();
+        }
+
+        private void reserve(long bytes) {
+            currentBytes += bytes;
+            if (currentBytes <= generationBudget)
+                return;
+            evictions.addAndGet(previousDoubles.size() + previousStrings.size());
+            previousDoubles = currentDoubles;
+            previousStrings = currentStrings;
+            currentDoubles = new TLongDoubleHashMap();
+            currentStrings = new TLongObjectHashMap<>();
+            currentBytes = 0;
+        }
     }
-}
\ No newline at end of file
+}
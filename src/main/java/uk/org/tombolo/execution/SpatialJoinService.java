@@ -0,0 +1,264 @@
+package uk.org.tombolo.execution;
+
+import com.vividsolutions.jts.geom.Envelope;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometry;
+import com.vividsolutions.jts.geom.prep.PreparedGeometryFactory;
+import com.vividsolutions.jts.index.strtree.STRtree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+import uk.org.tombolo.core.utils.SubjectUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.BiPredicate;
+import java.util.stream.Collectors;
+
+/**
+ * Answers spatial lookups between subjects in memory, including nearest neighbour searches.
+ *
+ * The first lookup against a subject type loads all the subjects of that type into an STR-tree of prepared
+ * geometries, which then answers every following lookup without going to the database. Subject types whose
+ * estimated size exceeds the memory budget are not loaded and their lookups are sent to PostGIS as before.
+ *
+ * The service is safe to share between the export workers.
+ */
+public class SpatialJoinService {
+    private static final Logger log = LoggerFactory.getLogger(SpatialJoinService.class);
+    // System property with the memory budget for all spatial indexes, in megabytes
+    public static final String MEMORY_BUDGET_PROPERTY = "spatialIndexMemoryBudget";
+    private static final long DEFAULT_MEMORY_BUDGET_MB = 512;
+    // Rough heap cost of a coordinate and of a subject with its tree node and prepared geometry
+    private static final long BYTES_PER_POINT = 48;
+    private static final long BYTES_PER_SUBJECT = 512;
+
+    private final long memoryBudget;
+    private long memoryUsed = 0;
+    private final ConcurrentMap<Integer, FutureTask<Optional<SubjectIndex>>> indexes = new ConcurrentHashMap<>();
+
+    public SpatialJoinService() {
+        this(Long.getLong(MEMORY_BUDGET_PROPERTY, DEFAULT_MEMORY_BUDGET_MB) * 1024 * 1024);
+    }
+
+    /**
+     * @param memoryBudget Estimated number of bytes the spatial indexes may take altogether
+     */
+    public SpatialJoinService(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Returns the subjects of the subject type whose shape contains the shape of the subject.
+     */
+    public List<Subject> subjectsContainingSubject(SubjectType subjectType, Subject subject) {
+        Optional<SubjectIndex> index = getIndex(subjectType);
+        if (!index.isPresent())
+            return SubjectUtils.subjectsContainingSubject(subjectType, subject);
+        return index.get().query(subject.getShape(), (candidate, shape) -> candidate.contains(shape));
+    }
+
+    /**
+     * Returns the subjects of the subject type whose shape is within the shape of the subject.
+     */
+    public List<Subject> subjectsWithinSubject(SubjectType subjectType, Subject subject) {
+        Optional<SubjectIndex> index = getIndex(subjectType);
+        if (!index.isPresent())
+            return SubjectUtils.subjectsWithinSubject(subjectType, subject);
+        PreparedGeometry container = PreparedGeometryFactory.prepare(subject.getShape());
+        return index.get().query(subject.getShape(), (candidate, shape) -> container.contains(candidate.getGeometry()));
+    }
+
+    /**
+     * Returns the subjects of the subject type whose shape intersects the shape of the subject.
+     */
+    public List<Subject> subjectsIntersectingSubject(SubjectType subjectType, Subject subject) {
+        Optional<SubjectIndex> index = getIndex(subjectType);
+        if (!index.isPresent())
+            return SubjectUtils.subjectsIntersectingSubject(subjectType, subject);
+        return index.get().query(subject.getShape(), (candidate, shape) -> candidate.intersects(shape));
+    }
+
+    /**
+     * Returns the subject of the subject type nearest to the subject within the radius, or null if there is none.
+     */
+    public Subject subjectNearestSubject(SubjectType subjectType, Subject subject, Double radius) {
+        List<Subject> subjects = subjectsNearestSubject(subjectType, subject, radius, 1);
+        return subjects.isEmpty() ? null : subjects.get(0);
+    }
+
+    /**
+     * Returns up to k subjects of the subject type nearest to the subject, nearest first.
+     *
+     * Distances are planar distances between the shapes, as computed by st_distance on the database.
+     *
+     * @param subjectType The type of the subjects to look for
+     * @param subject The subject to measure the distance from
+     * @param radius The maximum distance of the subjects, or null for no limit
+     * @param k The maximum number of subjects to return
+     * @return The nearest subjects
+     */
+    public List<Subject> subjectsNearestSubject(SubjectType subjectType, Subject subject, Double radius, int k) {
+        Optional<SubjectIndex> index = getIndex(subjectType);
+        if (!index.isPresent())
+            return SubjectUtils.subjectsNearestSubject(subjectType, subject, radius, k);
+        return index.get().nearest(subject.getShape(), radius, k);
+    }
+
+    /*
+    The first worker to ask for a subject type loads its index outside the map's locks, so that the load does not
+    hold up lookups of other types, and the other workers asking for the same type wait on its task.
+    A failed load is forgotten, so that the next lookup tries again.
+    */
+    private Optional<SubjectIndex> getIndex(SubjectType subjectType) {
+        FutureTask<Optional<SubjectIndex>> load = indexes.get(subjectType.getId());
+        if (load == null) {
+            FutureTask<Optional<SubjectIndex>> newLoad = new FutureTask<>(() -> loadIndex(subjectType));
+            load = indexes.putIfAbsent(subjectType.getId(), newLoad);
+            if (load == null) {
+                load = newLoad;
+                load.run();
+            }
+        }
+
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading the spatial index of " + subjectType.getLabel(), e);
+        } catch (ExecutionException e) {
+            indexes.remove(subjectType.getId(), load);
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private Optional<SubjectIndex> loadIndex(SubjectType subjectType) {
+        long[] counts = SubjectUtils.countSubjectsAndPoints(subjectType);
+        long estimatedSize = counts[0] * BYTES_PER_SUBJECT + counts[1] * BYTES_PER_POINT;
+        synchronized (this) {
+            if (memoryUsed + estimatedSize > memoryBudget) {
+                log.info("Subject type {} ({} subjects, {} points) exceeds the spatial index memory budget, using the database",
+                        subjectType.getLabel(), counts[0], counts[1]);
+                return Optional.empty();
+            }
+            memoryUsed += estimatedSize;
+        }
+
+        SubjectIndex index;
+        try {
+            index = new SubjectIndex(SubjectUtils.getSubjectsBySubjectType(subjectType));
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                memoryUsed -= estimatedSize;
+            }
+            throw e;
+        }
+        log.info("Indexed {} subjects of type {} ({} points)", index.size(), subjectType.getLabel(), counts[1]);
+        return Optional.of(index);
+    }
+
+    /*
+    STR-tree over the prepared shapes of the subjects of one type. The tree is built before it is shared,
+    after which it is only read.
+    */
+    private static final class SubjectIndex {
+        private final STRtree tree = new STRtree();
+        private final Envelope bounds = new Envelope();
+        private int size = 0;
+
+        SubjectIndex(List<Subject> subjects) {
+            for (Subject subject : subjects) {
+                if (subject.getShape() == null)
+                    continue;
+                tree.insert(subject.getShape().getEnvelopeInternal(), new IndexedSubject(subject));
+                bounds.expandToInclude(subject.getShape().getEnvelopeInternal());
+                size++;
+            }
+            tree.build();
+        }
+
+        int size() {
+            return size;
+        }
+
+        List<Subject> query(Geometry shape, BiPredicate<PreparedGeometry, Geometry> predicate) {
+            List<Subject> subjects = new ArrayList<>();
+            for (Object item : tree.query(shape.getEnvelopeInternal())) {
+                IndexedSubject candidate = (IndexedSubject) item;
+                if (predicate.test(candidate.shape, shape))
+                    subjects.add(candidate.subject);
+            }
+            // Keep the results independent of the layout of the tree
+            subjects.sort(Comparator.comparing(Subject::getId));
+            return subjects;
+        }
+
+        /*
+        Any shape within a distance r of the query shape has an envelope intersecting the query envelope
+        expanded by r, so the candidates of that envelope hold every subject within r. Without a radius the
+        search starts from the typical spacing of the subjects, or from the distance to the indexed subjects when
+        the query shape is outside them, and doubles until k subjects are found within the searched distance,
+        or the search covers all the subjects.
+        */
+        List<Subject> nearest(Geometry shape, Double radius, int k) {
+            if (size == 0 || k <= 0)
+                return new ArrayList<>();
+
+            double searchDistance = (radius != null) ? radius : Math.max(Double.MIN_NORMAL, Math.max(
+                    Math.max(bounds.getWidth(), bounds.getHeight()) / Math.sqrt(size),
+                    bounds.distance(shape.getEnvelopeInternal())));
+            while (true) {
+                Envelope searchEnvelope = new Envelope(shape.getEnvelopeInternal());
+                searchEnvelope.expandBy(searchDistance);
+
+                List<Neighbour> neighbours = new ArrayList<>();
+                for (Object item : tree.query(searchEnvelope)) {
+                    IndexedSubject candidate = (IndexedSubject) item;
+                    double distance = candidate.shape.getGeometry().distance(shape);
+                    if (distance <= searchDistance)
+                        neighbours.add(new Neighbour(candidate.subject, distance));
+                }
+
+                boolean coversAllSubjects = searchEnvelope.covers(bounds);
+                if (radius != null || neighbours.size() >= k || coversAllSubjects) {
+                    neighbours.sort(Comparator.comparingDouble((Neighbour neighbour) -> neighbour.distance)
+                            .thenComparing(neighbour -> neighbour.subject.getId()));
+                    return neighbours.stream().limit(k).map(neighbour -> neighbour.subject).collect(Collectors.toList());
+                }
+                searchDistance *= 2;
+            }
+        }
+    }
+
+    private static final class Neighbour {
+        final Subject subject;
+        final double distance;
+
+        Neighbour(Subject subject, double distance) {
+            this.subject = subject;
+            this.distance = distance;
+        }
+    }
+
+    private static final class IndexedSubject {
+        final Subject subject;
+        final PreparedGeometry shape;
+
+        IndexedSubject(Subject subject) {
+            this.subject = subject;
+            this.shape = PreparedGeometryFactory.prepare(subject.getShape());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package uk.org.tombolo.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.FixedValue;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.TimedValue;
+import uk.org.tombolo.core.utils.HibernateUtil;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory store of the timed and fixed values of a set of subjects and attributes.
+ *
+ * The export engine fills the store with a few set-based queries before evaluating any field, so that value
+ * fields do not have to query the database once per subject. Timed values are kept in columns of timestamps
+ * and values per subject and attribute, sorted by timestamp.
+ *
+ * The store is read-only once loaded and can be shared by the export workers.
+ */
+public class ValueStore {
+    private static final Logger log = LoggerFactory.getLogger(ValueStore.class);
+    // Number of subject ids per query, well under the limit of bind parameters of the JDBC driver
+    private static final int SUBJECT_IDS_PER_QUERY = 10000;
+
+    private final Set<Integer> subjectIds;
+    private final Set<Integer> attributeIds;
+    private final Map<Long, TimedValueColumns> timedValues = new HashMap<>();
+    private final Map<Long, String> fixedValues = new HashMap<>();
+
+    private ValueStore(Set<Integer> subjectIds, Set<Integer> attributeIds) {
+        this.subjectIds = subjectIds;
+        this.attributeIds = attributeIds;
+    }
+
+    /**
+     * Loads the timed and fixed values of every subject for every attribute.
+     *
+     * @param subjects Subjects to load the values for
+     * @param attributes Attributes to load the values for
+     * @return The store with the values
+     */
+    public static ValueStore load(Collection<Subject> subjects, Collection<Attribute> attributes) {
+        return loadBySubjectIds(subjects.stream().map(Subject::getId).collect(Collectors.toList()), attributes);
+    }
+
+    /**
+     * Loads the timed and fixed values of every subject for every attribute.
+     *
+     * @param subjectIds Ids of the subjects to load the values for
+     * @param attributes Attributes to load the values for
+     * @return The store with the values
+     */
+    public static ValueStore loadBySubjectIds(Collection<Integer> subjectIds, Collection<Attribute> attributes) {
+        ValueStore store = new ValueStore(
+                new HashSet<>(subjectIds),
+                attributes.stream().map(Attribute::getId).collect(Collectors.toSet()));
+        if (store.subjectIds.isEmpty() || store.attributeIds.isEmpty())
+            return store;
+
+        Map<Long, List<Object[]>> timedValueRows = new HashMap<>();
+        List<Integer> subjectIdList = new ArrayList<>(store.subjectIds);
+        List<Integer> attributeIdList = new ArrayList<>(store.attributeIds);
+        HibernateUtil.withStatelessSession(session -> {
+            for (int start = 0; start < subjectIdList.size(); start += SUBJECT_IDS_PER_QUERY) {
+                List<Integer> subjectIdChunk = subjectIdList.subList(start, Math.min(start + SUBJECT_IDS_PER_QUERY, subjectIdList.size()));
+
+                List<Object[]> rows = session.createNativeQuery("select subject_id, attribute_id, timestamp, value from timed_value "
+                        + "where subject_id in (:subjectIds) and attribute_id in (:attributeIds)")
+                        .setParameterList("subjectIds", subjectIdChunk)
+                        .setParameterList("attributeIds", attributeIdList)
+                        .list();
+                for (Object[] row : rows)
+                    timedValueRows.computeIfAbsent(key((Integer) row[0], (Integer) row[1]), k -> new ArrayList<>()).add(row);
+
+                rows = session.createNativeQuery("select subject_id, attribute_id, value from fixed_value "
+                        + "where subject_id in (:subjectIds) and attribute_id in (:attributeIds)")
+                        .setParameterList("subjectIds", subjectIdChunk)
+                        .setParameterList("attributeIds", attributeIdList)
+                        .list();
+                for (Object[] row : rows)
+                    store.fixedValues.put(key((Integer) row[0], (Integer) row[1]), (String) row[2]);
+            }
+            return null;
+        });
+        timedValueRows.forEach((key, rows) -> store.timedValues.put(key, new TimedValueColumns(rows)));
+
+        log.info("Loaded {} timed value series and {} fixed values for {} subjects and {} attributes",
+                store.timedValues.size(), store.fixedValues.size(), store.subjectIds.size(), store.attributeIds.size());
+        return store;
+    }
+
+    /**
+     * Returns true if the values of the subject and attribute have been loaded, in which case the absence of
+     * a value in the store means there is no value in the database either.
+     */
+    public boolean covers(Subject subject, Attribute attribute) {
+        return subjectIds.contains(subject.getId()) && attributeIds.contains(attribute.getId());
+    }
+
+    /**
+     * Returns the timed values of the subject and attribute, oldest first.
+     */
+    public List<TimedValue> getTimedValues(Subject subject, Attribute attribute) {
+        TimedValueColumns columns = timedValues.get(key(subject.getId(), attribute.getId()));
+        if (columns == null)
+            return Collections.emptyList();
+
+        List<TimedValue> values = new ArrayList<>(columns.size());
+        for (int i = 0; i < columns.size(); i++)
+            values.add(columns.timedValue(subject, attribute, i));
+        return values;
+    }
+
+    /**
+     * Returns the timed value of the subject and attribute with the latest timestamp, or null if there is none.
+     */
+    public TimedValue getLatestTimedValue(Subject subject, Attribute attribute) {
+        TimedValueColumns columns = timedValues.get(key(subject.getId(), attribute.getId()));
+        if (columns == null)
+            return null;
+        return columns.timedValue(subject, attribute, columns.size() - 1);
+    }
+
+    /**
+     * Returns the fixed value of the subject and attribute, or null if there is none.
+     */
+    public FixedValue getFixedValue(Subject subject, Attribute attribute) {
+        String value = fixedValues.get(key(subject.getId(), attribute.getId()));
+        if (value == null)
+            return null;
+        return new FixedValue(subject, attribute, value);
+    }
+
+    private static long key(int subjectId, int attributeId) {
+        return ((long) subjectId << 32) | (attributeId & 0xffffffffL);
+    }
+
+    /*
+    Timestamps and values of the timed values of one subject and attribute, sorted by timestamp.
+    */
+    private static final class TimedValueColumns {
+        private final LocalDateTime[] timestamps;
+        private final double[] values;
+        // Positions holding a null value, only allocated when there is one
+        private BitSet nullValues;
+
+        TimedValueColumns(List<Object[]> rows) {
+            rows.sort((row1, row2) -> ((Timestamp) row1[2]).compareTo((Timestamp) row2[2]));
+            timestamps = new LocalDateTime[rows.size()];
+            values = new double[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                Object[] row = rows.get(i);
+                timestamps[i] = ((Timestamp) row[2]).toLocalDateTime();
+                if (row[3] == null) {
+                    if (nullValues == null)
+                        nullValues = new BitSet(rows.size());
+                    nullValues.set(i);
+                } else {
+                    values[i] = ((Number) row[3]).doubleValue();
+                }
+            }
+        }
+
+        int size() {
+            return timestamps.length;
+        }
+
+        TimedValue timedValue(Subject subject, Attribute attribute, int i) {
+            Double value = (nullValues != null && nullValues.get(i)) ? null : values[i];
+            return new TimedValue(subject, attribute, timestamps[i], value);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package uk.org.tombolo.exporter;
+
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.field.Field;
+import uk.org.tombolo.field.ParentField;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Base class for exporters that evaluate the fields of each subject independently.
+ *
+ * When configured with more than one worker the subjects are evaluated concurrently on a fixed pool of threads,
+ * while the rows are handed to the writer in the original subject order.
+ */
+public abstract class AbstractExporter {
+	// Number of subjects that can be queued per worker ahead of the writer
+	private static final int SUBJECTS_IN_FLIGHT_PER_WORKER = 4;
+	private static final AtomicInteger poolCounter = new AtomicInteger();
+
+	private int workers = 1;
+
+	public int getWorkers() {
+		return workers;
+	}
+
+	public void setWorkers(int workers) {
+		this.workers = Math.max(1, workers);
+	}
+
+	@FunctionalInterface
+	protected interface RowWriter<T> {
+		void write(T row) throws IOException;
+	}
+
+	/**
+	 * Evaluates every subject and passes the results to the row writer in the order of the subject list.
+	 *
+	 * Before any worker starts, the whole field tree is walked on the calling thread so that parent fields, which
+	 * initialise their children lazily, are fully set up whatever values the first subjects have.
+	 *
+	 * @param subjects Subjects to evaluate, iterated once and only as far ahead of the writer as the workers need
+	 * @param fields Fields the evaluator computes
+	 * @param evaluator Function computing the row for a subject; it is called concurrently from several threads
+	 * @param rowWriter Consumer of the rows; it is only ever called from the calling thread
+	 * @throws IOException
+	 */
+	protected <T> void evaluateInOrder(Iterable<Subject> subjects, List<Field> fields, Function<Subject, T> evaluator,
+			RowWriter<T> rowWriter) throws IOException {
+		Iterator<Subject> iterator = subjects.iterator();
+		if (workers <= 1) {
+			while (iterator.hasNext())
+				rowWriter.write(evaluator.apply(iterator.next()));
+			return;
+		}
+
+		if (!iterator.hasNext())
+			return;
+		initialise(fields);
+
+		int poolId = poolCounter.incrementAndGet();
+		AtomicInteger threadCounter = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+			Thread thread = new Thread(runnable, "export-" + poolId + "-worker-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		Deque<Future<T>> pending = new ArrayDeque<>();
+		try {
+			while (iterator.hasNext() || !pending.isEmpty()) {
+				while (iterator.hasNext() && pending.size() < workers * SUBJECTS_IN_FLIGHT_PER_WORKER) {
+					Subject subject = iterator.next();
+					pending.add(executor.submit(() -> evaluator.apply(subject)));
+				}
+				rowWriter.write(await(pending.poll()));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	// Getting the children of a parent field initialises it
+	private static void initialise(List<Field> fields) {
+		for (Field field : fields) {
+			if (field instanceof ParentField)
+				initialise(((ParentField) field).getChildFields());
+		}
+	}
+
+	private static <T> T await(Future<T> future) throws IOException {
+		try {
+			return future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for subject evaluation");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			if (cause instanceof Error)
+				throw (Error) cause;
+			throw new RuntimeException(cause);
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package uk.org.tombolo.exporter;
+
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.field.Field;
+
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * An exporter writing a binary format, which is given the output stream rather than the character writer of an
+ * {@link Exporter}.
+ */
+public interface BinaryExporter {
+	/**
+	 * Writes the fields of the subjects. The subjects may be streamed from the database, so they are iterated once
+	 * and not kept around.
+	 */
+	void write(OutputStream outputStream, Iterable<Subject> subjects, List<Field> fields, Boolean timeStamp) throws Exception;
+}
@@ -15,23 +15,21 @@ import java.io.Writer;
 import java.util.*;
 import java.util.stream.Collectors;
 
-public class CSVExporter implements Exporter {
+public class CSVExporter extends AbstractExporter implements Exporter {
 	private Logger log = LoggerFactory.getLogger(CSVExporter.class);
 	private Boolean timeStamp;
 
 	@Override
-	public void write(Writer writer, List<Subject> subjects, List<Field> fields, Boolean timeStamp) throws IOException {
+	public void write(Writer writer, Iterable<Subject> subjects, List<Field> fields, Boolean timeStamp) throws IOException {
 		this.timeStamp = null == timeStamp ? true : timeStamp;
 		List<String> columnNames = getColumnNames(fields);
 
 		CSVPrinter printer = new CSVPrinter(writer, CSVFormat.DEFAULT);
 		printer.printRecord(columnNames);
 
-		for (Subject subject : subjects) {
-			printer.printRecord(
-					tabulateSubjectMap(columnNames,
-							flattenSubject(fields, subject)));
-		}
+		evaluateInOrder(subjects, fields,
+				subject -> tabulateSubjectMap(columnNames, flattenSubject(fields, subject)),
+				printer::printRecord);
 	}
 
 	public List<String> getColumnNames(List<Field> fields) {
@@ -7,5 +7,9 @@ import java.io.Writer;
 import java.util.List;
 
 public interface Exporter {
-	void write(Writer writer, List<Subject> subjects, List<Field> fields, Boolean timeStamp) throws Exception;
+	/**
+	 * Writes the fields of the subjects. The subjects may be streamed from the database, so they are iterated once
+	 * and not kept around.
+	 */
+	void write(Writer writer, Iterable<Subject> subjects, List<Field> fields, Boolean timeStamp) throws Exception;
 }
@@ -1,8 +1,7 @@
 package uk.org.tombolo.exporter;
 
 import com.google.gson.stream.JsonWriter;
-import org.geotools.geojson.geom.GeometryJSON;
-import org.json.simple.JSONObject;
+import com.vividsolutions.jts.geom.Geometry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.DataExportRunner;
@@ -12,31 +11,68 @@ import uk.org.tombolo.field.IncomputableFieldException;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class GeoJsonExporter implements Exporter {
+public class GeoJsonExporter extends AbstractExporter implements Exporter {
 	private Logger log = LoggerFactory.getLogger(GeoJsonExporter.class);
 	private static final int LOGGING_FREQUENCY = 100;
+
+	// System property with the number of decimals of the exported coordinates, negative for full precision
+	public static final String PRECISION_PROPERTY = "geoJsonPrecision";
+	private static final int DEFAULT_PRECISION = 4;
+
 	private Boolean timeStamp;
+	private int precision = Integer.getInteger(PRECISION_PROPERTY, DEFAULT_PRECISION);
+
+	/**
+	 * A subject with its evaluated fields, ready to be written.
+	 */
+	private static class Feature {
+		private final Subject subject;
+		private final List<Map<?, ?>> fieldValues;
+
+		private Feature(Subject subject, List<Map<?, ?>> fieldValues) {
+			this.subject = subject;
+			this.fieldValues = fieldValues;
+		}
+	}
+
+	public int getPrecision() {
+		return precision;
+	}
+
+	public void setPrecision(int precision) {
+		this.precision = precision;
+	}
 
-	public void write(Writer writer, List<Subject> subjects, List<Field> fields, Boolean timeStamp) throws IOException {
+	public void write(Writer writer, Iterable<Subject> subjects, List<Field> fields, Boolean timeStamp) throws IOException {
 		this.timeStamp = null == timeStamp ? true : timeStamp;
 
 		JsonWriter jsonWriter = new JsonWriter(writer);
+		// Field values that are not finite numbers are written as they were by json-simple
+		jsonWriter.setLenient(true);
+		GeoJsonGeometryWriter geometryWriter = new GeoJsonGeometryWriter(precision);
 
 		jsonWriter.beginObject();
 		jsonWriter.name("type").value("FeatureCollection");
 		jsonWriter.name("features").beginArray();
 
-		log.info("Exporting {} subjects", subjects.size());
-		int subjectCounter = 0;
-		for (Subject subject : subjects) {
-			subjectCounter++;
-			writeFeatureForSubject(fields, subject, jsonWriter);
-			if (subjectCounter % LOGGING_FREQUENCY == 0)
-				log.info("Exported {} subjects", subjectCounter);
-		}
-		log.info("Exported {} subjects", subjectCounter);
+		log.info("Exporting subjects");
+		int[] subjectCounter = {0};
+		evaluateInOrder(subjects, fields,
+				subject -> new Feature(subject, getFieldValuesForSubject(fields, subject)),
+				feature -> {
+					writeFeature(feature, jsonWriter, geometryWriter);
+					subjectCounter[0]++;
+					if (subjectCounter[0] % LOGGING_FREQUENCY == 0)
+						log.info("Exported {} subjects", subjectCounter[0]);
+				});
+		log.info("Exported {} subjects", subjectCounter[0]);
 
 		jsonWriter.endArray();
 		jsonWriter.endObject();
@@ -44,38 +80,83 @@ public class GeoJsonExporter implements Exporter {
 		jsonWriter.close();
 	}
 
-	private void writeFeatureForSubject(List<Field> fields, Subject subject, JsonWriter jsonWriter) throws IOException {
+	private void writeFeature(Feature feature, JsonWriter jsonWriter, GeoJsonGeometryWriter geometryWriter) throws IOException {
 		jsonWriter.beginObject();
 
 		jsonWriter.name("type").value("Feature");
-		jsonWriter.name("geometry").jsonValue(getGeoJSONGeometryForSubject(subject));
-		jsonWriter.name("properties").jsonValue(getPropertiesForSubject(fields, subject).toJSONString());
+		jsonWriter.name("geometry");
+		geometryWriter.write(jsonWriter, feature.subject.getShape());
+
+		jsonWriter.name("properties").beginObject();
+		Set<Object> writtenKeys = new HashSet<>();
+		List<Map<?, ?>> fieldValues = feature.fieldValues;
+		writeProperty("label", feature.subject.getLabel(), fieldValues, 0, writtenKeys, jsonWriter);
+		writeProperty("name", feature.subject.getName(), fieldValues, 0, writtenKeys, jsonWriter);
+		for (int i = 0; i < fieldValues.size(); i++) {
+			for (Map.Entry<?, ?> entry : fieldValues.get(i).entrySet())
+				writeProperty(entry.getKey(), entry.getValue(), fieldValues, i + 1, writtenKeys, jsonWriter);
+		}
+		jsonWriter.endObject();
 
 		jsonWriter.endObject();
 	}
 
-	private JSONObject getPropertiesForSubject(List<Field> fields, Subject subject) throws IOException {
-		JSONObject properties = new JSONObject();
+	// Writes a property where its key first appears, with the value of the last field that has the key
+	private void writeProperty(Object key, Object value, List<Map<?, ?>> fieldValues, int nextField,
+			Set<Object> writtenKeys, JsonWriter jsonWriter) throws IOException {
+		if (!writtenKeys.add(key))
+			return;
+		for (int i = fieldValues.size() - 1; i >= nextField; i--) {
+			if (fieldValues.get(i).containsKey(key)) {
+				value = fieldValues.get(i).get(key);
+				break;
+			}
+		}
+		jsonWriter.name(String.valueOf(key));
+		writeValue(value, jsonWriter);
+	}
+
+	// Writes the json-simple values returned by the fields
+	private void writeValue(Object value, JsonWriter jsonWriter) throws IOException {
+		if (value == null) {
+			jsonWriter.nullValue();
+		} else if (value instanceof Map) {
+			jsonWriter.beginObject();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				jsonWriter.name(String.valueOf(entry.getKey()));
+				writeValue(entry.getValue(), jsonWriter);
+			}
+			jsonWriter.endObject();
+		} else if (value instanceof Iterable) {
+			jsonWriter.beginArray();
+			for (Object element : (Iterable<?>) value)
+				writeValue(element, jsonWriter);
+			jsonWriter.endArray();
+		} else if (value instanceof Number) {
+			jsonWriter.value((Number) value);
+		} else if (value instanceof Boolean) {
+			jsonWriter.value((Boolean) value);
+		} else {
+			jsonWriter.value(value.toString());
+		}
+	}
 
-		properties.put("label", subject.getLabel());
-		properties.put("name", subject.getName());
+	// The values of the fields in order, written by the writer thread without merging them
+	private List<Map<?, ?>> getFieldValuesForSubject(List<Field> fields, Subject subject) {
+		List<Map<?, ?>> fieldValues = new ArrayList<>(fields.size());
 
 		fields.forEach(field -> {
 			try {
-				properties.putAll(field.jsonValueForSubject(subject, timeStamp));
+				fieldValues.add(field.jsonValueForSubject(subject, timeStamp));
 			} catch (IncomputableFieldException e) {
 				log.warn(DataExportRunner.YELLOW + "Could not compute Field {} for Subject {}, reason: {}" +
 								DataExportRunner.END, field.getLabel(), subject.getLabel(), e.getMessage());
-				properties.put(field.getLabel(), null);
+				fieldValues.add(Collections.singletonMap(field.getLabel(), null));
 			} catch (IllegalArgumentException e) {
 				throw new IllegalArgumentException(String.format("Could not compute Field %s for Subject %s" +
 						"(%s), reason: %s", field.getLabel(), subject.getLabel(), subject.getId(), e.getMessage()));
 			}
 		});
-		return properties;
-	}
-
-	private String getGeoJSONGeometryForSubject(Subject subject) {
-		return (new GeometryJSON()).toString(subject.getShape());
+		return fieldValues;
 	}
 }
@@ -0,0 +1,95 @@
+package uk.org.tombolo.exporter;
+
+import com.google.gson.stream.JsonWriter;
+import com.vividsolutions.jts.geom.*;
+
+import java.io.IOException;
+
+/**
+ * Writes JTS geometries as GeoJSON geometry objects straight into a {@link JsonWriter}.
+ *
+ * Coordinates are read from the coordinate sequences of the geometries and rounded to a fixed number of decimals,
+ * without rendering the geometry to an intermediate string. A geometry collection is written as a
+ * GeometryCollection and a missing geometry as null.
+ */
+public class GeoJsonGeometryWriter {
+	// Beyond this number of decimals, coordinates are written with their full precision
+	private static final int MAX_DECIMALS = 15;
+
+	private final double scale;
+
+	/**
+	 * @param decimals Number of decimals of the coordinates, negative to keep their full precision
+	 */
+	public GeoJsonGeometryWriter(int decimals) {
+		this.scale = decimals < 0 || decimals > MAX_DECIMALS ? 0d : Math.pow(10, decimals);
+	}
+
+	public void write(JsonWriter jsonWriter, Geometry geometry) throws IOException {
+		if (geometry == null) {
+			jsonWriter.nullValue();
+			return;
+		}
+
+		jsonWriter.beginObject();
+		// GeoJSON has no linear rings outside polygons, so a ring on its own is a closed line string
+		jsonWriter.name("type").value(geometry instanceof LinearRing ? "LineString" : geometry.getGeometryType());
+		if (geometry instanceof GeometryCollection
+				&& !(geometry instanceof MultiPoint || geometry instanceof MultiLineString || geometry instanceof MultiPolygon)) {
+			jsonWriter.name("geometries").beginArray();
+			for (int i = 0; i < geometry.getNumGeometries(); i++)
+				write(jsonWriter, geometry.getGeometryN(i));
+			jsonWriter.endArray();
+		} else {
+			jsonWriter.name("coordinates");
+			writeCoordinates(jsonWriter, geometry);
+		}
+		jsonWriter.endObject();
+	}
+
+	private void writeCoordinates(JsonWriter jsonWriter, Geometry geometry) throws IOException {
+		if (geometry instanceof Point) {
+			writePosition(jsonWriter, ((Point) geometry).getCoordinateSequence(), 0);
+		} else if (geometry instanceof LineString) {
+			writePositions(jsonWriter, ((LineString) geometry).getCoordinateSequence());
+		} else if (geometry instanceof Polygon) {
+			Polygon polygon = (Polygon) geometry;
+			jsonWriter.beginArray();
+			writePositions(jsonWriter, polygon.getExteriorRing().getCoordinateSequence());
+			for (int i = 0; i < polygon.getNumInteriorRing(); i++)
+				writePositions(jsonWriter, polygon.getInteriorRingN(i).getCoordinateSequence());
+			jsonWriter.endArray();
+		} else {
+			// Multi geometries
+			jsonWriter.beginArray();
+			for (int i = 0; i < geometry.getNumGeometries(); i++)
+				writeCoordinates(jsonWriter, geometry.getGeometryN(i));
+			jsonWriter.endArray();
+		}
+	}
+
+	private void writePositions(JsonWriter jsonWriter, CoordinateSequence coordinates) throws IOException {
+		jsonWriter.beginArray();
+		for (int i = 0; i < coordinates.size(); i++)
+			writePosition(jsonWriter, coordinates, i);
+		jsonWriter.endArray();
+	}
+
+	private void writePosition(JsonWriter jsonWriter, CoordinateSequence coordinates, int index) throws IOException {
+		jsonWriter.beginArray();
+		if (coordinates.size() > 0) {
+			jsonWriter.value(round(coordinates.getOrdinate(index, CoordinateSequence.X)));
+			jsonWriter.value(round(coordinates.getOrdinate(index, CoordinateSequence.Y)));
+			if (coordinates.getDimension() > 2) {
+				double z = coordinates.getOrdinate(index, CoordinateSequence.Z);
+				if (!Double.isNaN(z))
+					jsonWriter.value(round(z));
+			}
+		}
+		jsonWriter.endArray();
+	}
+
+	private double round(double ordinate) {
+		return scale == 0d ? ordinate : Math.round(ordinate * scale) / scale;
+	}
+}
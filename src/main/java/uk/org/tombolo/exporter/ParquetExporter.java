@@ -0,0 +1,338 @@
+package uk.org.tombolo.exporter;
+
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.io.WKBWriter;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.RecordConsumer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+import org.json.simple.JSONObject;
+import org.json.simple.JSONValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.org.tombolo.DataExportRunner;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.field.Field;
+import uk.org.tombolo.field.IncomputableFieldException;
+import uk.org.tombolo.field.NumericField;
+import uk.org.tombolo.field.SingleValueField;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Exports the subjects to an Apache Parquet file, one row per subject.
+ *
+ * The label and name of the subjects are string columns and their shape is a WKB geometry column, described by
+ * GeoParquet metadata, followed by a column per field. The columns of {@link NumericField}s are double columns and
+ * those of other single value fields are string columns, which keep values such as codes with leading zeros as they
+ * are. Fields that cannot return a single value are written as JSON strings.
+ *
+ * Rows are written as they are evaluated, a row group at a time, so the export only holds a row group in memory
+ * and readers can select the columns they need, leaving out the geometries.
+ */
+public class ParquetExporter extends AbstractExporter implements BinaryExporter {
+	private Logger log = LoggerFactory.getLogger(ParquetExporter.class);
+	private static final int LOGGING_FREQUENCY = 1000;
+
+	// System property with the compression codec, e.g. SNAPPY, GZIP or UNCOMPRESSED
+	public static final String COMPRESSION_PROPERTY = "parquetCompression";
+	// System property with the size in megabytes of the row groups
+	public static final String ROW_GROUP_SIZE_PROPERTY = "parquetRowGroupSize";
+	private static final String DEFAULT_COMPRESSION = "SNAPPY";
+	private static final int DEFAULT_ROW_GROUP_SIZE = 128;
+
+	private static final String SCHEMA_NAME = "subject";
+	private static final List<String> SUBJECT_COLUMNS = Arrays.asList("label", "name", "geometry");
+	private static final int GEOMETRY_COLUMN = 2;
+
+	// WKBWriter is not thread safe and the rows are evaluated by several workers
+	private static final ThreadLocal<WKBWriter> wkbWriter = ThreadLocal.withInitial(WKBWriter::new);
+
+	private Boolean timeStamp;
+	private CompressionCodecName compression = CompressionCodecName.valueOf(
+			System.getProperty(COMPRESSION_PROPERTY, DEFAULT_COMPRESSION).toUpperCase());
+	private int rowGroupSize = Integer.getInteger(ROW_GROUP_SIZE_PROPERTY, DEFAULT_ROW_GROUP_SIZE) * 1024 * 1024;
+
+	public CompressionCodecName getCompression() {
+		return compression;
+	}
+
+	public void setCompression(CompressionCodecName compression) {
+		this.compression = compression;
+	}
+
+	public int getRowGroupSize() {
+		return rowGroupSize;
+	}
+
+	/**
+	 * @param rowGroupSize Size in bytes of the row groups
+	 */
+	public void setRowGroupSize(int rowGroupSize) {
+		this.rowGroupSize = rowGroupSize;
+	}
+
+	@Override
+	public void write(OutputStream outputStream, Iterable<Subject> subjects, List<Field> fields, Boolean timeStamp) throws IOException {
+		this.timeStamp = null == timeStamp ? true : timeStamp;
+		ParquetRowWriter rowWriter = new ParquetRowWriter(outputStream, fields);
+
+		log.info("Exporting subjects");
+		evaluateInOrder(subjects, fields, subject -> evaluateRow(fields, subject), rowWriter::write);
+		rowWriter.close();
+	}
+
+	public List<String> getColumnNames(List<Field> fields) {
+		List<String> columnNames = new ArrayList<>(SUBJECT_COLUMNS);
+
+		fields.stream().map(Field::getLabel).forEach(columnNames::add);
+
+		return columnNames;
+	}
+
+	// The label, name and WKB geometry of the subject followed by the string values of the fields
+	private Object[] evaluateRow(List<Field> fields, Subject subject) {
+		Object[] row = new Object[SUBJECT_COLUMNS.size() + fields.size()];
+		row[0] = subject.getLabel();
+		row[1] = subject.getName();
+		Geometry shape = subject.getShape();
+		row[GEOMETRY_COLUMN] = shape == null ? null : wkbWriter.get().write(shape);
+		for (int i = 0; i < fields.size(); i++)
+			row[SUBJECT_COLUMNS.size() + i] = getFieldValue(subject, fields.get(i));
+		return row;
+	}
+
+	private String getFieldValue(Subject subject, Field field) {
+		try {
+			if (field instanceof SingleValueField)
+				return ((SingleValueField) field).valueForSubject(subject, timeStamp);
+			JSONObject value = field.jsonValueForSubject(subject, timeStamp);
+			return value.containsKey(field.getLabel())
+					? JSONValue.toJSONString(value.get(field.getLabel())) : value.toJSONString();
+		} catch (IncomputableFieldException e) {
+			log.warn(DataExportRunner.YELLOW + "Could not compute Field {} for Subject {}, reason: {}" +
+							DataExportRunner.END, field.getLabel(), subject.getLabel(), e.getMessage());
+			return null;
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(String.format("Could not compute Field %s for Subject %s" +
+					"(%s), reason: %s", field.getLabel(), subject.getLabel(), subject.getId(), e.getMessage()));
+		}
+	}
+
+	/**
+	 * Converts the evaluated rows to the column types of the fields and writes them to the Parquet file.
+	 */
+	private class ParquetRowWriter {
+		private final List<String> columnNames;
+		private final boolean[] numeric;
+		private final ParquetWriter<Object[]> parquetWriter;
+		private long rowCount = 0;
+
+		private ParquetRowWriter(OutputStream outputStream, List<Field> fields) throws IOException {
+			columnNames = getColumnNames(fields);
+			numeric = new boolean[columnNames.size()];
+			List<Type> columns = new ArrayList<>();
+			for (int column = 0; column < columnNames.size(); column++) {
+				String columnName = columnNames.get(column);
+				if (column == GEOMETRY_COLUMN) {
+					columns.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.BINARY, columnName));
+				} else if (column >= SUBJECT_COLUMNS.size()
+						&& fields.get(column - SUBJECT_COLUMNS.size()) instanceof NumericField) {
+					numeric[column] = true;
+					columns.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.DOUBLE, columnName));
+				} else {
+					columns.add(new PrimitiveType(Type.Repetition.OPTIONAL, PrimitiveTypeName.BINARY, columnName,
+							OriginalType.UTF8));
+				}
+			}
+			MessageType schema = new MessageType(SCHEMA_NAME, columns);
+			log.info("Writing Parquet file with schema {}", schema);
+
+			parquetWriter = new Builder(new StreamOutputFile(outputStream), schema, getMetadata())
+					.withCompressionCodec(compression)
+					.withRowGroupSize(rowGroupSize)
+					.build();
+		}
+
+		private void write(Object[] row) throws IOException {
+			for (int column = 0; column < row.length; column++) {
+				Object value = row[column];
+				if (value == null)
+					continue;
+				if (column == GEOMETRY_COLUMN) {
+					row[column] = Binary.fromConstantByteArray((byte[]) value);
+				} else if (numeric[column]) {
+					row[column] = parseDouble(columnNames.get(column), (String) value);
+				} else {
+					row[column] = Binary.fromString((String) value);
+				}
+			}
+			parquetWriter.write(row);
+			rowCount++;
+			if (rowCount % LOGGING_FREQUENCY == 0)
+				log.info("Exported {} subjects", rowCount);
+		}
+
+		private void close() throws IOException {
+			parquetWriter.close();
+			log.info("Exported {} subjects", rowCount);
+		}
+	}
+
+	private static Double parseDouble(String columnName, String value) {
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalStateException(String.format("Numeric field %s returned %s, which is not a number",
+					columnName, value));
+		}
+	}
+
+	// GeoParquet metadata, so that geographic libraries read the geometry column as geometries
+	private static Map<String, String> getMetadata() {
+		JSONObject geometryColumn = new JSONObject();
+		geometryColumn.put("encoding", "WKB");
+		geometryColumn.put("geometry_types", new ArrayList<>());
+		JSONObject columns = new JSONObject();
+		columns.put(SUBJECT_COLUMNS.get(GEOMETRY_COLUMN), geometryColumn);
+		JSONObject geo = new JSONObject();
+		geo.put("version", "1.0.0");
+		geo.put("primary_column", SUBJECT_COLUMNS.get(GEOMETRY_COLUMN));
+		geo.put("columns", columns);
+		return Collections.singletonMap("geo", geo.toJSONString());
+	}
+
+	/**
+	 * Writes rows of typed values, null values being left out.
+	 */
+	private static class RowWriteSupport extends WriteSupport<Object[]> {
+		private final MessageType schema;
+		private final Map<String, String> metadata;
+		private RecordConsumer recordConsumer;
+
+		private RowWriteSupport(MessageType schema, Map<String, String> metadata) {
+			this.schema = schema;
+			this.metadata = metadata;
+		}
+
+		@Override
+		public WriteContext init(Configuration configuration) {
+			return new WriteContext(schema, metadata);
+		}
+
+		@Override
+		public void prepareForWrite(RecordConsumer recordConsumer) {
+			this.recordConsumer = recordConsumer;
+		}
+
+		@Override
+		public void write(Object[] row) {
+			recordConsumer.startMessage();
+			for (int column = 0; column < row.length; column++) {
+				Object value = row[column];
+				if (value == null)
+					continue;
+				String columnName = schema.getFieldName(column);
+				recordConsumer.startField(columnName, column);
+				if (value instanceof Double)
+					recordConsumer.addDouble((Double) value);
+				else
+					recordConsumer.addBinary((Binary) value);
+				recordConsumer.endField(columnName, column);
+			}
+			recordConsumer.endMessage();
+		}
+	}
+
+	private static class Builder extends ParquetWriter.Builder<Object[], Builder> {
+		private final MessageType schema;
+		private final Map<String, String> metadata;
+
+		private Builder(OutputFile outputFile, MessageType schema, Map<String, String> metadata) {
+			super(outputFile);
+			this.schema = schema;
+			this.metadata = metadata;
+		}
+
+		@Override
+		protected Builder self() {
+			return this;
+		}
+
+		@Override
+		protected WriteSupport<Object[]> getWriteSupport(Configuration configuration) {
+			return new RowWriteSupport(schema, metadata);
+		}
+	}
+
+	/**
+	 * Parquet file written sequentially to an output stream, which is left open.
+	 */
+	private static class StreamOutputFile implements OutputFile {
+		private final OutputStream outputStream;
+
+		private StreamOutputFile(OutputStream outputStream) {
+			this.outputStream = outputStream;
+		}
+
+		@Override
+		public PositionOutputStream create(long blockSizeHint) {
+			return new PositionOutputStream() {
+				private long position = 0;
+
+				@Override
+				public long getPos() {
+					return position;
+				}
+
+				@Override
+				public void write(int b) throws IOException {
+					outputStream.write(b);
+					position++;
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					outputStream.write(b, off, len);
+					position += len;
+				}
+
+				@Override
+				public void flush() throws IOException {
+					outputStream.flush();
+				}
+
+				@Override
+				public void close() throws IOException {
+					outputStream.flush();
+				}
+			};
+		}
+
+		@Override
+		public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+			return create(blockSizeHint);
+		}
+
+		@Override
+		public boolean supportsBlockSize() {
+			return false;
+		}
+
+		@Override
+		public long defaultBlockSize() {
+			return 0;
+		}
+	}
+}
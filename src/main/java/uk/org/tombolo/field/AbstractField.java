@@ -1,11 +1,14 @@
 package uk.org.tombolo.field;
 
 import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.execution.EvaluationContext;
 import uk.org.tombolo.execution.FieldCache;
+import uk.org.tombolo.execution.SpatialJoinService;
+import uk.org.tombolo.execution.ValueStore;
 
 public abstract class AbstractField implements Field {
     protected String label;
-    protected FieldCache fieldCache;
+    protected EvaluationContext context;
 
     public AbstractField(String label){
         this.label = label;
@@ -17,19 +20,50 @@ public abstract class AbstractField implements Field {
     }
 
     @Override
-    public void setFieldCache(FieldCache fieldCache){
-        this.fieldCache = fieldCache;
+    public void setEvaluationContext(EvaluationContext context){
+        this.context = context;
+        if (getFieldCache() != null)
+            getFieldCache().register(this);
     }
 
     protected String getCachedValue(Subject subject){
-        if (fieldCache != null)
-            return fieldCache.getChachedValue(this, subject);
+        if (getFieldCache() != null)
+            return getFieldCache().getChachedValue(this, subject);
+        return null;
+    }
+
+    protected Double getCachedDouble(Subject subject){
+        if (getFieldCache() != null)
+            return getFieldCache().getCachedDouble(this, subject);
+        return null;
+    }
+
+    protected void setCachedDouble(Subject subject, double value){
+        if (getFieldCache() != null)
+            getFieldCache().putCachedDouble(this, subject, value);
+    }
+
+    protected ValueStore getValueStore(){
+        if (context != null)
+            return context.getValueStore();
+        return null;
+    }
+
+    protected SpatialJoinService getSpatialJoinService(){
+        if (context != null)
+            return context.getSpatialJoinService();
         return null;
     }
 
     protected void setCachedValue(Subject subject, String value){
-        if (fieldCache != null)
-            fieldCache.putCachedValue(this, subject, value);
+        if (getFieldCache() != null)
+            getFieldCache().putCachedValue(this, subject, value);
+    }
+
+    private FieldCache getFieldCache(){
+        if (context != null)
+            return context.getFieldCache();
+        return null;
     }
 
 }
@@ -2,7 +2,7 @@ package uk.org.tombolo.field;
 
 import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Subject;
-import uk.org.tombolo.execution.FieldCache;
+import uk.org.tombolo.execution.EvaluationContext;
 
 /**
  * Field.java
@@ -27,5 +27,5 @@ import uk.org.tombolo.execution.FieldCache;
 public interface Field {
     JSONObject jsonValueForSubject(Subject subject, Boolean timeStamp) throws IncomputableFieldException;
     String getLabel();
-    void setFieldCache(FieldCache fieldCache);
+    void setEvaluationContext(EvaluationContext context);
 }
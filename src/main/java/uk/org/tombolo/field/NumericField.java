@@ -0,0 +1,11 @@
+package uk.org.tombolo.field;
+
+/**
+ * NumericField.java
+ * A SingleValueField whose value is always a number, as written by Double.toString.
+ *
+ * Exporters with typed columns write the values of these fields as numbers and those
+ * of any other field as strings.
+ */
+public interface NumericField extends SingleValueField {
+}
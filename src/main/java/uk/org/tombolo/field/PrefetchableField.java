@@ -0,0 +1,16 @@
+package uk.org.tombolo.field;
+
+import uk.org.tombolo.recipe.AttributeMatcher;
+
+import java.util.List;
+
+/**
+ * PrefetchableField.java
+ * Fields that read the values of a known set of attributes.
+ *
+ * Before exporting, the values of these attributes are loaded for all exported subjects at once
+ * and made available to the fields through the {@link uk.org.tombolo.execution.ValueStore}.
+ */
+public interface PrefetchableField extends Field {
+    List<AttributeMatcher> getAttributeMatchers();
+}
@@ -13,6 +13,7 @@ import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.SubjectType;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
 import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.execution.SpatialJoinService;
 import uk.org.tombolo.field.*;
 import uk.org.tombolo.recipe.FieldRecipe;
 import uk.org.tombolo.recipe.SubjectRecipe;
@@ -29,7 +30,7 @@ import java.util.Map;
  *
  * So far, `sum` and `mean` are implemented.
  */
-public class GeographicAggregationField extends AbstractField implements SingleValueField, ParentField {
+public class GeographicAggregationField extends AbstractField implements NumericField, ParentField {
     private static Logger log = LoggerFactory.getLogger(GeographicAggregationField.class);
 
     public enum AggregationFunction {sum, mean, max, min}
@@ -62,7 +63,7 @@ public class GeographicAggregationField extends AbstractField implements SingleV
         try {
             this.aggregator = aggregators.get(this.function);
             this.singleValueField = (SingleValueField) field.toField();
-            singleValueField.setFieldCache(fieldCache);
+            singleValueField.setEvaluationContext(context);
         } catch (NullPointerException e) {
             throw new IllegalArgumentException("Function not supported. Supporting {sum, mean, max, min}");
         } catch (ClassNotFoundException e) {
@@ -117,16 +118,19 @@ public class GeographicAggregationField extends AbstractField implements SingleV
 
     private Double getDoubleValueForSubject(Subject subject) throws IncomputableFieldException {
         if (null == singleValueField) { initialize(); }
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
         Double value = aggregateSubjects(aggregator, getAggregationSubjects(subject));
         if (value != null)
-            setCachedValue(subject, value.toString());
+            setCachedDouble(subject, value);
         return value;
     }
 
     private List<Subject> getAggregationSubjects(Subject subject) throws IncomputableFieldException {
+        SpatialJoinService spatialJoinService = getSpatialJoinService();
+        if (spatialJoinService != null)
+            return spatialJoinService.subjectsWithinSubject(aggregatorSubjectType, subject);
         return SubjectUtils.subjectsWithinSubject(aggregatorSubjectType, subject);
     }
 
@@ -5,6 +5,7 @@ import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.SubjectType;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
 import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.execution.SpatialJoinService;
 import uk.org.tombolo.field.*;
 import uk.org.tombolo.recipe.FieldRecipe;
 import uk.org.tombolo.recipe.SubjectRecipe;
@@ -37,7 +38,7 @@ public class MapToContainingSubjectField extends AbstractField implements Parent
 
         try {
             this.singleValueField = (SingleValueField) field.toField();
-            singleValueField.setFieldCache(fieldCache);
+            singleValueField.setEvaluationContext(context);
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException("Field class not found.");
         } catch (ClassCastException e){
@@ -66,7 +67,10 @@ public class MapToContainingSubjectField extends AbstractField implements Parent
             throw new IncomputableFieldException(String.format("Cannot compute field: No containing subject type for " +
                     "subject %s", subject.getName()));
         }
-        List<Subject> subjectsContainingSubject = SubjectUtils.subjectsContainingSubject(containerSubjectType, subject);
+        SpatialJoinService spatialJoinService = getSpatialJoinService();
+        List<Subject> subjectsContainingSubject = (spatialJoinService != null)
+                ? spatialJoinService.subjectsContainingSubject(containerSubjectType, subject)
+                : SubjectUtils.subjectsContainingSubject(containerSubjectType, subject);
         if (subjectsContainingSubject.size() != 1) {
             throw new IncomputableFieldException(String.format(
                     "Subject %s is contained by %d subjects of type %s (%s), but should be contained by 1 only",
@@ -5,6 +5,7 @@ import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.SubjectType;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
 import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.execution.SpatialJoinService;
 import uk.org.tombolo.field.*;
 import uk.org.tombolo.recipe.FieldRecipe;
 import uk.org.tombolo.recipe.SubjectRecipe;
@@ -43,7 +44,7 @@ public class MapToNearestSubjectField extends AbstractField implements ParentFie
         if (null == maxRadius) maxRadius = DEFAULT_MAX_RADIUS;
         try {
             this.singleValueField = (SingleValueField) field.toField();
-            singleValueField.setFieldCache(fieldCache);
+            singleValueField.setEvaluationContext(context);
         } catch (ClassNotFoundException e) {
             throw new IllegalArgumentException("Field class not found.");
         } catch (ClassCastException e) {
@@ -60,7 +61,10 @@ public class MapToNearestSubjectField extends AbstractField implements ParentFie
     }
 
     private Subject getSubjectProximalToSubject(Subject outputSubject) throws IncomputableFieldException {
-        Subject nearestSubject = SubjectUtils.subjectNearestSubject(nearestSubjectTypeObject, outputSubject, maxRadius);
+        SpatialJoinService spatialJoinService = getSpatialJoinService();
+        Subject nearestSubject = (spatialJoinService != null)
+                ? spatialJoinService.subjectNearestSubject(nearestSubjectTypeObject, outputSubject, maxRadius)
+                : SubjectUtils.subjectNearestSubject(nearestSubjectTypeObject, outputSubject, maxRadius);
         if (nearestSubject == null) {
             throw new IncomputableFieldException(String.format(
                     "Subject %s has no nearby subjects of type %s, but should have 1",
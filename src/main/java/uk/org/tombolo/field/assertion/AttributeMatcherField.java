@@ -49,7 +49,7 @@ public class AttributeMatcherField extends AbstractField implements SingleValueF
 
         try {
             this.singleValueField = (SingleValueField) field.toField();
-            singleValueField.setFieldCache(fieldCache);
+            singleValueField.setEvaluationContext(context);
         } catch (ClassCastException e){
             throw new IllegalArgumentException("Field must be SingleValueField");
         } catch (ClassNotFoundException e) {
@@ -74,7 +74,7 @@ public class BasicModellingField extends AbstractField implements ModellingField
             field = RecipeDeserializer
                     .fromJsonFile(fieldFile, FieldRecipe.class)
                     .toField();
-            field.setFieldCache(fieldCache);
+            field.setEvaluationContext(context);
         } catch (ClassNotFoundException e) {
             throw new Error("Field class not found", e);
         } catch (IOException e) {
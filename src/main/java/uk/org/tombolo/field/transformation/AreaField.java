@@ -2,13 +2,12 @@ package uk.org.tombolo.field.transformation;
 
 import com.vividsolutions.jts.geom.Geometry;
 import org.geotools.geometry.jts.JTS;
-import org.geotools.referencing.CRS;
 import org.json.simple.JSONObject;
 import org.opengis.referencing.FactoryException;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import org.opengis.referencing.operation.TransformException;
 import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.utils.CoordinateTransformUtils;
 import uk.org.tombolo.field.AbstractField;
 import uk.org.tombolo.field.IncomputableFieldException;
 import uk.org.tombolo.field.SingleValueField;
@@ -34,9 +33,7 @@ public class AreaField extends AbstractField implements SingleValueField {
 
             if (Subject.SRID != targetCRSCode) {
                 try {
-                    CoordinateReferenceSystem sourceCRS = CRS.decode("EPSG:" + Subject.SRID);
-                    CoordinateReferenceSystem targetCRS = CRS.decode("EPSG:" + targetCRSCode);
-                    MathTransform transform = CRS.findMathTransform(sourceCRS, targetCRS);
+                    MathTransform transform = CoordinateTransformUtils.getTransform("EPSG:" + Subject.SRID, "EPSG:" + targetCRSCode);
                     geometry = JTS.transform(geometry, transform);
                 } catch (FactoryException e) {
                     throw new IncomputableFieldException(String.format("No math transform can be created for source Coordinate " +
@@ -19,7 +19,7 @@ import java.util.function.BiFunction;
  * the operation on the two field values.
  */
 
-public class ArithmeticField extends AbstractField implements SingleValueField, ParentField {
+public class ArithmeticField extends AbstractField implements NumericField, ParentField {
 
     public enum Operation {div, mul, add, sub}
     private final FieldRecipe field1;
@@ -49,9 +49,9 @@ public class ArithmeticField extends AbstractField implements SingleValueField,
         try {
             this.operator = operators.get(this.operation);
             this.singleValueField1 = (SingleValueField) field1.toField();
-            singleValueField1.setFieldCache(fieldCache);
+            singleValueField1.setEvaluationContext(context);
             this.singleValueField2 = (SingleValueField) field2.toField();
-            singleValueField2.setFieldCache(fieldCache);
+            singleValueField2.setEvaluationContext(context);
         } catch (NullPointerException e) {
             throw new IllegalArgumentException("Function not supported. Supporting {div, mul, add, sub}");
         } catch (ClassNotFoundException e) {
@@ -74,9 +74,9 @@ public class ArithmeticField extends AbstractField implements SingleValueField,
     }
 
     private Double calculateValueForSubject(Subject subject) throws IncomputableFieldException {
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
 
         if (null == singleValueField1) { initialize(); }
         Double retVal;
@@ -95,7 +95,7 @@ public class ArithmeticField extends AbstractField implements SingleValueField,
             throw new IncomputableFieldException(String.format("Arithmetic operation %s returned Infinity (possible division by zero?)", operation));
         }
 
-        setCachedValue(subject, retVal.toString());
+        setCachedDouble(subject, retVal);
         return retVal;
     }
 
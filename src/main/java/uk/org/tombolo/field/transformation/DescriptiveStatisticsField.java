@@ -23,7 +23,7 @@ import java.util.List;
 /**
  * Calculates a descriptive statistic over the values of a list of input fields
  */
-public class DescriptiveStatisticsField extends AbstractField implements SingleValueField, ParentField{
+public class DescriptiveStatisticsField extends AbstractField implements NumericField, ParentField{
     private static Logger log = LoggerFactory.getLogger(DescriptiveStatisticsField.class);
 
     public enum Statistic {
@@ -72,7 +72,7 @@ public class DescriptiveStatisticsField extends AbstractField implements SingleV
                 Field field = fieldRecipe.toField();
                 if (!(field instanceof SingleValueField))
                     throw new IllegalArgumentException("Parameters for DescriptiveStatisticsField must be of type SingleValueField");
-                field.setFieldCache(fieldCache);
+                field.setEvaluationContext(context);
                 singleValueFields.add(field);
             } catch (ClassNotFoundException e) {
                 throw new IllegalArgumentException("Field class not found.");
@@ -94,9 +94,9 @@ public class DescriptiveStatisticsField extends AbstractField implements SingleV
 
     private Double getDoubleValueForSubject(Subject subject) throws IncomputableFieldException {
         // Check for cached value
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
 
         // Initialise
         if (null == singleValueFields)
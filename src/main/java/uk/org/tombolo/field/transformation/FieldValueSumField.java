@@ -13,7 +13,7 @@ import java.util.List;
 /**
  * Takes a list of fields as input and returns a field consisting of the sum of the other fields
  */
-public class FieldValueSumField extends AbstractField implements ParentField, SingleValueField {
+public class FieldValueSumField extends AbstractField implements ParentField, NumericField {
     private static Logger log = LoggerFactory.getLogger(FieldValueSumField.class);
 
     String name;
@@ -31,7 +31,7 @@ public class FieldValueSumField extends AbstractField implements ParentField, Si
         for (FieldRecipe recipe : fields) {
             try {
                 Field field = recipe.toField();
-                field.setFieldCache(fieldCache);
+                field.setEvaluationContext(context);
                 sumFields.add(field);
             } catch (ClassNotFoundException e) {
                 throw new Error("Field not valid");
@@ -53,9 +53,9 @@ public class FieldValueSumField extends AbstractField implements ParentField, Si
     }
 
     private Double sumFields(Subject subject) throws IncomputableFieldException {
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
         if (sumFields == null)
             initialize();
         Double sum = 0d;
@@ -71,7 +71,7 @@ public class FieldValueSumField extends AbstractField implements ParentField, Si
                         "converted to numeric type.", subject.getName(), subject.getId(), value);
             }
         }
-        setCachedValue(subject, sum.toString());
+        setCachedDouble(subject, sum);
         return sum;
     }
 
@@ -10,16 +10,21 @@ import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.core.TimedValueId;
 import uk.org.tombolo.core.utils.AttributeUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.execution.ValueStore;
 import uk.org.tombolo.field.AbstractField;
 import uk.org.tombolo.field.IncomputableFieldException;
-import uk.org.tombolo.field.SingleValueField;
+import uk.org.tombolo.field.NumericField;
+import uk.org.tombolo.field.PrefetchableField;
 import uk.org.tombolo.recipe.AttributeMatcher;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -27,10 +32,10 @@ import java.util.stream.Collectors;
  * For a subject, returns the sum of its TimedValues for a list of dividend
  * attributes divided by a divisor attribute.
  */
-public class FractionOfTotalField extends AbstractField implements SingleValueField {
+public class FractionOfTotalField extends AbstractField implements NumericField, PrefetchableField {
     private final List<AttributeMatcher> dividendAttributes;
     private final AttributeMatcher divisorAttribute;
-    private Map<AttributeMatcher, Attribute> cachedAttributes;
+    private volatile Map<AttributeMatcher, Attribute> cachedAttributes;
 
     private Logger log = LoggerFactory.getLogger(FractionOfTotalField.class);
 
@@ -40,6 +45,13 @@ public class FractionOfTotalField extends AbstractField implements SingleValueFi
         this.divisorAttribute = divisorAttribute;
     }
 
+    @Override
+    public List<AttributeMatcher> getAttributeMatchers() {
+        List<AttributeMatcher> attributeMatchers = new ArrayList<>(dividendAttributes);
+        attributeMatchers.add(divisorAttribute);
+        return attributeMatchers;
+    }
+
     @Override
     public String valueForSubject(Subject subject, Boolean timeStamp) throws IncomputableFieldException {
         return getValue(subject).value.toString();
@@ -81,7 +93,7 @@ public class FractionOfTotalField extends AbstractField implements SingleValueFi
 
     private List<TimedValue> getLatestTimedValuesForSubjectAndAttributes(Subject subject, List<AttributeMatcher> attributeMatchers) throws IncomputableFieldException {
         List<Attribute> attributes = getAttributes(attributeMatchers);
-        List<TimedValue> timedValues = TimedValueUtils.getLatestBySubjectAndAttributes(subject, attributes);
+        List<TimedValue> timedValues = getLatestTimedValues(subject, attributes);
 
         // We check for and throw on missing timedValues with some info on what they are
         if (timedValues.size() != attributeMatchers.size()) {
@@ -94,6 +106,20 @@ public class FractionOfTotalField extends AbstractField implements SingleValueFi
         return timedValues;
     }
 
+    private List<TimedValue> getLatestTimedValues(Subject subject, List<Attribute> attributes) {
+        ValueStore valueStore = getValueStore();
+        if (valueStore == null || !attributes.stream().allMatch(attribute -> valueStore.covers(subject, attribute)))
+            return TimedValueUtils.getLatestBySubjectAndAttributes(subject, attributes);
+
+        // Attributes listed more than once count once, as with the database query
+        Map<Integer, Attribute> attributesById = new LinkedHashMap<>();
+        attributes.forEach(attribute -> attributesById.putIfAbsent(attribute.getId(), attribute));
+        return attributesById.values().stream()
+                .map(attribute -> valueStore.getLatestTimedValue(subject, attribute))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private List<Attribute> getAttributes(List<AttributeMatcher> attributeMatchers) {
         return attributeMatchers.stream().map(this::getAttribute).collect(Collectors.toList());
     }
@@ -110,18 +136,31 @@ public class FractionOfTotalField extends AbstractField implements SingleValueFi
     }
 
     protected Attribute getAttribute(AttributeMatcher attributeMatcher) {
-        if (null == cachedAttributes) { cachedAttributes = new HashMap<>(); } // Gson will null this field whatever we do
-        if (cachedAttributes.containsKey(attributeMatcher)) return cachedAttributes.get(attributeMatcher);
+        Map<AttributeMatcher, Attribute> attributes = getCachedAttributes();
+        Attribute attr = attributes.get(attributeMatcher);
+        if (null != attr) return attr;
 
-        Attribute attr = AttributeUtils.getByProviderAndLabel(attributeMatcher.provider, attributeMatcher.label);
+        attr = AttributeUtils.getByProviderAndLabel(attributeMatcher.provider, attributeMatcher.label);
         if (null == attr) {
             throw new IllegalArgumentException(String.format("No attribute found for provider %s and label %s", attributeMatcher.provider, attributeMatcher.label));
         } else {
-            cachedAttributes.put(attributeMatcher, attr);
+            attributes.putIfAbsent(attributeMatcher, attr);
             return attr;
         }
     }
 
+    // Gson will null this field whatever we do, and export workers can get here at the same time
+    private Map<AttributeMatcher, Attribute> getCachedAttributes() {
+        Map<AttributeMatcher, Attribute> attributes = cachedAttributes;
+        if (null == attributes) {
+            synchronized (this) {
+                if (null == cachedAttributes) cachedAttributes = new ConcurrentHashMap<>();
+                attributes = cachedAttributes;
+            }
+        }
+        return attributes;
+    }
+
     private static final class ValueWithTimestamp {
         public final Double value;
         public final LocalDateTime timestamp;
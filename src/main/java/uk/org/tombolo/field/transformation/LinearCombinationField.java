@@ -17,7 +17,7 @@ import java.util.List;
  *
  * See further: https://en.wikipedia.org/wiki/Linear_combination
  */
-public class LinearCombinationField extends AbstractField implements SingleValueField, ParentField {
+public class LinearCombinationField extends AbstractField implements NumericField, ParentField {
     Logger log = LoggerFactory.getLogger(LinearCombinationField.class);
     private final List<FieldRecipe> fields;
     private final List<Float> scalars;
@@ -41,7 +41,7 @@ public class LinearCombinationField extends AbstractField implements SingleValue
                 Field field = fieldRecipe.toField();
                 if (!(field instanceof SingleValueField))
                     throw new IllegalArgumentException("Parameters for LinearCombinationField must be of type SingleValueField");
-                field.setFieldCache(fieldCache);
+                field.setEvaluationContext(context);
                 singleValueFields.add(field);
             }
         } catch (ClassNotFoundException e) {
@@ -62,9 +62,9 @@ public class LinearCombinationField extends AbstractField implements SingleValue
     }
 
     private Double calculateValueForSubject(Subject subject) throws IncomputableFieldException {
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
 
         if (null == singleValueFields || singleValueFields.isEmpty()) { initialize(); }
 
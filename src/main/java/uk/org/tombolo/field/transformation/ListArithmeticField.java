@@ -17,7 +17,7 @@ import java.util.function.Function;
  * Takes as input an operation, and a list of fields. It returns for a given Subject the value resulting from applying
  * the operation on the list of fields' values.
  */
-public class ListArithmeticField extends AbstractField implements SingleValueField, ParentField {
+public class ListArithmeticField extends AbstractField implements NumericField, ParentField {
     private static Logger log = LoggerFactory.getLogger(ListArithmeticField.class);
 
     // Syntactic sugar to accept both add and sum
@@ -48,7 +48,7 @@ public class ListArithmeticField extends AbstractField implements SingleValueFie
 
             for (FieldRecipe fieldRecipe: fields) {
                 SingleValueField field = (SingleValueField) fieldRecipe.toField();
-                field.setFieldCache(fieldCache);
+                field.setEvaluationContext(context);
                 singleValueFields.add(field);
             }
         } catch (ClassNotFoundException e) {
@@ -71,9 +71,9 @@ public class ListArithmeticField extends AbstractField implements SingleValueFie
     }
 
     private Double calculateValueForSubject(Subject subject) throws IncomputableFieldException {
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
 
         if (null == singleValueFields || singleValueFields.isEmpty()) { initialize(); }
 
@@ -97,7 +97,7 @@ public class ListArithmeticField extends AbstractField implements SingleValueFie
             throw new IncomputableFieldException(String.format("Arithmetic operation %s returned Infinity (possible division by zero?)", operation));
         }
 
-        setCachedValue(subject, retVal.toString());
+        setCachedDouble(subject, retVal);
         return retVal;
     }
 
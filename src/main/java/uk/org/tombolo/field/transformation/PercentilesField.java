@@ -20,7 +20,7 @@ import java.util.stream.IntStream;
  * Field that returns for a subject the percentile in which its value falls.
  * Percentiles can be calculated either over the output Subject or any other specified set of Subjects.
  */
-public class PercentilesField extends AbstractField implements ParentField, SingleValueField {
+public class PercentilesField extends AbstractField implements ParentField, NumericField {
     private static Logger log = LoggerFactory.getLogger(PercentilesField.class);
 
     // The field over which to calculate the percentiles
@@ -61,9 +61,9 @@ public class PercentilesField extends AbstractField implements ParentField, Sing
     }
 
     private Double calculateValueForSubject(Subject subject) throws IncomputableFieldException {
-        String cachedValue = getCachedValue(subject);
+        Double cachedValue = getCachedDouble(subject);
         if (cachedValue != null)
-            return Double.parseDouble(cachedValue);
+            return cachedValue;
 
         if (singleValueField == null)
             initialize();
@@ -76,7 +76,7 @@ public class PercentilesField extends AbstractField implements ParentField, Sing
                 }else{
                     value =  new Double(i+1);
                 }
-                setCachedValue(subject, value.toString());
+                setCachedDouble(subject, value);
                 return value;
             }
         }
@@ -88,7 +88,7 @@ public class PercentilesField extends AbstractField implements ParentField, Sing
         if (singleValueField == null) {
             try {
                 singleValueField = (SingleValueField) field.toField();
-                singleValueField.setFieldCache(fieldCache);
+                singleValueField.setEvaluationContext(context);
             } catch (ClassNotFoundException e) {
                 throw new IllegalArgumentException("Field class not found.", e);
             } catch (ClassCastException e){
@@ -3,18 +3,29 @@ package uk.org.tombolo.field.value;
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.FixedValue;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.core.utils.AttributeUtils;
+import uk.org.tombolo.core.utils.FixedValueUtils;
+import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.execution.ValueStore;
 import uk.org.tombolo.field.AbstractField;
 import uk.org.tombolo.field.IncomputableFieldException;
+import uk.org.tombolo.field.PrefetchableField;
 import uk.org.tombolo.recipe.AttributeMatcher;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * BasicValueField.java
  *
  * Basic field that contains a label and attribute.
  * The attribute value and metadata for a given subject are specified in the children classes.
+ * Values are read from the prefetched ValueStore when it holds the subject, and from the database otherwise.
  */
-public abstract class BasicValueField extends AbstractField {
+public abstract class BasicValueField extends AbstractField implements PrefetchableField {
     private AttributeMatcher attribute;
 
     public BasicValueField(String label, AttributeMatcher attribute) {
@@ -31,6 +42,32 @@ public abstract class BasicValueField extends AbstractField {
         return attr;
     }
 
+    @Override
+    public List<AttributeMatcher> getAttributeMatchers() {
+        return Collections.singletonList(attribute);
+    }
+
+    protected List<TimedValue> getTimedValues(Subject subject, Attribute attribute) {
+        ValueStore valueStore = getValueStore();
+        if (valueStore != null && valueStore.covers(subject, attribute))
+            return valueStore.getTimedValues(subject, attribute);
+        return TimedValueUtils.getBySubjectAndAttribute(subject, attribute);
+    }
+
+    protected TimedValue getLatestTimedValue(Subject subject, Attribute attribute) {
+        ValueStore valueStore = getValueStore();
+        if (valueStore != null && valueStore.covers(subject, attribute))
+            return valueStore.getLatestTimedValue(subject, attribute);
+        return TimedValueUtils.getLatestBySubjectAndAttribute(subject, attribute);
+    }
+
+    protected FixedValue getFixedValue(Subject subject, Attribute attribute) {
+        ValueStore valueStore = getValueStore();
+        if (valueStore != null && valueStore.covers(subject, attribute))
+            return valueStore.getFixedValue(subject, attribute);
+        return FixedValueUtils.getBySubjectAndAttribute(subject, attribute);
+    }
+
     protected JSONObject withinMetadata(JSONArray contents) {
         JSONObject obj = new JSONObject();
         obj.put(label, contents);
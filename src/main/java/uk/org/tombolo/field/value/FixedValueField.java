@@ -3,7 +3,6 @@ package uk.org.tombolo.field.value;
 import org.json.simple.JSONObject;
 import uk.org.tombolo.core.FixedValue;
 import uk.org.tombolo.core.Subject;
-import uk.org.tombolo.core.utils.FixedValueUtils;
 import uk.org.tombolo.field.IncomputableFieldException;
 import uk.org.tombolo.field.SingleValueField;
 import uk.org.tombolo.recipe.AttributeMatcher;
@@ -31,7 +30,7 @@ public class FixedValueField extends BasicValueField implements SingleValueField
     }
 
     private FixedValue getFixedValue(Subject subject) throws IncomputableFieldException {
-        FixedValue fixedValue = FixedValueUtils.getBySubjectAndAttribute(subject, getAttribute());
+        FixedValue fixedValue = getFixedValue(subject, getAttribute());
         if (fixedValue == null) {
             throw new IncomputableFieldException(String.format("No FixedValue found for Attribute %s and Subject %s", getAttribute().getLabel(), subject.getName()));
         }
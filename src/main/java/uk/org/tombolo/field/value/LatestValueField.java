@@ -4,9 +4,8 @@ import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.core.TimedValueId;
-import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.field.IncomputableFieldException;
-import uk.org.tombolo.field.SingleValueField;
+import uk.org.tombolo.field.NumericField;
 import uk.org.tombolo.recipe.AttributeMatcher;
 
 /**
@@ -15,7 +14,7 @@ import uk.org.tombolo.recipe.AttributeMatcher;
  *
  * The metadata is regarding the attribute.
  */
-public class LatestValueField extends BasicValueField implements SingleValueField {
+public class LatestValueField extends BasicValueField implements NumericField {
     public LatestValueField(String label, AttributeMatcher attribute) {
         super(label, attribute);
     }
@@ -39,7 +38,7 @@ public class LatestValueField extends BasicValueField implements SingleValueFiel
     }
 
     private TimedValue getTimedValue(Subject subject) throws IncomputableFieldException {
-        TimedValue timedValue = TimedValueUtils.getLatestBySubjectAndAttribute(subject, getAttribute());
+        TimedValue timedValue = getLatestTimedValue(subject, getAttribute());
         if (timedValue == null) {
             throw new IncomputableFieldException(String.format("No TimedValue found for Attribute %s and Subject %s", getAttribute().getLabel(), subject.getName()));
         }
@@ -4,13 +4,13 @@ import com.vividsolutions.jts.geom.Point;
 import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.field.AbstractField;
-import uk.org.tombolo.field.SingleValueField;
+import uk.org.tombolo.field.NumericField;
 
 /**
  * SubjectLatitudeField.java
  * Returns the latitude of the centroid of the subject.
  */
-public class SubjectLatitudeField extends AbstractField implements SingleValueField {
+public class SubjectLatitudeField extends AbstractField implements NumericField {
 
     public SubjectLatitudeField(String label) {
         super(label);
@@ -4,13 +4,13 @@ import com.vividsolutions.jts.geom.Point;
 import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.field.AbstractField;
-import uk.org.tombolo.field.SingleValueField;
+import uk.org.tombolo.field.NumericField;
 
 /**
  * SubjectLongitudeField.java
  * Returns the longitude of the centroid of the subject.
  */
-public class SubjectLongitudeField extends AbstractField implements SingleValueField {
+public class SubjectLongitudeField extends AbstractField implements NumericField {
 
     public SubjectLongitudeField(String label) {
         super(label);
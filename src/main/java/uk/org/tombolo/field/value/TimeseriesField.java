@@ -5,7 +5,6 @@ import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.core.TimedValueId;
-import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.field.IncomputableFieldException;
 import uk.org.tombolo.recipe.AttributeMatcher;
 
@@ -26,7 +25,7 @@ public class TimeseriesField extends BasicValueField {
 
     @Override
     public JSONObject jsonValueForSubject(Subject subject, Boolean timeStamp) throws IncomputableFieldException {
-        List<TimedValue> timedValues = TimedValueUtils.getBySubjectAndAttribute(subject, getAttribute());
+        List<TimedValue> timedValues = getTimedValues(subject, getAttribute());
         if (timedValues.isEmpty()) {
             throw new IncomputableFieldException(String.format("No TimedValue found for attribute %s", getAttribute().getLabel()));
         }
@@ -6,9 +6,8 @@ import org.json.simple.JSONObject;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.core.TimedValueId;
-import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.field.IncomputableFieldException;
-import uk.org.tombolo.field.SingleValueField;
+import uk.org.tombolo.field.NumericField;
 import uk.org.tombolo.recipe.AttributeMatcher;
 
 import java.util.List;
@@ -19,7 +18,7 @@ import java.util.List;
  *
  * The metadata is regarding the attribute.
  */
-public class TimeseriesMeanValueField extends BasicValueField implements SingleValueField {
+public class TimeseriesMeanValueField extends BasicValueField implements NumericField {
     private double mean = 0.0;
 
     public TimeseriesMeanValueField(String label, AttributeMatcher attribute) {
@@ -33,7 +32,7 @@ public class TimeseriesMeanValueField extends BasicValueField implements SingleV
 
     @Override
     public JSONObject jsonValueForSubject(Subject subject, Boolean timeStamp) throws IncomputableFieldException {
-        List<TimedValue> timedValue = TimedValueUtils.getBySubjectAndAttribute(subject, getAttribute());
+        List<TimedValue> timedValue = getTimedValues(subject, getAttribute());
         if (timedValue.isEmpty()) {
             throw new IncomputableFieldException(String.format("No TimedValue found for attribute %s", getAttribute().getLabel()));
         }
@@ -12,6 +12,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractImporter implements Importer {
 	// Flushing threshold for TimedValue/FixedValue/Subject save buffers
@@ -25,9 +26,9 @@ public abstract class AbstractImporter implements Importer {
 	protected final static String DEFAULT_GEOGRAPHY = "all";
 	protected final static String DEFAULT_TEMPORAL = "all";
 
-	private int subjectCount = 0;		// Count of subjects imported during the lifetime of this class instance
-	private int fixedValueCount = 0;	// Count of fixed values imported during the lifetime of this class instance
-	private int timedValueCount = 0;	// Count of timed values imported during the lifetime of this class instance
+	private final AtomicInteger subjectCount = new AtomicInteger();		// Count of subjects imported during the lifetime of this class instance
+	private final AtomicInteger fixedValueCount = new AtomicInteger();	// Count of fixed values imported during the lifetime of this class instance
+	private final AtomicInteger timedValueCount = new AtomicInteger();	// Count of timed values imported during the lifetime of this class instance
 
 	private static final Logger log = LoggerFactory.getLogger(AbstractImporter.class);
 	protected Properties properties = new Properties();
@@ -112,6 +113,16 @@ public abstract class AbstractImporter implements Importer {
 		}
 	}
 
+	@Override
+	public List<Download> getDownloads(@Nonnull String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+		return Collections.emptyList();
+	}
+
+	@Override
+	public boolean declaresDependencies() {
+		return false;
+	}
+
 	@Override
 	public List<SubjectType> getSubjectTypes(String datasourceId) {
 		return Collections.emptyList();
@@ -190,38 +201,35 @@ public abstract class AbstractImporter implements Importer {
 
 	public void saveAndClearSubjectBuffer(List<Subject> subjectBuffer){
 		log.info("Preparing to write a batch of {} subjects ... ", subjectBuffer.size());
-		SubjectUtils.save(subjectBuffer);
-		subjectCount += subjectBuffer.size();
+		SubjectUtils.bulkSave(subjectBuffer);
+		log.info("Total subjects written: {}", subjectCount.addAndGet(subjectBuffer.size()));
 		subjectBuffer.clear();
-		log.info("Total subjects written: {}", subjectCount);
 	}
 
 	public void saveAndClearTimedValueBuffer(List<TimedValue> timedValueBuffer){
 		log.info("Preparing to write a batch of {} timed values ...", timedValueBuffer.size());
-		timedValueCount += timedValueBuffer.size();
-		TimedValueUtils.save(timedValueBuffer);
+		TimedValueUtils.bulkSave(timedValueBuffer);
+		log.info("Total timed values written: {}", timedValueCount.addAndGet(timedValueBuffer.size()));
 		timedValueBuffer.clear();
-		log.info("Total timed values written: {}", timedValueCount);
 	}
 
 	public void saveAndClearFixedValueBuffer(List<FixedValue> fixedValueBuffer){
 		log.info("Preparing to write a batch of {} fixed values ...", fixedValueBuffer.size());
-		fixedValueCount += fixedValueBuffer.size();
 		FixedValueUtils.save(fixedValueBuffer);
+		log.info("Total fixed values written: {}", fixedValueCount.addAndGet(fixedValueBuffer.size()));
 		fixedValueBuffer.clear();
-		log.info("Total fixed values written: {}", fixedValueCount);
 	}
 
 	public int getSubjectCount() {
-		return subjectCount;
+		return subjectCount.get();
 	}
 
 	public int getFixedValueCount() {
-		return fixedValueCount;
+		return fixedValueCount.get();
 	}
 
 	public int getTimedValueCount() {
-		return timedValueCount;
+		return timedValueCount.get();
 	}
 
 	@Override
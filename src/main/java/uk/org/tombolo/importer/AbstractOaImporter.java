@@ -29,6 +29,12 @@ public abstract class AbstractOaImporter extends AbstractImporter {
         super.importDatasource(datasourceId, geographyScope, temporalScope, datasourceLocation, force);
     }
 
+    @Override
+    public boolean declaresDependencies() {
+        // The subject types of the importer are the output areas of getOaDatasourceIds
+        return true;
+    }
+
     /**
      * @return List of the datasourceIds needed to import the subjects defined in OaImporter so its subject types can
      * be used by the current importer.
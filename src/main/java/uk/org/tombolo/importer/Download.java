@@ -0,0 +1,53 @@
+package uk.org.tombolo.importer;
+
+import java.net.URL;
+import java.util.Objects;
+
+/**
+ * A remote file fetched by an importer, along with the prefix and suffix under which it is cached by
+ * {@link DownloadUtils}.
+ */
+public class Download {
+	private final URL url;
+	private final String prefix;
+	private final String suffix;
+
+	public Download(URL url, String prefix, String suffix) {
+		this.url = url;
+		this.prefix = prefix;
+		this.suffix = suffix;
+	}
+
+	public URL getUrl() {
+		return url;
+	}
+
+	public String getPrefix() {
+		return prefix;
+	}
+
+	public String getSuffix() {
+		return suffix;
+	}
+
+	// URLs are compared as strings, since URL.equals resolves host names
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		Download download = (Download) o;
+		return url.toString().equals(download.url.toString())
+				&& Objects.equals(prefix, download.prefix)
+				&& Objects.equals(suffix, download.suffix);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(url.toString(), prefix, suffix);
+	}
+
+	@Override
+	public String toString() {
+		return url.toString();
+	}
+}
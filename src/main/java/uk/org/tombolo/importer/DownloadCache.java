@@ -0,0 +1,316 @@
+package uk.org.tombolo.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manifest of the files downloaded into a data cache directory.
+ *
+ * For every downloaded file the manifest records its size and SHA-256 checksum, when it was last used and
+ * the HTTP validators it was served with, so that {@link DownloadUtils} can detect corrupted files, revalidate
+ * stale ones with a conditional request and evict the least recently used files once the cache exceeds its
+ * byte budget. Files that are not in the manifest, such as files copied into the cache by hand, are used as
+ * they are and never evicted. Neither are files used by the current process, as they may have been prefetched
+ * for a later import or be read by a concurrent one, so a single run may leave the cache above its budget.
+ *
+ * There is one instance per cache directory, shared by the {@link DownloadUtils} using it.
+ */
+public class DownloadCache {
+	private static final Logger log = LoggerFactory.getLogger(DownloadCache.class);
+
+	// System property with the size in megabytes above which least recently used downloads are evicted
+	public static final String BUDGET_PROPERTY = "downloadCacheBudget";
+	// System property with the age in hours after which downloads are revalidated against their source
+	public static final String MAX_AGE_PROPERTY = "downloadCacheMaxAge";
+
+	static final String MANIFEST_FILE = "manifest.tsv";
+	private static final String CHECKSUM_ALGORITHM = "SHA-256";
+
+	private static final Map<File, DownloadCache> caches = new ConcurrentHashMap<>();
+
+	/**
+	 * A downloaded file, as recorded in the manifest.
+	 */
+	public static class Entry {
+		private final String path;
+		private final long size;
+		private final String checksum;
+		private final String etag;
+		private final String lastModified;
+		private long lastAccess;
+		private long lastValidation;
+
+		Entry(String path, long size, String checksum, String etag, String lastModified,
+			  long lastAccess, long lastValidation) {
+			this.path = path;
+			this.size = size;
+			this.checksum = checksum;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.lastAccess = lastAccess;
+			this.lastValidation = lastValidation;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public String getChecksum() {
+			return checksum;
+		}
+
+		public String getEtag() {
+			return etag;
+		}
+
+		public String getLastModified() {
+			return lastModified;
+		}
+
+		public long getLastAccess() {
+			return lastAccess;
+		}
+
+		public long getLastValidation() {
+			return lastValidation;
+		}
+	}
+
+	private final File directory;
+	private final File manifestFile;
+	private final long budget;
+	private final long maxAge;
+	// Entries by path relative to the cache directory, least recently used first
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	// Files whose checksum was verified since they were loaded from the manifest
+	private final Set<String> verified = new HashSet<>();
+	// Files downloaded or used by the current process, which are never evicted
+	private final Set<String> used = new HashSet<>();
+
+	/**
+	 * Returns the cache of a directory, loading its manifest the first time.
+	 */
+	public static DownloadCache forDirectory(File directory) {
+		return caches.computeIfAbsent(directory.getAbsoluteFile(), dir -> new DownloadCache(dir,
+				Long.getLong(BUDGET_PROPERTY, 0L) * 1024L * 1024L,
+				Long.getLong(MAX_AGE_PROPERTY, -1L) * 60L * 60L * 1000L));
+	}
+
+	/**
+	 * @param budget Size in bytes above which downloads are evicted, 0 or less for no limit
+	 * @param maxAge Age in milliseconds after which downloads are revalidated, negative to never revalidate
+	 */
+	DownloadCache(File directory, long budget, long maxAge) {
+		this.directory = directory;
+		this.manifestFile = new File(directory, MANIFEST_FILE);
+		this.budget = budget;
+		this.maxAge = maxAge;
+		load();
+	}
+
+	public synchronized Entry get(File file) {
+		return entries.get(relativePath(file));
+	}
+
+	/**
+	 * Returns whether a downloaded file should be checked against its source before being used.
+	 */
+	public synchronized boolean isStale(Entry entry) {
+		return maxAge >= 0 && System.currentTimeMillis() - entry.lastValidation >= maxAge;
+	}
+
+	/**
+	 * Returns whether a downloaded file is intact, its size and checksum matching the manifest.
+	 * The checksum of a file is computed once per process.
+	 */
+	public boolean verify(File file) throws IOException {
+		String path = relativePath(file);
+		Entry entry;
+		synchronized (this) {
+			entry = entries.get(path);
+			if (entry == null || verified.contains(path))
+				return entry == null || file.length() == entry.size;
+		}
+		if (file.length() != entry.size || !checksum(file).equals(entry.checksum))
+			return false;
+		synchronized (this) {
+			verified.add(path);
+		}
+		return true;
+	}
+
+	/**
+	 * Records a file that has just been downloaded.
+	 */
+	public synchronized void put(File file, String checksum, String etag, String lastModified) {
+		String path = relativePath(file);
+		long now = System.currentTimeMillis();
+		entries.put(path, new Entry(path, file.length(), checksum, etag, lastModified, now, now));
+		verified.add(path);
+		used.add(path);
+		save();
+	}
+
+	/**
+	 * Records that a file has been used.
+	 */
+	public synchronized void touch(File file) {
+		String path = relativePath(file);
+		Entry entry = entries.get(path);
+		used.add(path);
+		if (entry != null) {
+			entry.lastAccess = System.currentTimeMillis();
+			save();
+		}
+	}
+
+	/**
+	 * Records that the source of a file has not changed since it was downloaded.
+	 */
+	public synchronized void validated(File file) {
+		String path = relativePath(file);
+		Entry entry = entries.get(path);
+		used.add(path);
+		if (entry != null) {
+			entry.lastAccess = entry.lastValidation = System.currentTimeMillis();
+			save();
+		}
+	}
+
+	/**
+	 * Deletes a file and forgets it.
+	 */
+	public synchronized void remove(File file) {
+		String path = relativePath(file);
+		file.delete();
+		verified.remove(path);
+		if (entries.remove(path) != null)
+			save();
+	}
+
+	/**
+	 * Deletes the least recently used downloads of earlier runs until the cache fits its budget.
+	 */
+	public synchronized void evict() {
+		if (budget <= 0)
+			return;
+		long total = entries.values().stream().mapToLong(Entry::getSize).sum();
+		Iterator<Entry> iterator = entries.values().iterator();
+		boolean changed = false;
+		while (total > budget && iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if (used.contains(entry.path))
+				continue;
+			log.info("Evicting {} ({} bytes) from the download cache", entry.path, entry.size);
+			new File(directory, entry.path).delete();
+			verified.remove(entry.path);
+			iterator.remove();
+			total -= entry.size;
+			changed = true;
+		}
+		if (changed)
+			save();
+	}
+
+	/**
+	 * Creates a digest for computing the checksum of a file as it is downloaded.
+	 */
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static String toHex(byte[] digest) {
+		StringBuilder hex = new StringBuilder(digest.length * 2);
+		for (byte b : digest)
+			hex.append(String.format("%02x", b));
+		return hex.toString();
+	}
+
+	private static String checksum(File file) throws IOException {
+		MessageDigest digest = newDigest();
+		try (InputStream in = new DigestInputStream(new BufferedInputStream(new FileInputStream(file)), digest)) {
+			byte[] buffer = new byte[64 * 1024];
+			while (in.read(buffer) != -1);
+		}
+		return toHex(digest.digest());
+	}
+
+	private String relativePath(File file) {
+		return directory.toPath().relativize(file.getAbsoluteFile().toPath()).toString();
+	}
+
+	// One line per entry: path, size, checksum, last access, last validation, ETag and Last-Modified, tab separated
+	private void load() {
+		if (!manifestFile.exists())
+			return;
+		List<Entry> loaded = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t", -1);
+				if (fields.length != 7) {
+					log.warn("Ignoring malformed line of download cache manifest {}: {}", manifestFile, line);
+					continue;
+				}
+				// Files deleted by hand are forgotten
+				if (!new File(directory, fields[0]).exists())
+					continue;
+				loaded.add(new Entry(fields[0], Long.parseLong(fields[1]), fields[2],
+						emptyToNull(fields[5]), emptyToNull(fields[6]),
+						Long.parseLong(fields[3]), Long.parseLong(fields[4])));
+			}
+		} catch (IOException | NumberFormatException e) {
+			log.warn("Could not read download cache manifest {}, downloads will be recorded again: {}",
+					manifestFile, e.getMessage());
+			return;
+		}
+		loaded.sort(Comparator.comparingLong(Entry::getLastAccess));
+		for (Entry entry : loaded)
+			entries.put(entry.path, entry);
+	}
+
+	// The manifest is written next to its final location and renamed, so that it is never left half written
+	private void save() {
+		try {
+			Files.createDirectories(directory.toPath());
+			File partFile = File.createTempFile(MANIFEST_FILE, ".part", directory);
+			try {
+				try (Writer writer = Files.newBufferedWriter(partFile.toPath(), StandardCharsets.UTF_8)) {
+					for (Entry entry : entries.values()) {
+						writer.write(String.join("\t", entry.path, Long.toString(entry.size), entry.checksum,
+								Long.toString(entry.lastAccess), Long.toString(entry.lastValidation),
+								nullToEmpty(entry.etag), nullToEmpty(entry.lastModified)));
+						writer.write('\n');
+					}
+				}
+				Files.move(partFile.toPath(), manifestFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				partFile.delete();
+			}
+		} catch (IOException e) {
+			log.warn("Could not write download cache manifest {}: {}", manifestFile, e.getMessage());
+		}
+	}
+
+	private static String emptyToNull(String value) {
+		return value.isEmpty() ? null : value;
+	}
+
+	private static String nullToEmpty(String value) {
+		return value == null ? "" : value;
+	}
+}
@@ -0,0 +1,120 @@
+package uk.org.tombolo.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads remote files into the cache of a {@link DownloadUtils}, several at a time.
+ *
+ * It is used to prefetch the files of all the datasources of a recipe before they are imported, so that the
+ * imports find them in the cache instead of downloading them one at a time. Failed downloads are retried with
+ * an exponential backoff, except for files that do not exist. Files that still cannot be downloaded are left to
+ * the importers, which report the error when they fetch them.
+ */
+public class DownloadManager {
+	private static final Logger log = LoggerFactory.getLogger(DownloadManager.class);
+
+	// System property with the number of concurrent downloads, 0 to disable prefetching
+	public static final String WORKERS_PROPERTY = "downloadWorkers";
+	// System property with the number of times a download is tried
+	public static final String ATTEMPTS_PROPERTY = "downloadAttempts";
+	// System property with the delay in milliseconds before the first retry, doubled at each retry
+	public static final String BACKOFF_PROPERTY = "downloadBackoff";
+	private static final int DEFAULT_WORKERS = 4;
+	private static final int DEFAULT_ATTEMPTS = 3;
+	private static final long DEFAULT_BACKOFF = 1000L;
+
+	private final DownloadUtils downloadUtils;
+	private final int workers;
+	private final int attempts;
+	private final long backoff;
+
+	public DownloadManager(DownloadUtils downloadUtils) {
+		this(downloadUtils,
+				Integer.getInteger(WORKERS_PROPERTY, DEFAULT_WORKERS),
+				Integer.getInteger(ATTEMPTS_PROPERTY, DEFAULT_ATTEMPTS),
+				Long.getLong(BACKOFF_PROPERTY, DEFAULT_BACKOFF));
+	}
+
+	public DownloadManager(DownloadUtils downloadUtils, int workers, int attempts, long backoff) {
+		this.downloadUtils = downloadUtils;
+		this.workers = workers;
+		this.attempts = Math.max(attempts, 1);
+		this.backoff = backoff;
+	}
+
+	/**
+	 * Downloads the files that are not in the cache yet and waits for all of them.
+	 *
+	 * @param downloads Files to download, duplicates are downloaded once
+	 * @return The number of files that could not be downloaded
+	 */
+	public int prefetch(Collection<Download> downloads) throws InterruptedException {
+		Set<Download> distinct = new LinkedHashSet<>(downloads);
+		if (workers <= 0 || distinct.isEmpty())
+			return 0;
+
+		log.info("Prefetching {} files with {} concurrent downloads", distinct.size(), workers);
+		ExecutorService pool = newPool(Math.min(workers, distinct.size()));
+		int failures = 0;
+		try {
+			List<Future<File>> futures = new ArrayList<>();
+			for (Download download : distinct)
+				futures.add(pool.submit(() -> fetch(download)));
+
+			Iterator<Download> iterator = distinct.iterator();
+			for (Future<File> future : futures) {
+				Download download = iterator.next();
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					failures++;
+					log.warn("Could not prefetch {}, it will be fetched during the import: {}",
+							download, e.getCause().getMessage());
+				}
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return failures;
+	}
+
+	/**
+	 * Downloads a file into the cache, unless it is already there, retrying failed downloads.
+	 */
+	public File fetch(Download download) throws IOException, InterruptedException {
+		long delay = backoff;
+		for (int attempt = 1; ; attempt++) {
+			try {
+				return downloadUtils.downloadToCache(download.getUrl(), download.getPrefix(), download.getSuffix());
+			} catch (FileNotFoundException e) {
+				throw e;
+			} catch (IOException e) {
+				if (attempt >= attempts)
+					throw e;
+				log.info("Download of {} failed ({}), retrying in {} ms", download, e.getMessage(), delay);
+				Thread.sleep(delay);
+				delay *= 2;
+			}
+		}
+	}
+
+	private static ExecutorService newPool(int threads) {
+		AtomicInteger threadCounter = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "download-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
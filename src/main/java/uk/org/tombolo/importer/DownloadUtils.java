@@ -1,7 +1,6 @@
 package uk.org.tombolo.importer;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.input.TeeInputStream;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
@@ -12,6 +11,10 @@ import java.io.*;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -26,51 +29,145 @@ public class DownloadUtils {
 
 	private String tomboloDataCacheRootDirectory = DEFAULT_DATA_CACHE_ROOT;	// Configurable root to where to store cached data
 
+	private final DownloadCache cache;
+
 	public DownloadUtils(String dataCacheRootDirectory){
 		tomboloDataCacheRootDirectory = dataCacheRootDirectory;
+		cache = DownloadCache.forDirectory(getCacheDirectory());
+	}
+
+	DownloadUtils(String dataCacheRootDirectory, DownloadCache cache){
+		tomboloDataCacheRootDirectory = dataCacheRootDirectory;
+		this.cache = cache;
 	}
 
+	/**
+	 * Returns the local copy of a remote file, downloading it into the cache if needed.
+	 */
 	public File fetchFile(URL url, String prefix, String suffix) throws IOException{
-		createCacheDir(prefix);
 		File localDatasourceFile = urlToLocalFile(url, prefix, suffix);
 		log.info("Fetching local file: {}", localDatasourceFile.getCanonicalPath());
-		if (!localDatasourceFile.exists()){
-			// Local datafile does not exist so we should download it
-			log.info("Local file not found: {} \nDownloading external resource: {}",
-					localDatasourceFile.getCanonicalPath(), url.toString());
-			FileUtils.copyURLToFile(url, localDatasourceFile);
-		}
-		return localDatasourceFile;
+		return downloadToCache(url, prefix, suffix);
 	}
 
+	/**
+	 * Returns a stream over the local copy of a remote file, downloading it into the cache if needed.
+	 * The file is downloaded completely before the stream is returned.
+	 */
 	public InputStream fetchInputStream(URL url, String prefix, String suffix) throws IOException {
+		return new FileInputStream(fetchFile(url, prefix, suffix));
+	}
+
+	/**
+	 * Downloads a remote file into the local cache, unless it is already there, and returns the local file.
+	 *
+	 * The file is downloaded next to its final location and renamed once complete, so that a failed or concurrent
+	 * download never leaves a partial file in the cache. A remote file that does not exist is reported with a
+	 * {@link FileNotFoundException}.
+	 *
+	 * Downloaded files are recorded in the {@link DownloadCache} of the cache directory. A file whose size or
+	 * checksum no longer matches is downloaded again, a file older than the maximum age of the cache is revalidated
+	 * with a conditional request, and the least recently used files of earlier runs are evicted once the cache
+	 * exceeds its budget.
+	 */
+	public File downloadToCache(URL url, String prefix, String suffix) throws IOException {
 		createCacheDir(prefix);
 		File localDatasourceFile = urlToLocalFile(url, prefix, suffix);
+		DownloadCache.Entry entry = cache.get(localDatasourceFile);
+		if (localDatasourceFile.exists()) {
+			// Files that were not downloaded by the cache are used as they are
+			if (entry == null)
+				return localDatasourceFile;
+			if (!cache.verify(localDatasourceFile)) {
+				log.warn("Cached file {} is corrupted, downloading it again", localDatasourceFile.getCanonicalPath());
+				cache.remove(localDatasourceFile);
+				entry = null;
+			} else if (!cache.isStale(entry)) {
+				cache.touch(localDatasourceFile);
+				return localDatasourceFile;
+			} else {
+				try {
+					if (!download(url, suffix, localDatasourceFile, entry)) {
+						log.info("Cached file {} is up to date with {}", localDatasourceFile.getCanonicalPath(), url);
+						cache.validated(localDatasourceFile);
+					}
+				} catch (FileNotFoundException e) {
+					throw e;
+				} catch (IOException e) {
+					log.warn("Could not revalidate {}, using the cached file: {}", url, e.getMessage());
+					cache.touch(localDatasourceFile);
+				}
+				return localDatasourceFile;
+			}
+		} else if (entry != null) {
+			// The file was deleted from the cache, so a not modified response would leave nothing to return
+			cache.remove(localDatasourceFile);
+			entry = null;
+		}
 
+		log.info("Downloading external resource: {}", url.toString());
+		download(url, suffix, localDatasourceFile, entry);
+		cache.evict();
+		return localDatasourceFile;
+	}
 
-		log.info("Fetching local file: {}", localDatasourceFile.getCanonicalPath());
-		if (!localDatasourceFile.exists()){
-			log.info("Local file not found: {} \nDownloading external resource: {}",
-												localDatasourceFile.getCanonicalPath(), url.toString());
-
-			URLConnection urlConnection = url.openConnection();
-			urlConnection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.11 " +
-					"(KHTML, like Gecko) Chrome/23.0.1271.95 Safari/537.11");
-			if (suffix.equals(".json")) { urlConnection.setRequestProperty("Accept", "application/json"); }
-			urlConnection.connect();
-
-			if (urlConnection instanceof HttpURLConnection) {
-				HttpURLConnection httpURLConnection = (HttpURLConnection) urlConnection;
-				int responseCode = httpURLConnection.getResponseCode();
-				if (responseCode != HttpURLConnection.HTTP_OK) {
-					throw new IOException(String.format("Cannot get the stream from the specified URL: %s\n%d: %s",
-						url.getPath(), responseCode, httpURLConnection.getResponseMessage()));
-				}
+	/**
+	 * Downloads a remote file to its place in the cache and records it.
+	 *
+	 * @param entry Cache entry of the current version of the file, to request the file only if it has changed
+	 * @return False if the file has not changed since the cached version was downloaded
+	 */
+	private boolean download(URL url, String suffix, File localDatasourceFile, DownloadCache.Entry entry) throws IOException {
+		URLConnection urlConnection = openConnection(url, suffix, entry);
+		if (urlConnection instanceof HttpURLConnection
+				&& ((HttpURLConnection) urlConnection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+			((HttpURLConnection) urlConnection).disconnect();
+			return false;
+		}
+
+		long expectedLength = urlConnection.getContentLengthLong();
+		MessageDigest digest = DownloadCache.newDigest();
+		File partFile = File.createTempFile(localDatasourceFile.getName(), ".part", localDatasourceFile.getParentFile());
+		try {
+			long length;
+			try (InputStream remote = new DigestInputStream(urlConnection.getInputStream(), digest)) {
+				length = Files.copy(remote, partFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			if (expectedLength >= 0 && length != expectedLength)
+				throw new IOException(String.format("Truncated download of %s: received %d of %d bytes",
+						url, length, expectedLength));
+			Files.move(partFile.toPath(), localDatasourceFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			partFile.delete();
+		}
+		cache.put(localDatasourceFile, DownloadCache.toHex(digest.digest()),
+				urlConnection.getHeaderField("ETag"), urlConnection.getHeaderField("Last-Modified"));
+		return true;
+	}
+
+	private URLConnection openConnection(URL url, String suffix, DownloadCache.Entry entry) throws IOException {
+		URLConnection urlConnection = url.openConnection();
+		urlConnection.setRequestProperty("User-Agent", "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.11 " +
+				"(KHTML, like Gecko) Chrome/23.0.1271.95 Safari/537.11");
+		if (suffix.equals(".json")) { urlConnection.setRequestProperty("Accept", "application/json"); }
+		if (entry != null && entry.getEtag() != null) { urlConnection.setRequestProperty("If-None-Match", entry.getEtag()); }
+		if (entry != null && entry.getLastModified() != null) { urlConnection.setRequestProperty("If-Modified-Since", entry.getLastModified()); }
+		urlConnection.connect();
+
+		if (urlConnection instanceof HttpURLConnection) {
+			HttpURLConnection httpURLConnection = (HttpURLConnection) urlConnection;
+			int responseCode = httpURLConnection.getResponseCode();
+			if (responseCode == HttpURLConnection.HTTP_NOT_FOUND || responseCode == HttpURLConnection.HTTP_GONE) {
+				throw new FileNotFoundException(String.format("Cannot get the stream from the specified URL: %s\n%d: %s",
+					url.getPath(), responseCode, httpURLConnection.getResponseMessage()));
+			}
+			if (responseCode != HttpURLConnection.HTTP_OK
+					&& !(entry != null && responseCode == HttpURLConnection.HTTP_NOT_MODIFIED)) {
+				throw new IOException(String.format("Cannot get the stream from the specified URL: %s\n%d: %s",
+					url.getPath(), responseCode, httpURLConnection.getResponseMessage()));
 			}
-			return new TeeInputStream(urlConnection.getInputStream(), new FileOutputStream(localDatasourceFile));
-		} else {
-			return new FileInputStream(localDatasourceFile);
 		}
+		return urlConnection;
 	}
 
 	public static String paramsToString(Map<String,String> params){
@@ -86,7 +183,7 @@ public class DownloadUtils {
 		return (JSONObject) parser.parse(new InputStreamReader(fetchInputStream(url, prefix, ".json")));
 	}
 
-	private File urlToLocalFile (URL url, String prefix, String suffix){
+	File urlToLocalFile (URL url, String prefix, String suffix){
 		String urlKey = UUID.nameUUIDFromBytes(url.toString().getBytes()).toString();
 		return new File(
 				tomboloDataCacheRootDirectory
@@ -99,4 +196,8 @@ public class DownloadUtils {
 	private void createCacheDir(String prefix) throws IOException {
 		FileUtils.forceMkdir(new File(tomboloDataCacheRootDirectory + "/" + TOMBOLO_DATA_CACHE_DIRECTORY + "/" + prefix));
 	}
+
+	File getCacheDirectory() {
+		return new File(tomboloDataCacheRootDirectory + "/" + TOMBOLO_DATA_CACHE_DIRECTORY);
+	}
 }
@@ -0,0 +1,210 @@
+package uk.org.tombolo.importer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.org.tombolo.importer.ons.OaImporter;
+import uk.org.tombolo.importer.utils.JournalEntryUtils;
+import uk.org.tombolo.recipe.DatasourceRecipe;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Plans and runs the imports of the datasources of a recipe.
+ *
+ * Identical datasource recipes, such as the same datasource required by the recipe and by one of its modelling
+ * fields, are imported once. The output area datasources that importers extending {@link AbstractOaImporter} build
+ * on are planned as imports of their own, ahead of the imports that need them. Imports of importers that
+ * {@link Importer#declaresDependencies() declare their dependencies} then run concurrently on a bounded pool. Any
+ * other import is a barrier that waits for every import planned before it, and that every import planned after it
+ * waits for, so that the subjects it may look up are imported first as the recipe orders them. A single worker
+ * imports everything in plan order on the calling thread.
+ */
+public class ImportPlanner {
+	private static final Logger log = LoggerFactory.getLogger(ImportPlanner.class);
+
+	// System property with the number of datasources imported at the same time
+	public static final String WORKERS_PROPERTY = "importWorkers";
+	private static final int DEFAULT_WORKERS = 4;
+
+	/**
+	 * Creates configured importers for datasource recipes.
+	 */
+	public interface ImporterFactory {
+		Importer create(DatasourceRecipe datasourceRecipe) throws Exception;
+	}
+
+	/**
+	 * A datasource to import, along with the imports it has to wait for.
+	 */
+	public static class PlannedImport {
+		private final DatasourceRecipe datasourceRecipe;
+		private final Importer importer;
+		private final List<PlannedImport> dependencies;
+
+		private PlannedImport(DatasourceRecipe datasourceRecipe, Importer importer, List<PlannedImport> dependencies) {
+			this.datasourceRecipe = datasourceRecipe;
+			this.importer = importer;
+			this.dependencies = dependencies;
+		}
+
+		public DatasourceRecipe getDatasourceRecipe() {
+			return datasourceRecipe;
+		}
+
+		public Importer getImporter() {
+			return importer;
+		}
+
+		public List<PlannedImport> getDependencies() {
+			return dependencies;
+		}
+
+		@Override
+		public String toString() {
+			return datasourceRecipe.getImporterClass() + ":" + datasourceRecipe.getDatasourceId();
+		}
+	}
+
+	private final ImporterFactory importerFactory;
+	private final ImporterMatcher forceImports;
+	// Planned imports by key, in an order where every import comes after its dependencies
+	private final Map<String, PlannedImport> imports = new LinkedHashMap<>();
+
+	public ImportPlanner(ImporterFactory importerFactory, ImporterMatcher forceImports) {
+		this.importerFactory = importerFactory;
+		this.forceImports = forceImports;
+	}
+
+	/**
+	 * Plans the import of a datasource, unless an identical import is already planned.
+	 */
+	public PlannedImport add(DatasourceRecipe datasourceRecipe) throws Exception {
+		String key = key(datasourceRecipe);
+		PlannedImport plannedImport = imports.get(key);
+		if (plannedImport != null)
+			return plannedImport;
+
+		Importer importer = importerFactory.create(datasourceRecipe);
+		List<PlannedImport> dependencies = new ArrayList<>();
+		if (importer instanceof AbstractOaImporter) {
+			// Planned the way AbstractOaImporter imports them, so it finds them imported
+			for (String oaDatasourceId : ((AbstractOaImporter) importer).getOaDatasourceIds()) {
+				dependencies.add(add(new DatasourceRecipe(OaImporter.class.getCanonicalName(), oaDatasourceId,
+						Collections.emptyList(), Collections.emptyList(), Collections.emptyList(), null)));
+			}
+		}
+		plannedImport = new PlannedImport(datasourceRecipe, importer, dependencies);
+		imports.put(key, plannedImport);
+		return plannedImport;
+	}
+
+	/**
+	 * Returns the planned imports, every import coming after its dependencies.
+	 */
+	public List<PlannedImport> getImports() {
+		return new ArrayList<>(imports.values());
+	}
+
+	public void run() throws Exception {
+		run(Integer.getInteger(WORKERS_PROPERTY, DEFAULT_WORKERS));
+	}
+
+	/**
+	 * Runs the planned imports. Once an import fails no further import is started, and the failure is thrown
+	 * when the running ones have finished.
+	 *
+	 * @param workers Maximum number of datasources imported at the same time
+	 */
+	public void run(int workers) throws Exception {
+		long start = System.currentTimeMillis();
+		if (workers <= 1 || imports.size() <= 1) {
+			for (PlannedImport plannedImport : imports.values())
+				importDatasource(plannedImport);
+		} else {
+			runConcurrently(Math.min(workers, imports.size()));
+		}
+		log.info("Imported {} datasources in {} s", imports.size(), seconds(start));
+	}
+
+	private void runConcurrently(int workers) throws Exception {
+		log.info("Importing {} datasources with {} workers", imports.size(), workers);
+		ExecutorService pool = newPool(workers);
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		try {
+			Map<PlannedImport, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+			// The last import that does not declare its dependencies, which the next ones wait for
+			CompletableFuture<Void> barrier = CompletableFuture.completedFuture(null);
+			for (PlannedImport plannedImport : imports.values()) {
+				CompletableFuture<?>[] dependencies;
+				if (plannedImport.getImporter().declaresDependencies()) {
+					List<CompletableFuture<?>> declared = new ArrayList<>();
+					declared.add(barrier);
+					plannedImport.getDependencies().forEach(dependency -> declared.add(futures.get(dependency)));
+					dependencies = declared.toArray(new CompletableFuture[0]);
+				} else {
+					dependencies = futures.values().toArray(new CompletableFuture[0]);
+				}
+				CompletableFuture<Void> future = CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+					// No further import is started once one has failed
+					if (failure.get() != null)
+						return;
+					try {
+						importDatasource(plannedImport);
+					} catch (Exception e) {
+						log.error("Import of {} failed", plannedImport);
+						failure.compareAndSet(null, e);
+					}
+				}, pool);
+				if (!plannedImport.getImporter().declaresDependencies())
+					barrier = future;
+				futures.put(plannedImport, future);
+			}
+			for (CompletableFuture<Void> future : futures.values())
+				future.join();
+		} finally {
+			pool.shutdownNow();
+		}
+		if (failure.get() != null)
+			throw failure.get();
+	}
+
+	private void importDatasource(PlannedImport plannedImport) throws Exception {
+		DatasourceRecipe datasourceRecipe = plannedImport.getDatasourceRecipe();
+		long start = System.currentTimeMillis();
+		plannedImport.getImporter().importDatasource(
+				datasourceRecipe.getDatasourceId(),
+				datasourceRecipe.getGeographyScope(),
+				datasourceRecipe.getTemporalScope(),
+				datasourceRecipe.getLocalData(),
+				forceImports.doesMatch(datasourceRecipe.getImporterClass())
+		);
+		log.info("Finished {} in {} s", plannedImport, seconds(start));
+	}
+
+	// Identical recipes have the same importer, configuration and journal entry
+	private static String key(DatasourceRecipe datasourceRecipe) {
+		return datasourceRecipe.getImporterClass()
+				+ "|" + JournalEntryUtils.getJournalEntryForDatasourceId(datasourceRecipe.getImporterClass(),
+						datasourceRecipe.getDatasourceId(), datasourceRecipe.getGeographyScope(),
+						datasourceRecipe.getTemporalScope(), datasourceRecipe.getLocalData()).getKey()
+				+ "|" + (datasourceRecipe.getConfigFile() == null ? "" : datasourceRecipe.getConfigFile());
+	}
+
+	private static String seconds(long start) {
+		return String.format("%.1f", (System.currentTimeMillis() - start) / 1000d);
+	}
+
+	private static ExecutorService newPool(int threads) {
+		AtomicInteger threadCounter = new AtomicInteger();
+		return Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "import-" + threadCounter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
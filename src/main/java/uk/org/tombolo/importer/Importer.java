@@ -59,6 +59,27 @@ public interface Importer {
 	void importDatasource(@Nonnull  String datasourceId, @Nullable List<String> geographyScope, @Nullable List<String> temporalScope, @Nullable List<String> datasourceLocation) throws Exception;
 	void importDatasource(@Nonnull String datasourceId, @Nullable List<String> geographyScope, @Nullable List<String> temporalScope, @Nullable List<String> datasourceLocation, Boolean force) throws Exception;
 
+	/**
+	 * Returns the remote files that importing a datasource for a given geography and temporal scope will fetch,
+	 * so that they can be downloaded before the import. Importers that do not download files, such as those reading
+	 * local files, a remote database or data passed by a Python importer, return an empty list.
+	 *
+	 * @param datasourceId The identifier of the datasource to be imported.
+	 * @param geographyScope A list of geography scopes to be imported.
+	 * @param temporalScope A list of temporal scopes to be imported.
+	 * @param datasourceLocation A list of file locations in case the data comes from a local source
+	 * @throws Exception
+	 */
+	List<Download> getDownloads(@Nonnull String datasourceId, @Nullable List<String> geographyScope, @Nullable List<String> temporalScope, @Nullable List<String> datasourceLocation) throws Exception;
+
+	/**
+	 * Returns true if the only subjects the importer reads are the ones it imports itself and the output areas
+	 * of {@link AbstractOaImporter#getOaDatasourceIds()}, so that it can be imported alongside other datasources.
+	 * Importers that may look up subjects imported by any earlier datasource of the recipe return false and are
+	 * imported in recipe order.
+	 */
+	boolean declaresDependencies();
+
 	/**
 	 * Function that takes in a buffer of subjects and saves it to the database and clears the buffer.
 	 *
@@ -6,33 +6,93 @@ import org.apache.commons.io.FileUtils;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
-import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Enumeration;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.GZIPInputStream;
 
 public class ZipUtils {
     private static org.slf4j.Logger log = LoggerFactory.getLogger(ZipUtils.class);
 
+    // Directories extracted by this process that have not been deleted yet, deleted when it exits
+    private static final Set<Path> temporaryDirectories = ConcurrentHashMap.newKeySet();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (Path directory : temporaryDirectories)
+                FileUtils.deleteQuietly(directory.toFile());
+        }, "unzip-cleanup"));
+    }
+
+    /**
+     * Extracts a zip file into a new temporary directory.
+     * The directory should be deleted with {@link #deleteTemporaryDirectory(Path)} once read, otherwise it is
+     * deleted when the process exits. Prefer {@link #openEntry(File, String)} for files that can be streamed.
+     */
     public static Path unzipToTemporaryDirectory(File file) throws IOException {
-        File tempDirectory = new File("/tmp/" + UUID.nameUUIDFromBytes(file.getName().getBytes()).toString());
-        if (!tempDirectory.exists()) {
-            tempDirectory.mkdir();
-            ZipFile zipFile = new ZipFile(file);
+        Path tempDirectory = Files.createTempDirectory("tombolo-unzip-");
+        temporaryDirectories.add(tempDirectory);
+        try (ZipFile zipFile = new ZipFile(file)) {
             Enumeration<ZipArchiveEntry> zipEntries = zipFile.getEntries();
             while (zipEntries.hasMoreElements()) {
                 ZipArchiveEntry entry = zipEntries.nextElement();
                 if (!entry.isDirectory()) {
-                    FileUtils.copyInputStreamToFile(zipFile.getInputStream(entry), new File(Paths.get(tempDirectory.toString(), "/" + entry.getName()).toString()));
+                    Path entryPath = tempDirectory.resolve(entry.getName()).normalize();
+                    if (!entryPath.startsWith(tempDirectory))
+                        throw new IOException("Zip entry outside of the archive: " + entry.getName());
+                    try (InputStream entryStream = zipFile.getInputStream(entry)) {
+                        FileUtils.copyInputStreamToFile(entryStream, entryPath.toFile());
+                    }
                 }
             }
+        } catch (IOException e) {
+            deleteTemporaryDirectory(tempDirectory);
+            throw e;
+        }
+        return tempDirectory;
+    }
+
+    /**
+     * Opens an entry of a zip file for reading, without extracting it.
+     * Closing the stream closes the zip file.
+     */
+    public static InputStream openEntry(File file, String entryName) throws IOException {
+        ZipFile zipFile = new ZipFile(file);
+        ZipArchiveEntry entry = zipFile.getEntry(entryName);
+        if (entry == null) {
             zipFile.close();
+            throw new FileNotFoundException(String.format("No entry %s in %s", entryName, file));
         }
-        return tempDirectory.toPath();
+        return new FilterInputStream(new BufferedInputStream(zipFile.getInputStream(entry))) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    zipFile.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Opens a text entry of a zip file for reading line by line, without extracting it.
+     */
+    public static BufferedReader openEntryReader(File file, String entryName) throws IOException {
+        return new BufferedReader(new InputStreamReader(openEntry(file, entryName), StandardCharsets.UTF_8));
     }
+
+    /**
+     * Deletes a directory created by {@link #unzipToTemporaryDirectory(File)}.
+     */
+    public static void deleteTemporaryDirectory(Path directory) {
+        FileUtils.deleteQuietly(directory.toFile());
+        temporaryDirectories.remove(directory);
+    }
+
     /**
      * Checks if an input stream is gzipped.
      * Gzipped files have a magic number to recognize them.
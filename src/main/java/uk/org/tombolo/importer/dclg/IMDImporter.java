@@ -4,7 +4,8 @@ import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
 import uk.org.tombolo.core.*;
-import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ons.OaImporter;
 
 import java.io.BufferedReader;
@@ -128,6 +129,11 @@ public class IMDImporter extends AbstractDCLGImporter {
         return Collections.singletonList(OaImporter.getSubjectType(OaImporter.OaType.lsoa));
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(new Download(new URL(IMD_DATA_CSV), getProvider().getLabel(), ".csv"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         // Save timed values
@@ -144,7 +150,7 @@ public class IMDImporter extends AbstractDCLGImporter {
 
             if (lsoaLabel.startsWith("LSOA"))
                 continue;
-            Subject lsoa = SubjectUtils.getSubjectByTypeAndLabel(datasource.getUniqueSubjectType(), lsoaLabel);
+            Subject lsoa = SubjectLabelIndex.getSubject(datasource.getUniqueSubjectType(), lsoaLabel);
 
             if (lsoa == null)
                 continue;
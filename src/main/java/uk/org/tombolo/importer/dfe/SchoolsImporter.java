@@ -6,11 +6,12 @@ import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.PrecisionModel;
 import org.apache.poi.ss.usermodel.DataFormatter;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Workbook;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.utils.CoordinateUtils;
 import uk.org.tombolo.importer.utils.ExcelUtils;
 import uk.org.tombolo.importer.utils.LatLong;
+import uk.org.tombolo.importer.utils.StreamingWorkbook;
 
 import java.net.URL;
 import java.time.LocalDate;
@@ -86,12 +87,21 @@ public class SchoolsImporter extends AbstractDfEImporter {
 
     }
 
-    // Schools' workbook
-    Workbook workbook;
+    // Schools' workbook, read row by row as it holds tens of thousands of schools
+    StreamingWorkbook workbook;
 
     protected void setupUtils(DatasourceId id) throws Exception {
         ExcelUtils excelUtils = new ExcelUtils();
-        workbook = excelUtils.getWorkbook(downloadUtils.fetchInputStream(new URL(id.filePath), getProvider().getLabel(), ".xlsx"));
+        if (workbook != null)
+            workbook.close();
+        workbook = excelUtils.getStreamingWorkbook(downloadUtils.fetchFile(new URL(id.filePath), getProvider().getLabel(), ".xlsx"));
+    }
+
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Arrays.asList(
+                new Download(new URL(DatasourceId.valueOf(datasourceId).filePath), getProvider().getLabel(), ".xlsx"),
+                CoordinateUtils.getPostcodeToLatLongDownload(getProvider().getLabel()));
     }
 
     @Override
@@ -100,72 +110,79 @@ public class SchoolsImporter extends AbstractDfEImporter {
         List<Subject> subjects = new ArrayList<>();
         List<FixedValue> fixedValues = new ArrayList<FixedValue>();
 
-        //Import the postcode conversion file
-        Map<String, LatLong> postcodeToCoord = CoordinateUtils.postcodeToLatLong(getProvider().getLabel(), downloadUtils);
-        // Keep track of the seen outcudes so we don't calculate the coordinate every time
-        Map<String, Coordinate> seenCoordinates = new HashMap<>();
-
-        Iterator<Row> rowIterator = workbook.getSheetAt(DatasourceId.schools.sheetIdx).rowIterator();
-        DataFormatter dataFormatter = new DataFormatter();
-        Row header = rowIterator.next();
-        while (rowIterator.hasNext()) {
-            Row row = rowIterator.next();
-            String label;
-            String name;
-            String postcode;
-
-            try {
-                label = getProvider().getLabel() + "_schools_" + row.getCell(LABEL_COLUMN_INDEX).toString();
-                name = row.getCell(NAME_COLUMN_INDEX).toString();
-                postcode = row.getCell(POSTCODE_COLUMN_INDEX).toString();
-
-            } catch (Exception e) {
-                // Continue with the other data, if any.
-                continue;
-            }
+        // The workbook is closed even if the import fails, so that its file is released
+        try {
+            //Import the postcode conversion file
+            Map<String, LatLong> postcodeToCoord = CoordinateUtils.postcodeToLatLong(getProvider().getLabel(), downloadUtils);
+            // Keep track of the seen outcudes so we don't calculate the coordinate every time
+            Map<String, Coordinate> seenCoordinates = new HashMap<>();
+
+            Iterator<Row> rowIterator = workbook.rowIterator(DatasourceId.schools.sheetIdx);
+            DataFormatter dataFormatter = new DataFormatter();
+            Row header = rowIterator.next();
+            while (rowIterator.hasNext()) {
+                Row row = rowIterator.next();
+                String label;
+                String name;
+                String postcode;
 
-            // create the geography from the coordinates matching the postcode
-            GeometryFactory gf = new GeometryFactory(new PrecisionModel(), Subject.SRID);
-            String outcode = postcode.split(" ")[0];
-            LatLong latlong = postcodeToCoord.get(outcode);
-            Geometry geometry;
-            Coordinate coordinate = seenCoordinates.get(outcode);
-            if (coordinate == null){
                 try {
-                    coordinate = new Coordinate(Double.parseDouble(latlong.getLongitude()),
-                            Double.parseDouble(latlong.getLatitude()));
-                    seenCoordinates.put(outcode, coordinate);
+                    label = getProvider().getLabel() + "_schools_" + row.getCell(LABEL_COLUMN_INDEX).toString();
+                    name = row.getCell(NAME_COLUMN_INDEX).toString();
+                    postcode = row.getCell(POSTCODE_COLUMN_INDEX).toString();
+
                 } catch (Exception e) {
-                    // Nothing to do, we will have an empty geometry for this subject
+                    // Continue with the other data, if any.
+                    continue;
+                }
+
+                // create the geography from the coordinates matching the postcode
+                GeometryFactory gf = new GeometryFactory(new PrecisionModel(), Subject.SRID);
+                String outcode = postcode.split(" ")[0];
+                LatLong latlong = postcodeToCoord.get(outcode);
+                Geometry geometry;
+                Coordinate coordinate = seenCoordinates.get(outcode);
+                if (coordinate == null){
+                    try {
+                        coordinate = new Coordinate(Double.parseDouble(latlong.getLongitude()),
+                                Double.parseDouble(latlong.getLatitude()));
+                        seenCoordinates.put(outcode, coordinate);
+                    } catch (Exception e) {
+                        // Nothing to do, we will have an empty geometry for this subject
+                    }
+                }
+                geometry = gf.createPoint(coordinate);
+
+                Subject subject = new Subject(
+                        datasource.getUniqueSubjectType(),
+                        label,
+                        name,
+                        geometry
+                );
+                subjects.add(subject);
+
+                int attributeIndex = 0;
+                for (Attribute attribute : datasource.getFixedValueAttributes()) {
+                    fixedValues.add(new FixedValue(
+                            subject,
+                            attribute,
+                            dataFormatter.formatCellValue(row.getCell(attributeIndex++))));
                 }
             }
-            geometry = gf.createPoint(coordinate);
-
-            Subject subject = new Subject(
-                    datasource.getUniqueSubjectType(),
-                    label,
-                    name,
-                    geometry
-            );
-            subjects.add(subject);
-
-            int attributeIndex = 0;
-            for (Attribute attribute : datasource.getFixedValueAttributes()) {
-                fixedValues.add(new FixedValue(
-                        subject,
-                        attribute,
-                        dataFormatter.formatCellValue(row.getCell(attributeIndex++))));
-            }
+        } finally {
+            if (workbook != null)
+                workbook.close();
+            workbook = null;
         }
         saveAndClearSubjectBuffer(subjects);
         saveAndClearFixedValueBuffer(fixedValues);
     }
 
     @Override
-    public List<Attribute> getFixedValueAttributes(String datasourceID) {
+    public List<Attribute> getFixedValueAttributes(String datasourceID) throws Exception {
         List<Attribute> attributes = new ArrayList<>();
 
-        Row attributeHeader = workbook.getSheetAt(DatasourceId.schools.sheetIdx).rowIterator().next();
+        Row attributeHeader = workbook.rowIterator(DatasourceId.schools.sheetIdx).next();
         IntStream.rangeClosed(attributeHeader.getFirstCellNum(), attributeHeader.getLastCellNum() - 1)
                 .forEach(idx -> {
                             String label = attributeHeader.getCell(idx).getStringCellValue();
@@ -12,6 +12,7 @@ import uk.org.tombolo.core.DatasourceSpec;
 import uk.org.tombolo.core.SubjectType;
 import uk.org.tombolo.core.utils.AttributeUtils;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ons.AbstractONSImporter;
 import uk.org.tombolo.importer.ons.OaImporter;
 import uk.org.tombolo.importer.utils.ExcelUtils;
@@ -113,6 +114,12 @@ public class AccessibilityImporter extends AbstractDFTImporter {
         return DatasourceId.valueOf(datasourceId).datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.valueOf(datasourceId).dataFile), getProvider().getLabel(), DATASET_FILE_SUFFIX));
+    }
+
     @Override
     public Datasource getDatasource(String datasourceId) throws Exception {
         DatasourceId datasourceIdValue = DatasourceId.valueOf(datasourceId);
@@ -6,9 +6,10 @@ import org.odftoolkit.simple.table.Table;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ons.AbstractONSImporter;
 import uk.org.tombolo.importer.ons.OaImporter;
 
@@ -17,6 +18,7 @@ import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -105,6 +107,12 @@ public class ActivePeopleSurveyImporter extends AbstractDFTImporter {
                 OaImporter.OaType.englandBoundaries.datasourceSpec.getId());
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(getDatasourceSpec(datasourceId).getUrl()), getProvider().getLabel(), ".ods"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -148,8 +156,8 @@ public class ActivePeopleSurveyImporter extends AbstractDFTImporter {
         while (rowIterator.hasNext()) {
             Row row = rowIterator.next();
             String geograghy = row.getCellByIndex(0).getDisplayText().trim();
-            Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localauthority, geograghy);
-            subject = subject != null ? subject : SubjectUtils.getSubjectByTypeAndLabel(englandboundaries, geograghy);
+            Subject subject = SubjectLabelIndex.getSubject(localauthority, geograghy);
+            subject = subject != null ? subject : SubjectLabelIndex.getSubject(englandboundaries, geograghy);
 
             if (subject != null) {
                 for (int i = 0; i < columnLoop.size(); i++) {
@@ -15,6 +15,7 @@ import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.importer.AbstractImporter;
 import uk.org.tombolo.importer.ConfigurationException;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.utils.CoordinateUtils;
 
 import java.io.InputStreamReader;
@@ -317,6 +318,18 @@ public class TrafficCountImporter extends AbstractImporter {
 				new SubjectType(getProvider(), TRAFFIC_COUNTER_SUBJECT_TYPE_LABEL, TRAFFIC_COUNTER_SUBJECT_TYPE_DESC));
 	}
 
+	@Override
+	public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+		if (geographyScope == null || geographyScope.isEmpty())
+			return Collections.emptyList();
+
+		DatasourceId id = DatasourceId.valueOf(datasourceId);
+		List<Download> downloads = new ArrayList<>();
+		for (String geographyLabel : geographyScope)
+			downloads.add(new Download(new URL(getTrafficCountUrl(id, geographyLabel)), getProvider().getLabel(), ".csv"));
+		return downloads;
+	}
+
 	@Override
 	protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 		DatasourceId datasourceId = DatasourceId.valueOf(datasource.getDatasourceSpec().getId());
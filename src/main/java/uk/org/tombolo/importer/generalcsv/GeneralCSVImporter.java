@@ -10,9 +10,10 @@ import org.apache.commons.csv.CSVRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.importer.Config;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.GeneralImporter;
 import uk.org.tombolo.importer.utils.CoordinateUtils;
 
@@ -108,6 +109,17 @@ public class GeneralCSVImporter extends GeneralImporter {
         csvRecords = csvFileParser.getRecords();
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        // Local files are read in place
+        try {
+            return Collections.singletonList(
+                    new Download(new URL(config.getFileLocation()), getProvider().getLabel(), ".csv"));
+        } catch (MalformedURLException e) {
+            return Collections.emptyList();
+        }
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         int subjectIDIdx = config.getSubjectIDIndex();
@@ -118,6 +130,11 @@ public class GeneralCSVImporter extends GeneralImporter {
         Subject subject;
 
         boolean newSubject = "no".equalsIgnoreCase(config.getExistingSubject());
+        Iterator<Geometry> shapeIterator = newSubject ? getShapes(csvRecords.subList(1, csvRecords.size())).iterator() : null;
+        SubjectType existingSubjectType = newSubject ? null : SubjectTypeUtils.getSubjectTypeByProviderAndLabel(
+                config.getSubjectType().getProvider().getLabel(),
+                config.getSubjectType().getLabel()
+        );
 
         while (csvRecordIterator.hasNext()) {
             CSVRecord record = csvRecordIterator.next();
@@ -126,18 +143,12 @@ public class GeneralCSVImporter extends GeneralImporter {
                         datasource.getUniqueSubjectType(),
                         record.get(config.getSubjectIDIndex()),
                         "",
-                        getShape(record)
+                        shapeIterator.next()
                 );
                 subjects.add(subject);
 
             } else {
-                subject = SubjectUtils.getSubjectByTypeAndLabel(
-                        SubjectTypeUtils.getSubjectTypeByProviderAndLabel(
-                                config.getSubjectType().getProvider().getLabel(),
-                                config.getSubjectType().getLabel()
-                        ),
-                        record.get(subjectIDIdx)
-                );
+                subject = SubjectLabelIndex.getSubject(existingSubjectType, record.get(subjectIDIdx));
             }
 
             int attributeIndex = 1;
@@ -153,6 +164,31 @@ public class GeneralCSVImporter extends GeneralImporter {
         saveAndClearFixedValueBuffer(fixedValues);
     }
 
+    // Transforms the coordinates of all the records in one go, falling back to one record at a time if any fails
+    private List<Geometry> getShapes(List<CSVRecord> records) {
+        if (config.getGeographyProjection().equals("") ||
+                config.getGeographyXIndex() == -1 ||
+                config.getGeographyYIndex() == -1 ||
+                config.getGeographyProjection().equals(CoordinateUtils.WGS84CRS)) {
+            return records.stream().map(this::getShape).collect(Collectors.toList());
+        }
+
+        double[] eastNorths = new double[2 * records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            eastNorths[2 * i] = Double.parseDouble(records.get(i).get(config.getGeographyXIndex()));
+            eastNorths[2 * i + 1] = Double.parseDouble(records.get(i).get(config.getGeographyYIndex()));
+        }
+        Coordinate[] coordinates;
+        try {
+            coordinates = CoordinateUtils.eastNorthToLatLong(eastNorths, config.getGeographyProjection(), CoordinateUtils.WGS84CRS);
+        } catch (Exception e) {
+            return records.stream().map(this::getShape).collect(Collectors.toList());
+        }
+
+        GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), Subject.SRID);
+        return Arrays.stream(coordinates).map(geometryFactory::createPoint).collect(Collectors.toList());
+    }
+
     private Geometry getShape(CSVRecord record) {
         if (!config.getGeographyProjection().equals("") &&
                 config.getGeographyXIndex() != -1 &&
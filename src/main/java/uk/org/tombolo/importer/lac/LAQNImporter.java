@@ -12,6 +12,7 @@ import uk.org.tombolo.core.utils.SubjectTypeUtils;
 import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ParsingException;
 import uk.org.tombolo.importer.utils.JSONReader;
 
@@ -79,6 +80,14 @@ public class LAQNImporter extends AbstractImporter {
         return datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(new Download(new URL(getDataURL(
+                null != geographyScope && !geographyScope.isEmpty() ? geographyScope.get(0) : "",
+                null != temporalScope && !temporalScope.isEmpty() ? temporalScope.get(0) : ""
+        )), "uk.lac", ".json"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -215,17 +224,20 @@ public class LAQNImporter extends AbstractImporter {
     }
 
     private String importerURL(String area, String year) {
+        dataSourceURL = getDataURL(area, year);
+        return dataSourceURL;
+    }
+
+    private String getDataURL(String area, String year) {
 
         if (dataSourceURL.contains("GroupName")) return dataSourceURL;
 
-        dataSourceURL = area != null && !area.trim().isEmpty() ?
+        String url = area != null && !area.trim().isEmpty() ?
                             dataSourceURL + "GroupName=" + area.trim() + "/" :
                             dataSourceURL + "GroupName=London" + "/";
 
-        dataSourceURL = year != null && !year.isEmpty() ?
-                            dataSourceURL + "Year=" + year.trim() + "/json" : dataSourceURL + "json";
-
-        return dataSourceURL;
+        return year != null && !year.isEmpty() ?
+                            url + "Year=" + year.trim() + "/json" : url + "json";
     }
 
 }
@@ -6,10 +6,11 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.importer.ConfigurationException;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ons.AbstractONSImporter;
 import uk.org.tombolo.importer.ons.OaImporter;
 
@@ -80,6 +81,12 @@ public class LondonLonelinessImporter extends AbstractLondonDatastoreImporter {
                 OaImporter.OaType.msoa.datasourceSpec.getId(),
                 OaImporter.OaType.lsoa.datasourceSpec.getId());
     }
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.lonelinessPrevalence.datasourceSpec.getUrl()), getProvider().getLabel(), ".xlsx"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         String fileLocation = LondonLonelinessImporter.DatasourceId.lonelinessPrevalence.datasourceSpec.getUrl();
@@ -126,7 +133,7 @@ public class LondonLonelinessImporter extends AbstractLondonDatastoreImporter {
             while (rowIterator.hasNext()) {
                 Row row = rowIterator.next();
                 String geograghy =  String.valueOf(row.getCell(0)).trim();
-                Subject subject = SubjectUtils.getSubjectByTypeAndLabel(subjectType, geograghy);
+                Subject subject = SubjectLabelIndex.getSubject(subjectType, geograghy);
                 if (subject != null) {
                     try {
                         ListIterator<Integer> it = validAttributes.listIterator();
@@ -2,18 +2,19 @@ package uk.org.tombolo.importer.londondatastore;
 
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.DownloadUtils;
 import uk.org.tombolo.importer.ons.AbstractONSImporter;
 import uk.org.tombolo.importer.ons.OaImporter;
 import uk.org.tombolo.importer.utils.ExcelUtils;
+import uk.org.tombolo.importer.utils.StreamingWorkbook;
 import uk.org.tombolo.importer.utils.extraction.*;
 
+import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 
@@ -43,6 +44,8 @@ public class LondonPHOFImporter extends AbstractLondonDatastoreImporter {
     private static final String DATAFILE_SUFFIX = ".xlsx";
     private static final String DATAFILE
             = "https://files.datapress.com/london/dataset/public-health-outcomes-framework-indicators/2015-11-10T12:05:53/phof-indicators-data-london-borough.xlsx";
+    // The indicators are on the fourth sheet of the datafile
+    private static final int INDICATOR_SHEET_INDEX = 3;
 
     private enum DatasourceId {
         phofIndicatorsLondonBorough(new DatasourceSpec(
@@ -62,20 +65,10 @@ public class LondonPHOFImporter extends AbstractLondonDatastoreImporter {
 
     ExcelUtils excelUtils = new ExcelUtils();
 
-    Workbook workbook = null;
-
     public LondonPHOFImporter(){
         datasourceIds = stringsFromEnumeration(DatasourceId.class);
     }
 
-    public Workbook getWorkbook() {
-        return workbook;
-    }
-
-    public void setWorkbook(Workbook workbook) {
-        this.workbook = workbook;
-    }
-
     @Override
     public void setDownloadUtils(DownloadUtils downloadUtils) {
         super.setDownloadUtils(downloadUtils);
@@ -86,6 +79,11 @@ public class LondonPHOFImporter extends AbstractLondonDatastoreImporter {
         return DatasourceId.valueOf(datasourceIdString).datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(new Download(new URL(DATAFILE), getProvider().getLabel(), DATAFILE_SUFFIX));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope,  List<String> datasourceLocation) throws Exception {
         SubjectType subjectType = SubjectTypeUtils.getOrCreate(AbstractONSImporter.PROVIDER,
@@ -95,69 +93,49 @@ public class LondonPHOFImporter extends AbstractLondonDatastoreImporter {
         RowCellExtractor timestampExtractor = new RowCellExtractor(1, CellType.STRING);
         RowCellExtractor valueExtractor = new RowCellExtractor(6, CellType.NUMERIC);
 
-        if (null == getWorkbook()) {
-            setWorkbook(excelUtils.getWorkbook(
-                    downloadUtils.fetchInputStream(new URL(DATAFILE), getProvider().getLabel(), DATAFILE_SUFFIX)));
+        // The attribute of each value is the indicator named in its row
+        TimedValueExtractor timedValueExtractor = new TimedValueExtractor(
+                getProvider(),
+                subjectType,
+                subjectExtractor,
+                attributeNameExtractor,
+                timestampExtractor,
+                valueExtractor
+        );
+        try (StreamingWorkbook workbook = openWorkbook()) {
+            Iterator<Row> rowIterator = workbook.rowIterator(INDICATOR_SHEET_INDEX);
+            Row header = rowIterator.next();
+            excelUtils.extractAndSaveTimedValues(rowIterator, this, Collections.singletonList(timedValueExtractor));
         }
-
-        List<TimedValue> timedValueBuffer = new ArrayList<>();
-        Sheet sheet = workbook.getSheetAt(3);
-        Iterator<Row> rowIterator = sheet.iterator();
-        Row header = rowIterator.next();
-        while (rowIterator.hasNext()) {
-            Row row = rowIterator.next();
-            attributeNameExtractor.setRow(row);
-            subjectExtractor.setRow(row);
-            timestampExtractor.setRow(row);
-            valueExtractor.setRow(row);
-
-            String attributeLabel = attributeNameExtractor.extract();
-            TimedValueExtractor timedValueExtractor = new TimedValueExtractor(
-                    getProvider(),
-                    subjectType,
-                    subjectExtractor,
-                    new ConstantExtractor(attributeLabel),
-                    timestampExtractor,
-                    valueExtractor
-            );
-            try {
-                timedValueBuffer.add(timedValueExtractor.extract());
-            }catch (UnknownSubjectLabelException e){
-                // No worries if the subject does not exist
-            }catch (ExtractorException e){
-                log.warn(e.getMessage());
-            }
-        }
-        workbook.close();
-        saveAndClearTimedValueBuffer(timedValueBuffer);
     }
 
     @Override
     public List<Attribute> getTimedValueAttributes(String datasourceID) throws Exception {
         RowCellExtractor attributeNameExtractor = new RowCellExtractor(0, CellType.STRING);
 
-        if (null == getWorkbook()) {
-            setWorkbook(excelUtils.getWorkbook(
-                    downloadUtils.fetchInputStream(new URL(DATAFILE), getProvider().getLabel(), DATAFILE_SUFFIX)));
-        }
-
         Map<String, Attribute> attributes = new HashMap<>();
-        Sheet sheet = workbook.getSheetAt(3);
-        Iterator<Row> rowIterator = sheet.iterator();
-        Row header = rowIterator.next();
-        while (rowIterator.hasNext()){
-            Row row = rowIterator.next();
-
-            attributeNameExtractor.setRow(row);
-            String attributeLabel = attributeNameExtractor.extract();
-
-            if (!attributes.containsKey(attributeLabel))
-                attributes.put(
-                        attributeLabel,
-                        new Attribute(getProvider(), attributeLabel, attributeLabel)
-                );
+        try (StreamingWorkbook workbook = openWorkbook()) {
+            Iterator<Row> rowIterator = workbook.rowIterator(INDICATOR_SHEET_INDEX);
+            Row header = rowIterator.next();
+            while (rowIterator.hasNext()){
+                Row row = rowIterator.next();
+
+                attributeNameExtractor.setRow(row);
+                String attributeLabel = attributeNameExtractor.extract();
+
+                if (!attributes.containsKey(attributeLabel))
+                    attributes.put(
+                            attributeLabel,
+                            new Attribute(getProvider(), attributeLabel, attributeLabel)
+                    );
+            }
         }
-        workbook.close();
         return new ArrayList<>(attributes.values());
     }
+
+    // Opens the datafile for reading its sheets row by row
+    private StreamingWorkbook openWorkbook() throws IOException {
+        return excelUtils.getStreamingWorkbook(
+                downloadUtils.fetchFile(new URL(DATAFILE), getProvider().getLabel(), DATAFILE_SUFFIX));
+    }
 }
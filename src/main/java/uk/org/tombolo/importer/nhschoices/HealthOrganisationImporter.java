@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.Download;
 
 import java.net.URL;
 import java.util.Collections;
@@ -78,6 +79,13 @@ public final class HealthOrganisationImporter extends AbstractImporter {
         return datasourceIdObject.datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        // The datasource spec is read directly, as getDatasourceSpec warns about the GP surgeries
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.valueOf(datasourceId).datasourceSpec.getUrl()), getProvider().getLabel(), ".json"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -8,10 +8,11 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ons.AbstractONSImporter;
 import uk.org.tombolo.importer.ons.OaImporter;
 
@@ -22,6 +23,7 @@ import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -81,6 +83,12 @@ public class NHSAdmissionsImporter extends AbstractImporter {
         return datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(getDatasourceSpec("NHSAdmissionsObese").getUrl()), getProvider().getLabel(), ".xlsx"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         SubjectType localauthority = SubjectTypeUtils.getOrCreate(AbstractONSImporter.PROVIDER,
@@ -127,7 +135,7 @@ public class NHSAdmissionsImporter extends AbstractImporter {
 
             // We create SubjectType object that we will use to get the appropriate geometries
             // from OaImporter class
-            Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localauthority, String.valueOf(row.getCell(0)).trim());
+            Subject subject = SubjectLabelIndex.getSubject(localauthority, String.valueOf(row.getCell(0)).trim());
             // Checking if subject is null
             if (subject != null) {
 
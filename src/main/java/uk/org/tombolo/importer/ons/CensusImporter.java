@@ -7,9 +7,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.core.utils.AttributeUtils;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.utils.JSONReader;
 import uk.org.tombolo.recipe.SubjectRecipe;
 
@@ -120,6 +121,21 @@ public class CensusImporter extends AbstractONSImporter {
                 + "&" + "geography=" + GEOGRAPHIES.get(geography);
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        // The dataset record ids come from the seed data, which is otherwise read when the datasource is looked up
+        if (descriptions.isEmpty())
+            getSeedData();
+
+        List<Download> downloads = new ArrayList<>();
+        for (SubjectRecipe subjectRecipe : subjectRecipes) {
+            String dataUrl = getDataUrl(datasourceId, subjectRecipe.getSubjectType());
+            downloads.add(new Download(new URL(dataUrl + "&recordlimit=0"), getProvider().getLabel(), ".csv"));
+            downloads.add(new Download(new URL(dataUrl), getProvider().getLabel(), ".csv"));
+        }
+        return downloads;
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         LocalDateTime TIMESTAMP = TimedValueUtils.parseTimestampString("2011");
@@ -146,7 +162,7 @@ public class CensusImporter extends AbstractONSImporter {
                     CSVFormat.RFC4180.withFirstRecordAsHeader());
 
             csvParser.forEach(record -> {
-                Subject subject = SubjectUtils.getSubjectByTypeAndLabel(subjectType, record.get("geography code"));
+                Subject subject = SubjectLabelIndex.getSubject(subjectType, record.get("geography code"));
                 if (subject != null) {
                     attributes.forEach(attribute -> {
                         String value = record.get(attribute.getDescription());
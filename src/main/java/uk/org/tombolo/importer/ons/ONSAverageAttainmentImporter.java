@@ -6,9 +6,10 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 
 import java.io.File;
 import java.io.InputStream;
@@ -73,6 +74,12 @@ public class ONSAverageAttainmentImporter extends AbstractONSImporter {
         return DatasourceId.valueOf(datasourceId).datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.ONSAverageAttainment.datasourceSpec.getUrl()), getProvider().getLabel(), ".xlsx"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         SubjectType localauthority = SubjectTypeUtils.getSubjectTypeByProviderAndLabel(
@@ -109,7 +116,7 @@ public class ONSAverageAttainmentImporter extends AbstractONSImporter {
         while (rowIterator.hasNext()){
             Row row = rowIterator.next();
 
-            Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localauthority, String.valueOf(row.getCell(0)).trim());
+            Subject subject = SubjectLabelIndex.getSubject(localauthority, String.valueOf(row.getCell(0)).trim());
 
             // Dataset specific: The dataset contains mixed geometries. Check that the geometries in the excel file
             // match the "Area code" column. If they are not null proceed
@@ -6,15 +6,17 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 
 import java.io.InputStream;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -80,6 +82,12 @@ public class ONSBusinessDemographyImporter extends AbstractONSImporter{
                 OaImporter.OaType.englandBoundaries.datasourceSpec.getId());
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.ONSNewBusinessSurvival.datasourceSpec.getUrl()), getProvider().getLabel(), ".xls"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         String fileLocation = DatasourceId.ONSNewBusinessSurvival.datasourceSpec.getUrl();
@@ -124,8 +132,8 @@ public class ONSBusinessDemographyImporter extends AbstractONSImporter{
             while (rowIterator.hasNext()) {
                 Row row = rowIterator.next();
                 String geography =  String.valueOf(row.getCell(0)).trim();
-                Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localauthority, geography);
-                subject = subject != null ? subject : SubjectUtils.getSubjectByTypeAndLabel(englandboundaries, geography);
+                Subject subject = SubjectLabelIndex.getSubject(localauthority, geography);
+                subject = subject != null ? subject : SubjectLabelIndex.getSubject(englandboundaries, geography);
                 // Checking if subject is null
                 if (subject != null) {
                     // loop through attribute columns
@@ -3,6 +3,7 @@ package uk.org.tombolo.importer.ons;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
 import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.utils.CSVUtils;
 import uk.org.tombolo.importer.utils.extraction.CSVExtractor;
 import uk.org.tombolo.importer.utils.extraction.ConstantExtractor;
@@ -233,6 +234,12 @@ public class ONSEmploymentImporter extends AbstractONSImporter {
                 OaImporter.OaType.localAuthority.datasourceSpec.getId());
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(getDatasourceSpec(datasourceId).getUrl()), getProvider().getLabel(), ".csv"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -6,15 +6,17 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 
 import java.io.InputStream;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -71,6 +73,12 @@ public class ONSLifeExpectancyImporter extends AbstractONSImporter  {
                 OaImporter.OaType.englandBoundaries.datasourceSpec.getId());
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.ONSLifeExpectancy.datasourceSpec.getUrl()), getProvider().getLabel(), ".xls"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         // Get the url and pass it to a InputStream for downloading the file
@@ -121,8 +129,8 @@ public class ONSLifeExpectancyImporter extends AbstractONSImporter  {
                 String geograghy = String.valueOf(row.getCell(0)).trim();
 
                 // Fetch the geometry for our subjects based on the geography code.
-                Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localauthority, geograghy);
-                subject = subject != null ? subject : SubjectUtils.getSubjectByTypeAndLabel(englandboundaries, geograghy);
+                Subject subject = SubjectLabelIndex.getSubject(localauthority, geograghy);
+                subject = subject != null ? subject : SubjectLabelIndex.getSubject(englandboundaries, geograghy);
 
                 // Checking if subject is null
                 if (subject != null) {
@@ -6,9 +6,10 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 
 import java.io.InputStream;
 import java.net.URL;
@@ -71,6 +72,12 @@ public class ONSWellbeingImporter extends AbstractONSImporter {
                 OaImporter.OaType.englandBoundaries.datasourceSpec.getId());
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(DatasourceId.ONSWellbeing.datasourceSpec.getUrl()), getProvider().getLabel(), ".xls"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -103,8 +110,8 @@ public class ONSWellbeingImporter extends AbstractONSImporter {
             while (rowIterator.hasNext()) {
                 Row row = rowIterator.next();
                 String geograghy =  String.valueOf(row.getCell(0)).trim();
-                Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localauthority, geograghy);
-                subject = subject != null ? subject : SubjectUtils.getSubjectByTypeAndLabel(englandboundaries, geograghy);
+                Subject subject = SubjectLabelIndex.getSubject(localauthority, geograghy);
+                subject = subject != null ? subject : SubjectLabelIndex.getSubject(englandboundaries, geograghy);
 
                 // Checking if subject is null
                 if (subject != null) {
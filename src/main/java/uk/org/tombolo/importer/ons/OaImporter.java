@@ -9,6 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.Download;
 
 import java.io.InputStream;
 import java.net.URL;
@@ -76,6 +77,18 @@ public final class OaImporter extends AbstractImporter {
         return OaType.valueOf(datasourceId).datasourceSpec;
     }
 
+    @Override
+    public boolean declaresDependencies() {
+        // Output areas are imported from their own files only
+        return true;
+    }
+
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(OaType.valueOf(datasourceId).datafile), getProvider().getLabel(), ".json"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope,  List<String> datasourceLocation) throws Exception {
         InputStream inputStream = downloadUtils.fetchInputStream(new URL(OaType.valueOf(datasource.getDatasourceSpec().getId()).datafile), getProvider().getLabel(), ".json");
@@ -0,0 +1,47 @@
+package uk.org.tombolo.importer.osm;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+/**
+ * Set of OSM ids as a bitset split in pages, so that it only takes memory for the ranges of ids it holds.
+ *
+ * OSM ids do not fit in an int, and the ids of the entities of an area are clustered, so each page of 65536 ids
+ * takes 8 KB once any of its ids is added.
+ */
+class LongIdSet {
+    private static final int PAGE_BITS = 16;
+    private static final long PAGE_MASK = (1L << PAGE_BITS) - 1;
+
+    private final TLongObjectHashMap<long[]> pages = new TLongObjectHashMap<>();
+    private long size = 0;
+
+    void add(long id) {
+        long[] page = pages.get(id >>> PAGE_BITS);
+        if (page == null) {
+            page = new long[1 << (PAGE_BITS - 6)];
+            pages.put(id >>> PAGE_BITS, page);
+        }
+        int bit = (int) (id & PAGE_MASK);
+        long mask = 1L << bit;
+        if ((page[bit >>> 6] & mask) == 0) {
+            page[bit >>> 6] |= mask;
+            size++;
+        }
+    }
+
+    boolean contains(long id) {
+        long[] page = pages.get(id >>> PAGE_BITS);
+        if (page == null)
+            return false;
+        int bit = (int) (id & PAGE_MASK);
+        return (page[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    long size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,171 @@
+package uk.org.tombolo.importer.osm;
+
+import gnu.trove.map.hash.TLongLongHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Locations of OSM nodes by id, kept in a memory-mapped temporary file instead of the heap.
+ *
+ * Each node takes 16 bytes: its id and its latitude and longitude in units of 10^-7 degrees, the precision of the
+ * OSM data itself. PBF extracts list the nodes by increasing id, so the nodes are appended to a sorted array of
+ * memory-mapped chunks and looked up with a binary search. The few nodes that come out of order are kept on the
+ * heap. The operating system pages the chunks in and out as needed, so the store is not bound by the heap or the
+ * direct memory limit. The chunks are unmapped and the file deleted when the store is closed.
+ */
+class NodeLocationStore implements Closeable {
+    private static Logger log = LoggerFactory.getLogger(NodeLocationStore.class);
+    // Value returned for nodes that are not in the store; its latitude is out of range
+    static final long NO_LOCATION = Long.MIN_VALUE;
+    private static final int ENTRY_BYTES = 16;
+    private static final int DEFAULT_CHUNK_ENTRIES = 1 << 22;
+    private static final double SCALE = 1e7;
+
+    private final int chunkEntries;
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long[] chunkFirstIds = new long[16];
+    private long size = 0;
+    private long lastId = Long.MIN_VALUE;
+    private final TLongLongHashMap unsortedLocations = new TLongLongHashMap();
+
+    NodeLocationStore() throws IOException {
+        this(DEFAULT_CHUNK_ENTRIES);
+    }
+
+    /**
+     * @param chunkEntries Number of nodes in each memory-mapped chunk
+     */
+    NodeLocationStore(int chunkEntries) throws IOException {
+        this.chunkEntries = chunkEntries;
+        file = File.createTempFile("osm-nodes", ".bin");
+        try {
+            randomAccessFile = new RandomAccessFile(file, "rw");
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        channel = randomAccessFile.getChannel();
+    }
+
+    void put(long id, double latitude, double longitude) throws IOException {
+        long location = pack(latitude, longitude);
+        if (id <= lastId) {
+            unsortedLocations.put(id, location);
+            return;
+        }
+
+        int chunkIndex = (int) (size / chunkEntries);
+        int entry = (int) (size % chunkEntries);
+        if (entry == 0) {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, (long) chunkIndex * chunkEntries * ENTRY_BYTES,
+                    (long) chunkEntries * ENTRY_BYTES));
+            if (chunkIndex == chunkFirstIds.length)
+                chunkFirstIds = Arrays.copyOf(chunkFirstIds, chunkFirstIds.length * 2);
+            chunkFirstIds[chunkIndex] = id;
+        }
+        MappedByteBuffer chunk = chunks.get(chunkIndex);
+        chunk.putLong(entry * ENTRY_BYTES, id);
+        chunk.putLong(entry * ENTRY_BYTES + 8, location);
+        lastId = id;
+        size++;
+    }
+
+    /**
+     * Returns the packed location of the node, or NO_LOCATION if the node is not in the store.
+     */
+    long get(long id) {
+        if (unsortedLocations.containsKey(id))
+            return unsortedLocations.get(id);
+        if (size == 0 || id < chunkFirstIds[0] || id > lastId)
+            return NO_LOCATION;
+
+        // Last chunk starting at or before the id
+        int low = 0;
+        int high = chunks.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunkFirstIds[middle] <= id)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+
+        MappedByteBuffer chunk = chunks.get(low);
+        int entryLow = 0;
+        int entryHigh = (low == chunks.size() - 1) ? (int) (size - (long) low * chunkEntries) - 1 : chunkEntries - 1;
+        while (entryLow <= entryHigh) {
+            int middle = (entryLow + entryHigh) >>> 1;
+            long middleId = chunk.getLong(middle * ENTRY_BYTES);
+            if (middleId < id)
+                entryLow = middle + 1;
+            else if (middleId > id)
+                entryHigh = middle - 1;
+            else
+                return chunk.getLong(middle * ENTRY_BYTES + 8);
+        }
+        return NO_LOCATION;
+    }
+
+    long size() {
+        return size + unsortedLocations.size();
+    }
+
+    static double latitude(long location) {
+        return (int) (location >> 32) / SCALE;
+    }
+
+    static double longitude(long location) {
+        return (int) location / SCALE;
+    }
+
+    private static long pack(double latitude, double longitude) {
+        return ((long) (int) Math.round(latitude * SCALE) << 32) | ((int) Math.round(longitude * SCALE) & 0xffffffffL);
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Otherwise the mappings, and the disk space of the file, are only released once the buffers are collected
+        chunks.forEach(NodeLocationStore::unmap);
+        chunks.clear();
+        channel.close();
+        randomAccessFile.close();
+        if (!file.delete())
+            log.warn("Could not delete node location file {}", file);
+    }
+
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(theUnsafe.get(null), buffer);
+        } catch (NoSuchMethodException java8) {
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            } catch (ReflectiveOperationException e) {
+                log.warn("Could not unmap node locations: {}", e.getMessage());
+            }
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not unmap node locations: {}", e.getMessage());
+        }
+    }
+}
@@ -57,16 +57,21 @@ public enum OSMBuiltInImporters {
     private String label;
     private String description;
     private Map<String, List<String>> categories;
+    private OSMTagMatcher tagMatcher;
 
     OSMBuiltInImporters(String label, String description, Map<String, List<String>> categories) {
         this.description = description;
         this.categories = categories;
+        this.tagMatcher = new OSMTagMatcher(categories);
         this.label = label;
     }
 
     public Map<String, List<String>> getCategories() {
         return this.categories;
     }
+    OSMTagMatcher getTagMatcher() {
+        return this.tagMatcher;
+    }
     String getDescription() {
         return this.description;
     }
@@ -2,13 +2,15 @@ package uk.org.tombolo.importer.osm;
 
 import com.vividsolutions.jts.geom.*;
 import de.topobyte.osm4j.core.access.OsmHandler;
-import de.topobyte.osm4j.core.dataset.InMemoryMapDataSet;
 import de.topobyte.osm4j.core.model.iface.*;
+import de.topobyte.osm4j.core.model.impl.Node;
 import de.topobyte.osm4j.core.model.util.OsmModelUtil;
 import de.topobyte.osm4j.core.resolve.EntityNotFoundException;
+import de.topobyte.osm4j.core.resolve.OsmEntityProvider;
 import de.topobyte.osm4j.geometry.GeometryBuilder;
 import de.topobyte.osm4j.geometry.MissingEntitiesStrategy;
 import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.Attribute;
@@ -16,63 +18,138 @@ import uk.org.tombolo.core.FixedValue;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.utils.AttributeUtils;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.*;
 
 /**
  * Class extending the functionality of OSMHandler to persist only the entities we are interested in and save the ways
  * as subjects while reading.
  *
+ * Only the locations of the nodes are kept to build the geometries of the ways, outside the heap, see
+ * {@link NodeLocationStore}. The handler must be closed after reading to release them. Given the result of an
+ * {@link OSMReferenceScanner} pass, it keeps only the nodes and ways the matching entities are made of.
+ *
+ * Given a pool of workers, the entities are handed to the workers in batches for tag matching, geometry building
+ * and validation, while a single writer thread saves the subjects in the order they were read. Before switching
+ * from one kind of entity to the next the handler waits for the batches in flight, so that the nodes and ways a
+ * worker builds geometries from are not changed under it.
  */
-public class OSMEntityHandler implements OsmHandler {
+public class OSMEntityHandler implements OsmHandler, Closeable {
     public static Logger log = LoggerFactory.getLogger(OSMEntityHandler.class);
     public static final int SIZE_BUFFER = 100000;
+    // Number of entities handed to a worker at a time
+    static final int ENTITIES_PER_BATCH = 1024;
+    // Number of batches that can be queued ahead of the writer
+    private static final int BATCHES_IN_FLIGHT = 128;
     private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory(new PrecisionModel(), Subject.SRID);
+    // Tells the writer thread there is nothing more to write
+    private static final Runnable END_OF_WRITES = () -> {};
 
-    private final InMemoryMapDataSet dataSet = new InMemoryMapDataSet();
-    private final TLongObjectMap<OsmNode> nodes = dataSet.getNodes();
-    private final TLongObjectMap<OsmWay> ways = dataSet.getWays();
+    private final NodeLocationStore nodeLocations;
+    private final TLongObjectMap<OsmWay> ways = new TLongObjectHashMap<>();
+    private final OsmEntityProvider entityProvider = new StoreEntityProvider();
 
 
     private List<FixedValue> fixedValues = new ArrayList<>();
     private List<Subject> subjects = new ArrayList<>();
 
-    private GeometryBuilder builder;
+    // Geometry builders are not shared between threads
+    private final ThreadLocal<GeometryBuilder> builders = ThreadLocal.withInitial(OSMEntityHandler::makeGeometryBuilder);
     private OSMImporter importer;
 
     private String datasourceId;
+    private final OSMTagMatcher tagMatcher;
+    // Nodes and ways to keep, or null to keep them all
+    private final LongIdSet referencedNodeIds;
+    private final LongIdSet referencedWayIds;
+
+    // Entities read but not handed over yet, all of the same type
+    private List<OsmEntity> batch = new ArrayList<>();
+    private EntityType batchType;
+
+    // Workers preparing the batches and queue of the prepared writes, or null to do everything on the reading thread
+    private final ExecutorService workers;
+    private final BlockingQueue<Future<Runnable>> writes;
+    private final Thread writer;
+    private volatile Throwable writeFailure;
+
+    public OSMEntityHandler(OSMImporter importer, String datasourceId) throws IOException {
+        this(importer, datasourceId, null, null);
+    }
 
-    public OSMEntityHandler(OSMImporter importer, String datasourceId) {
+    /**
+     * @param references Result of the first pass over the same data, or null to keep every node and way
+     * @param workers Pool of threads preparing the entities, or null to prepare them on the reading thread
+     */
+    OSMEntityHandler(OSMImporter importer, String datasourceId, OSMReferenceScanner references,
+                     ExecutorService workers) throws IOException {
         this.importer = importer;
+        this.nodeLocations = new NodeLocationStore();
         this.datasourceId = datasourceId;
+        this.tagMatcher = OSMBuiltInImporters.valueOf(datasourceId).getTagMatcher();
+        this.referencedNodeIds = (references != null) ? references.getNodeIds() : null;
+        this.referencedWayIds = (references != null) ? references.getWayIds() : null;
+
+        this.workers = workers;
+        if (workers != null) {
+            writes = new ArrayBlockingQueue<>(BATCHES_IN_FLIGHT);
+            writer = new Thread(this::write, "osm-writer-" + datasourceId);
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writes = null;
+            writer = null;
+        }
+    }
 
-        builder = new GeometryBuilder(GEOMETRY_FACTORY);
+    private static GeometryBuilder makeGeometryBuilder() {
+        GeometryBuilder builder = new GeometryBuilder(GEOMETRY_FACTORY);
         // Throw exception if entities are missing
         builder.setMissingEntitiesStrategy(MissingEntitiesStrategy.THROW_EXCEPTION);
+        return builder;
     }
 
     @Override
     public void handle(OsmBounds bounds) throws IOException
     {
-        dataSet.setBounds(bounds);
+        // The bounds are not needed to build the geometries
     }
 
     @Override
     public void handle(OsmNode node) throws IOException
     {
+        startBatchOf(EntityType.Node);
         // We are not interested in the node tags, but just the coordinates to create a geometry for the ways
-        nodes.put(node.getId(), node);
-        handleEntity(node, builder.build(node));
+        if (referencedNodeIds == null || referencedNodeIds.contains(node.getId()))
+            nodeLocations.put(node.getId(), node.getLatitude(), node.getLongitude());
+        addToBatch(node);
     }
 
     @Override
     public void handle(OsmWay way) throws IOException
     {
+        startBatchOf(EntityType.Way);
+        if (referencedWayIds == null || referencedWayIds.contains(way.getId()))
+            ways.put(way.getId(), way);
+        addToBatch(way);
+    }
+
+    @Override
+    public void handle(OsmRelation relation) throws IOException
+    {
+        startBatchOf(EntityType.Relation);
+        addToBatch(relation);
+    }
+
+    private Geometry buildWay(OsmWay way) {
         Geometry osmGeometry = null;
         try {
-            osmGeometry = builder.build(way, dataSet);
+            osmGeometry = builders.get().build(way, entityProvider);
             if (osmGeometry instanceof LinearRing) {
                 osmGeometry = new Polygon((LinearRing) osmGeometry, null, GEOMETRY_FACTORY);
             }
@@ -82,63 +159,181 @@ public class OSMEntityHandler implements OsmHandler {
             // Nothing to do, continue...
             log.warn("Could not build way (entity not found): {}", e.getMessage());
         }
-        ways.put(way.getId(), way);
-        handleEntity(way, osmGeometry);
+        return osmGeometry;
     }
 
-    @Override
-    public void handle(OsmRelation relation) throws IOException
-    {
+    private Geometry buildRelation(OsmRelation relation) {
         Geometry osmGeometry = null;
         try {
-            osmGeometry = builder.build(relation, dataSet);
+            osmGeometry = builders.get().build(relation, entityProvider);
         } catch (EntityNotFoundException e) {
             // Nothing to do, continue...
             log.warn("Could not build way (entity not found): {}", e.getMessage());
         }
-        handleEntity(relation, osmGeometry);
+        return osmGeometry;
     }
 
     @Override
     public void complete() throws IOException
     {
+        handOverBatch();
+        awaitWrites();
         // save the remaining subjects and values
         importer.saveAndClearSubjectBuffer(subjects);
         importer.saveAndClearFixedValueBuffer(fixedValues);
     }
 
-    private void handleEntity(OsmEntity entity, Geometry osmGeometry) {
-        // Convert the entity's tags to a map
-        Map<String, String> tags = OsmModelUtil.getTagsAsMap(entity);
-        // Categories
-        Map<String, List<String>> categories = OSMBuiltInImporters.valueOf(datasourceId).getCategories();
-        // Check if the subject has one of the predefined tags
-        categoriesloop:
-        for (String categoryKey : categories.keySet()) {
-            if (tags.containsKey(categoryKey)) {
-                // The entity has at least one tag that matches one of the importers category
-                if (categories.get(categoryKey).contains("*")) {
-                    // The entity has a tag that matches the category key and the value is a wildcard
-                    // Hence we persist the entity
-                    persistEntity(entity, osmGeometry, tags);
-                    break categoriesloop;
-                }
-
-                for (String categoryValue : categories.get(categoryKey)) {
-                    if (tags.get(categoryKey).equals(categoryValue)) {
-                        // The entity has a tag that matches a category key and value
-                        // Hence we persist the entity
-                        persistEntity(entity, osmGeometry, tags);
-                        break categoriesloop;
-                    }
-                }
+    @Override
+    public void close() throws IOException {
+        if (writer != null && writer.isAlive()) {
+            // The writer waits for every batch in flight before it stops, so none is left reading the nodes
+            enqueue(CompletableFuture.completedFuture(END_OF_WRITES));
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the OSM writer");
+            }
+        }
+        nodeLocations.close();
+    }
+
+    /*
+    Workers read the nodes and ways kept so far, which the reading thread only changes for the current type of
+    entity. Switching type waits for the batches of the previous type to be prepared and written.
+    */
+    private void startBatchOf(EntityType type) throws IOException {
+        if (type == batchType)
+            return;
+        handOverBatch();
+        awaitWrites();
+        batchType = type;
+    }
+
+    private void addToBatch(OsmEntity entity) throws IOException {
+        batch.add(entity);
+        if (batch.size() == ENTITIES_PER_BATCH)
+            handOverBatch();
+    }
+
+    private void handOverBatch() throws IOException {
+        if (batch.isEmpty())
+            return;
+        List<OsmEntity> entities = batch;
+        EntityType type = batchType;
+        batch = new ArrayList<>();
+
+        if (workers == null) {
+            persistEntities(prepareEntities(entities, type));
+            return;
+        }
+        if (writeFailure != null)
+            throw new IOException("Could not import OSM entities", writeFailure);
+        enqueue(workers.submit(() -> {
+            List<PreparedEntity> prepared = prepareEntities(entities, type);
+            return () -> persistEntities(prepared);
+        }));
+    }
+
+    private void enqueue(Future<Runnable> write) throws IOException {
+        try {
+            writes.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing OSM entities");
+        }
+    }
+
+    /*
+    Waits until everything handed over so far is written, and reports a failure of the workers or the writer.
+    */
+    private void awaitWrites() throws IOException {
+        if (writer == null)
+            return;
+        WriteBarrier barrier = new WriteBarrier();
+        enqueue(CompletableFuture.completedFuture(barrier));
+        try {
+            barrier.written.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the OSM writer");
+        }
+        if (writeFailure != null)
+            throw new IOException("Could not import OSM entities", writeFailure);
+    }
+
+    /*
+    Runs on the writer thread. After a failure the remaining batches are still awaited, but only the barriers
+    are run.
+    */
+    private void write() {
+        while (true) {
+            Runnable write;
+            try {
+                write = writes.take().get();
+            } catch (InterruptedException e) {
+                return;
+            } catch (ExecutionException e) {
+                writeFailure = e.getCause();
+                continue;
+            }
+            if (write == END_OF_WRITES)
+                return;
+            if (writeFailure != null && !(write instanceof WriteBarrier))
+                continue;
+            try {
+                write.run();
+            } catch (RuntimeException | Error e) {
+                writeFailure = e;
             }
         }
-        if (subjects.size() == SIZE_BUFFER) {
-            importer.saveAndClearSubjectBuffer(subjects);
-            importer.saveAndClearFixedValueBuffer(fixedValues);
+    }
+
+    // Runs on the workers, or on the reading thread without workers
+    private List<PreparedEntity> prepareEntities(List<OsmEntity> entities, EntityType type) {
+        List<PreparedEntity> prepared = new ArrayList<>();
+        for (OsmEntity entity : entities) {
+            // Check if the subject has one of the predefined tags
+            if (!tagMatcher.matches(entity))
+                continue;
+            // Convert the entity's tags to a map
+            Map<String, String> tags = OsmModelUtil.getTagsAsMap(entity);
+            // The geometry is only built for the entities we persist
+            Geometry geometry;
+            switch (type) {
+                case Node:
+                    geometry = builders.get().build((OsmNode) entity);
+                    break;
+                case Way:
+                    geometry = buildWay((OsmWay) entity);
+                    break;
+                default:
+                    geometry = buildRelation((OsmRelation) entity);
+            }
+            Subject subject = makeSubject(entity, geometry, tags);
+            if (subject != null)
+                prepared.add(new PreparedEntity(subject, tags));
         }
+        return prepared;
+    }
 
+    // Runs on the writer thread, or on the reading thread without workers
+    private void persistEntities(List<PreparedEntity> entities) {
+        for (PreparedEntity entity : entities) {
+            subjects.add(entity.subject);
+
+            // Save fixed attributes, creating the attributes of tags we have not seen before
+            Map<String, Attribute> attributes = AttributeUtils.getOrCreate(importer.getProvider(), entity.tags.keySet(), importer::attributeFromTag);
+            for (String tag : entity.tags.keySet()){
+                FixedValue fixedValue = new FixedValue(entity.subject, attributes.get(tag), entity.tags.get(tag));
+                fixedValues.add(fixedValue);
+            }
+
+            if (subjects.size() == SIZE_BUFFER) {
+                importer.saveAndClearSubjectBuffer(subjects);
+                importer.saveAndClearFixedValueBuffer(fixedValues);
+            }
+        }
     }
 
     /**
@@ -163,12 +358,12 @@ public class OSMEntityHandler implements OsmHandler {
         return element;
     }
 
-    private void persistEntity(OsmEntity entity, Geometry geometry, Map<String, String> tags) {
+    private Subject makeSubject(OsmEntity entity, Geometry geometry, Map<String, String> tags) {
         // If the geometry is null, not valid or empty, it will be skipped
         if (geometry == null || !geometry.isValid() || geometry.isEmpty()) {
             log.warn("Could not build {}: {} (geometry not valid or empty): {}", entity.getClass(), entity.getId(),
                     geometry);
-            return;
+            return null;
         }
 
         // Check if it's a GeometryCollection and dump it to a chosen geometry eventually
@@ -177,30 +372,64 @@ public class OSMEntityHandler implements OsmHandler {
             if (chosenGeo.isEmpty()) {
                 log.warn("Could not build {}: {} (geometry collection contains only empty geometries): {}",
                         entity.getClass(), entity.getId(), geometry);
-                return;
+                return null;
             }
             geometry = chosenGeo;
         }
 
         geometry.setSRID(Subject.SRID);
-        // Save subject
-        Subject subject = new Subject(
+        return new Subject(
                 importer.getSubjectType(),
                 "osm" + entity.getId(),
                 tags.get("name"),
                 geometry
         );
-        subjects.add(subject);
-
-        // Save fixed attributes
-        for (String tag : tags.keySet()){
-            Attribute attribute = AttributeUtils.getByProviderAndLabel(importer.getProvider(), tag);
-            if(attribute == null) {
-                attribute = importer.attributeFromTag(tag);
-                AttributeUtils.save(attribute);
-            }
-            FixedValue fixedValue = new FixedValue(subject, attribute, tags.get(tag));
-            fixedValues.add(fixedValue);
+    }
+
+    // Reached by the writer once everything queued before it is written
+    private static final class WriteBarrier implements Runnable {
+        final CountDownLatch written = new CountDownLatch(1);
+
+        @Override
+        public void run() {
+            written.countDown();
+        }
+    }
+
+    private static final class PreparedEntity {
+        final Subject subject;
+        final Map<String, String> tags;
+
+        PreparedEntity(Subject subject, Map<String, String> tags) {
+            this.subject = subject;
+            this.tags = tags;
+        }
+    }
+
+    /*
+    Resolves the members of ways and relations from what the handler keeps. Relations are not kept, so relations
+    of relations cannot be built, as before.
+    */
+    private final class StoreEntityProvider implements OsmEntityProvider {
+        @Override
+        public OsmNode getNode(long id) throws EntityNotFoundException {
+            long location = nodeLocations.get(id);
+            if (location == NodeLocationStore.NO_LOCATION)
+                throw new EntityNotFoundException("Node " + id + " not found");
+            return new Node(id, NodeLocationStore.longitude(location), NodeLocationStore.latitude(location));
+        }
+
+        @Override
+        public OsmWay getWay(long id) throws EntityNotFoundException {
+            OsmWay way = ways.get(id);
+            if (way == null)
+                throw new EntityNotFoundException("Way " + id + " not found");
+            return way;
+        }
+
+        @Override
+        public OsmRelation getRelation(long id) throws EntityNotFoundException {
+            throw new EntityNotFoundException("Relation " + id + " not found");
         }
     }
 }
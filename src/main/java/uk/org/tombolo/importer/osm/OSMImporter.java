@@ -1,9 +1,13 @@
 package uk.org.tombolo.importer.osm;
 
+import de.topobyte.osm4j.core.access.OsmHandler;
 import de.topobyte.osm4j.pbf.seq.PbfReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.core.utils.AttributeUtils;
 import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.Download;
 
 import java.io.File;
 import java.net.URL;
@@ -11,6 +15,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Open street map importer
@@ -29,6 +38,15 @@ import java.util.List;
  */
 
 public class OSMImporter extends AbstractImporter {
+    private static final Logger log = LoggerFactory.getLogger(OSMImporter.class);
+    // System property, false to import in a single pass that keeps every node and way instead of only the needed ones
+    public static final String TWO_PASS_IMPORT_PROPERTY = "osmTwoPassImport";
+    // System property with the number of threads building the geometries, 1 to build them on the reading thread
+    public static final String WORKERS_PROPERTY = "osmImportWorkers";
+    // System property with the number of areas read at the same time. Neighbouring areas share the entities
+    // crossing their border, which concurrent imports save in no set order and may deadlock on.
+    public static final String CONCURRENT_AREAS_PROPERTY = "osmConcurrentAreas";
+    private static final int DEFAULT_CONCURRENT_AREAS = 1;
     protected static final String URL = "http://download.geofabrik.de";
     // Default area is the whole Great Britain, if the geography scope is empty or null the default area will be considered.
     // The following are the geographic regions for the UK as in geofabrik download server.
@@ -128,27 +146,108 @@ public class OSMImporter extends AbstractImporter {
         return new Attribute(getProvider(), tag, "OSM entity having category " + tag);
     }
 
+    private void read(File file, OsmHandler handler) throws Exception {
+        PbfReader reader = new PbfReader(file, true);
+        reader.setHandler(handler);
+        reader.read();
+    }
+
     private File getDatafile(String area) throws Exception {
         return downloadUtils.fetchFile(new URL(compileURL(area)), getProvider().getLabel(), ".osm.pbf");
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        if (geographyScope == null || geographyScope.isEmpty())
+            geographyScope = DEFAULT_AREA;
+
+        List<Download> downloads = new ArrayList<>();
+        for (String area : geographyScope)
+            downloads.add(new Download(new URL(compileURL(area)), getProvider().getLabel(), ".osm.pbf"));
+        return downloads;
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
         if (geographyScope == null || geographyScope.isEmpty())
             geographyScope = DEFAULT_AREA;
 
-        for (String area : geographyScope) {
-            File localFile = getDatafile(area);
+        // Since we cannot know the attributes until import time, we store them now
+        List<Attribute> attributes = datasource.getFixedValueAttributes();
+        AttributeUtils.save(attributes);
+
+        String datasourceId = datasource.getDatasourceSpec().getId();
+        int workerCount = Integer.getInteger(WORKERS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        int areaCount = Math.min(geographyScope.size(), Integer.getInteger(CONCURRENT_AREAS_PROPERTY, DEFAULT_CONCURRENT_AREAS));
+        // The areas share the workers
+        ExecutorService workers = (workerCount > 1) ? newPool("osm-import-worker-", workerCount) : null;
+        try {
+            if (areaCount <= 1) {
+                for (String area : geographyScope)
+                    importArea(datasourceId, area, workers);
+                return;
+            }
+
+            ExecutorService areas = newPool("osm-import-area-", areaCount);
+            try {
+                List<Future<Void>> imports = new ArrayList<>();
+                for (String area : geographyScope) {
+                    imports.add(areas.submit(() -> {
+                        importArea(datasourceId, area, workers);
+                        return null;
+                    }));
+                }
+                for (Future<Void> areaImport : imports)
+                    await(areaImport);
+            } finally {
+                areas.shutdownNow();
+            }
+        } finally {
+            if (workers != null)
+                workers.shutdownNow();
+        }
+    }
+
+    private void importArea(String datasourceId, String area, ExecutorService workers) throws Exception {
+        File localFile = getDatafile(area);
+
+        OSMReferenceScanner references = null;
+        if (Boolean.parseBoolean(System.getProperty(TWO_PASS_IMPORT_PROPERTY, "true"))) {
+            // First pass, finding the nodes and ways the matching entities need
+            references = new OSMReferenceScanner(datasourceId);
+            read(localFile, references);
+            if (!references.getWayIds().isEmpty()) {
+                references.setMemberWayMode();
+                read(localFile, references);
+            }
+            log.info("Keeping {} nodes and {} ways of {}", references.getNodeIds().size(),
+                    references.getWayIds().size(), area);
+        }
 
-            // Since we cannot know the attributes until import time, we store them now
-            List<Attribute> attributes = datasource.getFixedValueAttributes();
-            AttributeUtils.save(attributes);
+        try (OSMEntityHandler handler = new OSMEntityHandler(this, datasourceId, references, workers)) {
+            read(localFile, handler);
+        }
+    }
+
+    private static ExecutorService newPool(String threadPrefix, int threads) {
+        AtomicInteger threadCounter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadPrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 
-            // Create a reader for PBF data and cache it
-            PbfReader reader = new PbfReader(localFile, true);
-            OSMEntityHandler handler = new OSMEntityHandler(this, datasource.getDatasourceSpec().getId());
-            reader.setHandler(handler);
-            reader.read();
+    private static void await(Future<Void> areaImport) throws Exception {
+        try {
+            areaImport.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw e;
         }
     }
 }
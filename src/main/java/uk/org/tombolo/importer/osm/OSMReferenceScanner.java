@@ -0,0 +1,81 @@
+package uk.org.tombolo.importer.osm;
+
+import de.topobyte.osm4j.core.access.OsmHandler;
+import de.topobyte.osm4j.core.model.iface.*;
+
+import java.io.IOException;
+
+/**
+ * First pass of a selective OSM import, which finds the nodes and ways that the geometries of the ways and
+ * relations matching the categories of a datasource are made of.
+ *
+ * PBF files list the ways before the relations, so the ways of the matching relations are only known at the end
+ * of the first read. If there are any, their nodes are collected by reading the ways again in member way mode.
+ */
+class OSMReferenceScanner implements OsmHandler {
+    private final OSMTagMatcher tagMatcher;
+    private final LongIdSet nodeIds = new LongIdSet();
+    private final LongIdSet wayIds = new LongIdSet();
+    private boolean memberWayMode = false;
+
+    OSMReferenceScanner(String datasourceId) {
+        this.tagMatcher = OSMBuiltInImporters.valueOf(datasourceId).getTagMatcher();
+    }
+
+    /**
+     * Ids of the nodes needed to build the matching ways and relations.
+     */
+    LongIdSet getNodeIds() {
+        return nodeIds;
+    }
+
+    /**
+     * Ids of the ways needed to build the matching relations.
+     */
+    LongIdSet getWayIds() {
+        return wayIds;
+    }
+
+    /**
+     * Switches to collecting the nodes of the ways of the matching relations only, for a second read.
+     */
+    void setMemberWayMode() {
+        this.memberWayMode = true;
+    }
+
+    @Override
+    public void handle(OsmBounds bounds) throws IOException {
+    }
+
+    @Override
+    public void handle(OsmNode node) throws IOException {
+    }
+
+    @Override
+    public void handle(OsmWay way) throws IOException {
+        boolean needed = memberWayMode
+                ? wayIds.contains(way.getId())
+                : tagMatcher.matches(way);
+        if (needed) {
+            for (int i = 0; i < way.getNumberOfNodes(); i++)
+                nodeIds.add(way.getNodeId(i));
+        }
+    }
+
+    @Override
+    public void handle(OsmRelation relation) throws IOException {
+        if (memberWayMode || !tagMatcher.matches(relation))
+            return;
+        for (int i = 0; i < relation.getNumberOfMembers(); i++) {
+            OsmRelationMember member = relation.getMember(i);
+            if (member.getType() == EntityType.Node)
+                nodeIds.add(member.getId());
+            else if (member.getType() == EntityType.Way)
+                wayIds.add(member.getId());
+        }
+    }
+
+    @Override
+    public void complete() throws IOException {
+    }
+}
@@ -0,0 +1,48 @@
+package uk.org.tombolo.importer.osm;
+
+import de.topobyte.osm4j.core.model.iface.OsmEntity;
+import de.topobyte.osm4j.core.model.iface.OsmTag;
+
+import java.util.*;
+
+/**
+ * Matches the tags of OSM entities against the categories of a built-in importer.
+ *
+ * The categories are compiled once into a hash of tag keys to the values they match, so an entity is matched with
+ * one lookup per tag, straight from its tags and without allocating. Entities without tags, which are most of the
+ * nodes of an extract, are rejected without any lookup.
+ */
+class OSMTagMatcher {
+    // Values of the keys whose categories match any value
+    private static final Set<String> ANY_VALUE = Collections.emptySet();
+
+    private final Map<String, Set<String>> valuesByKey = new HashMap<>();
+
+    /**
+     * @param categories Tag keys with the tag values they match, or "*" for any value
+     */
+    OSMTagMatcher(Map<String, List<String>> categories) {
+        for (Map.Entry<String, List<String>> category : categories.entrySet()) {
+            valuesByKey.put(category.getKey(), category.getValue().contains("*")
+                    ? ANY_VALUE : new HashSet<>(category.getValue()));
+        }
+    }
+
+    /**
+     * Returns true if one of the tags of the entity matches one of the categories.
+     */
+    boolean matches(OsmEntity entity) {
+        int numberOfTags = entity.getNumberOfTags();
+        for (int i = 0; i < numberOfTags; i++) {
+            OsmTag tag = entity.getTag(i);
+            if (matches(tag.getKey(), tag.getValue()))
+                return true;
+        }
+        return false;
+    }
+
+    private boolean matches(String key, String value) {
+        Set<String> values = valuesByKey.get(key);
+        return values != null && (values == ANY_VALUE || values.contains(value));
+    }
+}
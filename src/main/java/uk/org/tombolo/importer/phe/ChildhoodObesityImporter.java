@@ -5,9 +5,10 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.SubjectTypeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ons.AbstractONSImporter;
 import uk.org.tombolo.importer.ons.OaImporter;
 
@@ -84,6 +85,12 @@ public class ChildhoodObesityImporter extends AbstractPheImporter {
         return Arrays.asList(super.getOaDatasourceIds().get(0), OaImporter.OaType.msoa.datasourceSpec.getId());
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(getDatasourceSpec(datasourceId).getUrl()), getProvider().getLabel(), ".xlsx"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope,  List<String> datasourceLocation) throws Exception {
 
@@ -125,7 +132,7 @@ public class ChildhoodObesityImporter extends AbstractPheImporter {
 
                 Row row = rowIterator.next();
                 List<Integer> loopingIndices = getLoopingIndices(whichDatasource);
-                Subject subject = SubjectUtils.getSubjectByTypeAndLabel(getSubjectGeometry(whichDatasource), String.valueOf(row.getCell(loopingIndices.get(2))).trim());
+                Subject subject = SubjectLabelIndex.getSubject(getSubjectGeometry(whichDatasource), String.valueOf(row.getCell(loopingIndices.get(2))).trim());
 
                 // Dataset specific: The dataset contains mixed geometries. Check that the geometries in the excel file
                 // match the "Area code" column. If they are not null proceed
@@ -18,12 +18,12 @@ import uk.org.tombolo.core.utils.SubjectTypeUtils;
 import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.ZipUtils;
 import uk.org.tombolo.importer.utils.GeotoolsDataStoreUtils;
 
 import java.io.*;
 import java.net.URL;
-import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
 
@@ -93,6 +93,12 @@ public class OpenMappingImporter extends AbstractImporter{
         return DatasourceId.valueOf(datasourceId).datasourceSpec;
     }
 
+    @Override
+    public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+        return Collections.singletonList(
+                new Download(new URL(getDatasourceSpec(datasourceId).getUrl()), getProvider().getLabel(), ".zip"));
+    }
+
     @Override
     protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -104,12 +110,8 @@ public class OpenMappingImporter extends AbstractImporter{
 
         URL url  = new URL(getDatasourceSpec(datasource.getDatasourceSpec().getId()).getUrl());
         File localFile = downloadUtils.fetchFile(url, getProvider().getLabel(), ".zip");
-        Path dir = ZipUtils.unzipToTemporaryDirectory(localFile);
-
-        File file = new File(dir + "/ssx_openmapping_gb_v1_greaterlondon.csv");
-        InputStream isr = new FileInputStream(file);
-
-        BufferedReader br = new BufferedReader(new FileReader(file));
+        // The csv is read straight from the archive
+        BufferedReader br = ZipUtils.openEntryReader(localFile, "ssx_openmapping_gb_v1_greaterlondon.csv");
 
         List<TimedValue> timedValues = new ArrayList<>();
         List<FixedValue> fixedValues = new ArrayList<>();
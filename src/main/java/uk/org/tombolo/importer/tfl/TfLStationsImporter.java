@@ -10,7 +10,8 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.core.utils.AttributeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
+import uk.org.tombolo.importer.Download;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -20,6 +21,7 @@ import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 import java.io.File;
 import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -71,6 +73,12 @@ public class TfLStationsImporter extends TfLImporter {
 		return DatasourceId.valueOf(datasourceId).datasourceSpec;
 	}
 
+	@Override
+	public List<Download> getDownloads(String datasourceId, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+		verifyConfiguration();
+		return Collections.singletonList(new Download(getStationsUrl(), getProvider().getLabel(), STATIONS_API_SUFFIX));
+	}
+
 	@Override
 	protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
 
@@ -79,13 +87,7 @@ public class TfLStationsImporter extends TfLImporter {
 		switch (datasourceIdObject){
 		case StationList:
 			GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), Subject.SRID);
-			File xmlFile = downloadUtils.fetchFile(
-					new URL(STATIONS_API
-							+"?app_id="+properties.getProperty(PROP_API_APP_ID)
-							+"&app_key="+properties.getProperty(PROP_API_APP_KEY)),
-					getProvider().getLabel(),
-					STATIONS_API_SUFFIX
-			);
+			File xmlFile = downloadUtils.fetchFile(getStationsUrl(), getProvider().getLabel(), STATIONS_API_SUFFIX);
 
 			DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
 			DocumentBuilder builder = factory.newDocumentBuilder();
@@ -124,7 +126,7 @@ public class TfLStationsImporter extends TfLImporter {
 			for (int i=0; i< stations.getLength(); i++){
 				Node station = stations.item(i);
 				String stationLabel = stationLabelFromNode(station);
-				Subject subject = SubjectUtils.getSubjectByTypeAndLabel(datasource.getUniqueSubjectType(), stationLabel);
+				Subject subject = SubjectLabelIndex.getSubject(datasource.getUniqueSubjectType(), stationLabel);
 
 				// Serving Line Count
 				NodeList servingLineList = (NodeList) xpath.evaluate("./servingLines/servingLine", station, XPathConstants.NODESET);
@@ -143,6 +145,12 @@ public class TfLStationsImporter extends TfLImporter {
 		return "tfl:station:"+stationType+":"+stationId;
 	}
 
+	private URL getStationsUrl() throws MalformedURLException {
+		return new URL(STATIONS_API
+				+"?app_id="+properties.getProperty(PROP_API_APP_ID)
+				+"&app_key="+properties.getProperty(PROP_API_APP_KEY));
+	}
+
 	@Override
 	public List<SubjectType> getSubjectTypes(String datasourceId) {
 		return Collections.singletonList(new SubjectType(getProvider(), SubjectTypeName.TfLStation.name(), "Transport for London Station"));
@@ -22,36 +22,41 @@ import java.util.List;
  */
 public class CSVUtils {
 
+    /**
+     * Extracts the timed values of every record of a CSV file and saves them through the importer.
+     *
+     * The file is read with a single parser as it is saved, so quoted values may span several lines. The values are
+     * saved in batches of the timed value buffer size of the importer.
+     */
     public static void extractAndSaveTimedValues(List<TimedValueExtractor> extractors, Importer importer, File localFile)
             throws IOException, ExtractorException {
 
-        String line;
-        BufferedReader br = new BufferedReader(new FileReader(localFile));
         List<TimedValue> timedValueBuffer = new ArrayList<>();
-        while ((line = br.readLine())!=null) {
-            CSVParser parser = CSVParser.parse(line, CSVFormat.DEFAULT);
-            List<CSVRecord> records = parser.getRecords();
-            for(TimedValueExtractor extractor: extractors){
-                if (extractor.getSubjectLabelExtractor() instanceof CSVExtractor)
-                    ((CSVExtractor) extractor.getSubjectLabelExtractor()).setCsvRecord(records.get(0));
-                if (extractor.getAttributeLabelExtractor() instanceof CSVExtractor)
-                    ((CSVExtractor) extractor.getAttributeLabelExtractor()).setCsvRecord(records.get(0));
-                if (extractor.getTimestampExtractor() instanceof CSVExtractor)
-                    ((CSVExtractor) extractor.getTimestampExtractor()).setCsvRecord(records.get(0));
-                if (extractor.getValueExtractor() instanceof CSVExtractor)
-                    ((CSVExtractor) extractor.getValueExtractor()).setCsvRecord(records.get(0));
-                try {
-                    timedValueBuffer.add(extractor.extract());
-                }catch (UnknownSubjectLabelException e){
-                    // No reason to panic even if Subject does not exist and no reason to run the rest of the extractors
-                    // Keep Calm and Break
-                    break;
-                } catch (ExtractorException ee) {
-                    ee.getMessage();
+        try (CSVParser parser = new CSVParser(new BufferedReader(new FileReader(localFile)), CSVFormat.DEFAULT)) {
+            for (CSVRecord record : parser) {
+                for (TimedValueExtractor extractor : extractors) {
+                    if (extractor.getSubjectLabelExtractor() instanceof CSVExtractor)
+                        ((CSVExtractor) extractor.getSubjectLabelExtractor()).setCsvRecord(record);
+                    if (extractor.getAttributeLabelExtractor() instanceof CSVExtractor)
+                        ((CSVExtractor) extractor.getAttributeLabelExtractor()).setCsvRecord(record);
+                    if (extractor.getTimestampExtractor() instanceof CSVExtractor)
+                        ((CSVExtractor) extractor.getTimestampExtractor()).setCsvRecord(record);
+                    if (extractor.getValueExtractor() instanceof CSVExtractor)
+                        ((CSVExtractor) extractor.getValueExtractor()).setCsvRecord(record);
+                    try {
+                        timedValueBuffer.add(extractor.extract());
+                    }catch (UnknownSubjectLabelException e){
+                        // No reason to panic even if Subject does not exist and no reason to run the rest of the extractors
+                        // Keep Calm and Break
+                        break;
+                    } catch (ExtractorException ee) {
+                        ee.getMessage();
+                    }
                 }
+                if (timedValueBuffer.size() >= importer.getTimedValueBufferSize())
+                    importer.saveAndClearTimedValueBuffer(timedValueBuffer);
             }
         }
-        br.close();
         importer.saveAndClearTimedValueBuffer(timedValueBuffer);
     }
 }
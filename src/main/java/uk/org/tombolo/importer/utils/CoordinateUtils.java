@@ -4,19 +4,16 @@ import com.vividsolutions.jts.geom.Coordinate;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVParser;
 import org.apache.commons.csv.CSVRecord;
-import org.geotools.geometry.GeneralDirectPosition;
-import org.geotools.referencing.CRS;
-import org.geotools.referencing.operation.DefaultCoordinateOperationFactory;
-import org.opengis.geometry.DirectPosition;
 import org.opengis.geometry.MismatchedDimensionException;
 import org.opengis.referencing.FactoryException;
 import org.opengis.referencing.NoSuchAuthorityCodeException;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
-import org.opengis.referencing.operation.CoordinateOperation;
 import org.opengis.referencing.operation.TransformException;
+import uk.org.tombolo.core.utils.CoordinateTransformUtils;
+import uk.org.tombolo.importer.Download;
 import uk.org.tombolo.importer.DownloadUtils;
 
 import java.io.InputStreamReader;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -28,17 +25,24 @@ public class CoordinateUtils {
     public static final String OSGBCRS = "EPSG:27700";
 
     public static Coordinate eastNorthToLatLong(double x, double y, String sourceCrs, String targetCrs) throws FactoryException, MismatchedDimensionException, TransformException {
-        CoordinateReferenceSystem targetCrsDecoded = CRS.decode(targetCrs);
-        CoordinateReferenceSystem sourceCrsDecoded = CRS.decode(sourceCrs);
-
-        CoordinateOperation op = new DefaultCoordinateOperationFactory().createOperation(sourceCrsDecoded, targetCrsDecoded);
+        return eastNorthToLatLong(new double[]{x, y}, sourceCrs, targetCrs)[0];
+    }
 
-        DirectPosition source = new GeneralDirectPosition(x, y);
-        DirectPosition target = op.getMathTransform().transform(source, null);
-        Double targetX = target.getOrdinate(0);
-        Double targetY = target.getOrdinate(1);
+    /**
+     * Transforms many coordinates at once, using the shared transform between the reference systems.
+     *
+     * @param eastNorths Packed coordinates as x1, y1, x2, y2, ...
+     * @return The transformed coordinates, with the axes swapped as in the single coordinate method
+     */
+    public static Coordinate[] eastNorthToLatLong(double[] eastNorths, String sourceCrs, String targetCrs) throws FactoryException, TransformException {
+        double[] targets = CoordinateTransformUtils.transform(
+                CoordinateTransformUtils.getDefaultOperationTransform(sourceCrs, targetCrs), eastNorths.clone());
 
-        return new Coordinate(targetY, targetX);
+        Coordinate[] coordinates = new Coordinate[targets.length / 2];
+        for (int i = 0; i < coordinates.length; i++) {
+            coordinates[i] = new Coordinate(targets[2 * i + 1], targets[2 * i]);
+        }
+        return coordinates;
     }
 
     public static Coordinate osgbToWgs84(double easting, double northing) throws NoSuchAuthorityCodeException, FactoryException, MismatchedDimensionException, TransformException {
@@ -53,6 +57,11 @@ public class CoordinateUtils {
 
     private static final String POSTCODE_TO_COORDINATE_URL = "https://www.freemaptools.com/download/outcode-postcodes/postcode-outcodes.csv";
 
+    // The file read by postcodeToLatLong, for importers listing their downloads
+    public static Download getPostcodeToLatLongDownload(String datasetProvider) throws MalformedURLException {
+        return new Download(new URL(POSTCODE_TO_COORDINATE_URL), datasetProvider, ".csv");
+    }
+
     public static Map<String, LatLong> postcodeToLatLong(String datasetProvider, DownloadUtils downloadUtils) throws Exception {
         Map<String, LatLong> postcodeToCoordMap = new HashMap<>();
         InputStreamReader postcodeIsr = new InputStreamReader(downloadUtils.fetchInputStream(new URL(POSTCODE_TO_COORDINATE_URL), datasetProvider, ".csv"));
@@ -31,12 +31,26 @@ public class ExcelUtils {
 		return WorkbookFactory.create(file);
 	}
 
+	/**
+	 * Opens an XLSX workbook for reading its sheets row by row, without loading them in memory.
+	 */
+	public StreamingWorkbook getStreamingWorkbook(InputStream is) throws IOException {
+		return new StreamingWorkbook(is);
+	}
+
+	public StreamingWorkbook getStreamingWorkbook(File file) throws IOException {
+		return new StreamingWorkbook(file);
+	}
+
 	public void extractAndSaveTimedValues(Sheet sheet, Importer importer, List<TimedValueExtractor> extractors){
+		extractAndSaveTimedValues(sheet.iterator(), importer, extractors);
+	}
+
+	public void extractAndSaveTimedValues(Iterator<Row> rowIterator, Importer importer, List<TimedValueExtractor> extractors){
 		int valueCount = 0;
 		List<TimedValue> timedValueBuffer = new ArrayList<>();
 
 		// Extract timed values
-		Iterator<Row> rowIterator = sheet.iterator();
 		while (rowIterator.hasNext()) {
 			Row row = rowIterator.next();
 			for (TimedValueExtractor extractor : extractors) {
@@ -4,13 +4,12 @@ import org.geotools.data.DataStore;
 import org.geotools.data.DefaultQuery;
 import org.geotools.data.FeatureReader;
 import org.geotools.data.Transaction;
-import org.geotools.referencing.CRS;
 import org.opengis.feature.simple.SimpleFeature;
 import org.opengis.feature.simple.SimpleFeatureType;
 import org.opengis.referencing.FactoryException;
-import org.opengis.referencing.crs.CoordinateReferenceSystem;
 import org.opengis.referencing.operation.MathTransform;
 import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.utils.CoordinateTransformUtils;
 
 import java.io.IOException;
 
@@ -21,9 +20,6 @@ public abstract class GeotoolsDataStoreUtils {
     }
 
     public static MathTransform makeCrsTransform(String inputFormat) throws FactoryException {
-        CoordinateReferenceSystem sourceCrs = CRS.decode(inputFormat);
-        CoordinateReferenceSystem targetCrs = CRS.decode("EPSG:"+Subject.SRID, true);
-
-        return CRS.findMathTransform(sourceCrs, targetCrs);
+        return CoordinateTransformUtils.getTransform(inputFormat, false, "EPSG:"+Subject.SRID, true);
     }
 }
\ No newline at end of file
@@ -0,0 +1,334 @@
+package uk.org.tombolo.importer.utils;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.openxml4j.opc.PackagePartName;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Read-only view of the sheets of an XLSX workbook that reads their rows one at a time.
+ *
+ * The sheets are parsed straight from the zipped package with a pull parser, so only the shared strings and the
+ * styles of the workbook are held in memory, and memory stays flat whatever the number of rows of a sheet. The rows
+ * are usermodel rows that can be passed to the extractors, but a row is only valid until the next row is read.
+ *
+ * Only the XLSX format can be streamed. Legacy XLS workbooks have to be read with {@link ExcelUtils#getWorkbook}.
+ */
+public class StreamingWorkbook implements Closeable {
+	private static final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+
+	private final OPCPackage pkg;
+	private final XSSFReader reader;
+	private final ReadOnlySharedStringsTable sharedStrings;
+	private final StylesTable styles;
+	private final File file;
+	private final boolean deleteOnClose;
+
+	// Holds the current row of each iterator, along with copies of the data formats of the styles of its cells
+	private final SXSSFWorkbook scratch = new SXSSFWorkbook(-1);
+	private final Map<Integer, CellStyle> scratchStyles = new HashMap<>();
+	private final List<SheetRowIterator> openIterators = new ArrayList<>();
+
+	public StreamingWorkbook(File file) throws IOException {
+		this(file, false);
+	}
+
+	/**
+	 * Spools the stream to a temporary file, deleted when the workbook is closed, and reads the workbook from it.
+	 */
+	public StreamingWorkbook(InputStream is) throws IOException {
+		this(spool(is), true);
+	}
+
+	private StreamingWorkbook(File file, boolean deleteOnClose) throws IOException {
+		this.file = file;
+		this.deleteOnClose = deleteOnClose;
+		try {
+			pkg = OPCPackage.open(file, PackageAccess.READ);
+		} catch (OpenXML4JException e) {
+			throw new IOException("Could not open workbook " + file, e);
+		}
+		try {
+			reader = new XSSFReader(pkg);
+			sharedStrings = new ReadOnlySharedStringsTable(pkg);
+			styles = reader.getStylesTable();
+		} catch (OpenXML4JException | SAXException | IOException e) {
+			pkg.revert();
+			throw new IOException("Could not read workbook " + file, e);
+		}
+	}
+
+	private static File spool(InputStream is) throws IOException {
+		File file = File.createTempFile("workbook", ".xlsx");
+		try (InputStream in = is) {
+			Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} catch (IOException e) {
+			file.delete();
+			throw e;
+		}
+		return file;
+	}
+
+	/**
+	 * Returns the names of the sheets in workbook order.
+	 */
+	public List<String> getSheetNames() throws IOException {
+		List<String> names = new ArrayList<>();
+		findSheet(sheetName -> {
+			names.add(sheetName);
+			return false;
+		});
+		return names;
+	}
+
+	/**
+	 * Returns an iterator over the rows of the sheet at the index, skipping the rows with no cells.
+	 */
+	public Iterator<Row> rowIterator(int sheetIndex) throws IOException {
+		int[] index = {0};
+		InputStream sheet = findSheet(sheetName -> index[0]++ == sheetIndex);
+		if (sheet == null)
+			throw new IllegalArgumentException("Sheet index (" + sheetIndex + ") is out of range");
+		return open(sheet);
+	}
+
+	/**
+	 * Returns an iterator over the rows of the sheet with the name, skipping the rows with no cells.
+	 */
+	public Iterator<Row> rowIterator(String sheetName) throws IOException {
+		InputStream sheet = findSheet(sheetName::equals);
+		if (sheet == null)
+			throw new IllegalArgumentException("Sheet " + sheetName + " does not exist");
+		return open(sheet);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			for (SheetRowIterator iterator : new ArrayList<>(openIterators))
+				iterator.close();
+			scratch.dispose();
+			scratch.close();
+			pkg.revert();
+		} finally {
+			if (deleteOnClose)
+				file.delete();
+		}
+	}
+
+	// Returns the data of the first sheet, in workbook order, whose name is accepted, or null if there is none
+	private InputStream findSheet(Predicate<String> accept) throws IOException {
+		XSSFReader.SheetIterator sheets;
+		try {
+			sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+		} catch (OpenXML4JException e) {
+			throw new IOException("Could not read the sheets of the workbook", e);
+		}
+		// The sheet iterator of POI 3.16 returns every sheet twice for some workbooks
+		Set<PackagePartName> seen = new HashSet<>();
+		while (sheets.hasNext()) {
+			InputStream sheet = sheets.next();
+			if (seen.add(sheets.getSheetPart().getPartName()) && accept.test(sheets.getSheetName()))
+				return sheet;
+			sheet.close();
+		}
+		return null;
+	}
+
+	private SheetRowIterator open(InputStream sheet) throws IOException {
+		try {
+			SheetRowIterator iterator = new SheetRowIterator(sheet, xmlInputFactory.createXMLStreamReader(sheet));
+			openIterators.add(iterator);
+			return iterator;
+		} catch (XMLStreamException e) {
+			sheet.close();
+			throw new IOException("Could not parse sheet", e);
+		}
+	}
+
+	private CellStyle getScratchStyle(int styleIndex) {
+		return scratchStyles.computeIfAbsent(styleIndex, index -> {
+			XSSFCellStyle style = styles.getStyleAt(index);
+			CellStyle scratchStyle = scratch.createCellStyle();
+			if (style != null && style.getDataFormatString() != null)
+				scratchStyle.setDataFormat(scratch.createDataFormat().getFormat(style.getDataFormatString()));
+			return scratchStyle;
+		});
+	}
+
+	// Returns the zero based column index of a cell reference such as "AB12"
+	private static int columnIndex(String reference) {
+		int column = 0;
+		for (int i = 0; i < reference.length(); i++) {
+			char c = reference.charAt(i);
+			if (c < 'A' || c > 'Z')
+				break;
+			column = column * 26 + (c - 'A' + 1);
+		}
+		return column - 1;
+	}
+
+	private class SheetRowIterator implements Iterator<Row>, Closeable {
+		private final InputStream stream;
+		private final XMLStreamReader xml;
+		private final SXSSFSheet sheet = scratch.createSheet();
+		private SXSSFRow current;
+		private SXSSFRow next;
+		private boolean closed = false;
+
+		// State of the cell being parsed
+		private int column;
+		private String type;
+		private int styleIndex;
+		private String value;
+		private StringBuilder text = new StringBuilder();
+
+		SheetRowIterator(InputStream stream, XMLStreamReader xml) {
+			this.stream = stream;
+			this.xml = xml;
+		}
+
+		@Override
+		public boolean hasNext() {
+			if (next == null && !closed)
+				next = readRow();
+			return next != null;
+		}
+
+		@Override
+		public Row next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			current = next;
+			next = null;
+			return current;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed)
+				return;
+			closed = true;
+			openIterators.remove(this);
+			try {
+				xml.close();
+			} catch (XMLStreamException e) {
+				throw new IOException("Could not close sheet", e);
+			} finally {
+				stream.close();
+			}
+		}
+
+		private SXSSFRow readRow() {
+			try {
+				SXSSFRow row = null;
+				while (xml.hasNext()) {
+					int event = xml.next();
+					if (event == XMLStreamConstants.START_ELEMENT) {
+						switch (xml.getLocalName()) {
+							case "row":
+								row = newRow(xml.getAttributeValue(null, "r"));
+								break;
+							case "c":
+								startCell(row);
+								break;
+							case "v":
+							case "t":
+								text.setLength(0);
+								break;
+						}
+					} else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+						text.append(xml.getText());
+					} else if (event == XMLStreamConstants.END_ELEMENT) {
+						switch (xml.getLocalName()) {
+							case "v":
+							case "t":
+								value = (value == null) ? text.toString() : value + text;
+								break;
+							case "c":
+								endCell(row);
+								break;
+							case "row":
+								if (row.getPhysicalNumberOfCells() > 0)
+									return row;
+								sheet.removeRow(row);
+								break;
+						}
+					}
+				}
+				close();
+				return null;
+			} catch (XMLStreamException | IOException e) {
+				throw new IllegalStateException("Could not read sheet", e);
+			}
+		}
+
+		private SXSSFRow newRow(String reference) {
+			// Only the row being read is kept in the scratch sheet
+			if (current != null)
+				sheet.removeRow(current);
+			current = null;
+			int rowNum = (reference == null) ? sheet.getLastRowNum() + 1 : Integer.parseInt(reference) - 1;
+			return sheet.createRow(rowNum);
+		}
+
+		private void startCell(SXSSFRow row) {
+			String reference = xml.getAttributeValue(null, "r");
+			column = (reference == null) ? row.getLastCellNum() < 0 ? 0 : row.getLastCellNum() : columnIndex(reference);
+			type = xml.getAttributeValue(null, "t");
+			String style = xml.getAttributeValue(null, "s");
+			styleIndex = (style == null) ? -1 : Integer.parseInt(style);
+			value = null;
+		}
+
+		private void endCell(SXSSFRow row) {
+			Cell cell = row.createCell(column);
+			if (styleIndex >= 0)
+				cell.setCellStyle(getScratchStyle(styleIndex));
+			if (value == null)
+				return;
+			switch (type == null ? "n" : type) {
+				case "s":
+					cell.setCellValue(sharedStrings.getEntryAt(Integer.parseInt(value)));
+					break;
+				case "inlineStr":
+				case "str":
+					cell.setCellValue(value);
+					break;
+				case "b":
+					cell.setCellValue("1".equals(value));
+					break;
+				case "e":
+					cell.setCellErrorValue(FormulaError.forString(value).getCode());
+					break;
+				default:
+					cell.setCellValue(Double.parseDouble(value));
+			}
+		}
+	}
+}
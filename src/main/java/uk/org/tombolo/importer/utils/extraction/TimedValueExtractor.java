@@ -5,14 +5,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.org.tombolo.core.*;
 import uk.org.tombolo.core.utils.AttributeUtils;
-import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.core.utils.SubjectLabelIndex;
 import uk.org.tombolo.core.utils.TimedValueUtils;
 import uk.org.tombolo.importer.ParsingException;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 public class TimedValueExtractor {
     private static final Logger log = LoggerFactory.getLogger(TimedValueExtractor.class);
+    private static final Pattern NUMBER_IN_TEXT = Pattern.compile("[^\\d]+(-?\\d+\\.?\\d+)[^\\d]+");
 
     private Provider provider;
     private SubjectType subjectType;
@@ -21,6 +25,8 @@ public class TimedValueExtractor {
     private SingleValueExtractor timestampExtractor;
     private SingleValueExtractor valueExtractor;
 
+    private final Map<String, Attribute> attributesByLabel = new HashMap<>();
+
     public TimedValueExtractor(
             Provider provider,
             SubjectType subjectType,
@@ -37,10 +43,11 @@ public class TimedValueExtractor {
     }
 
     public TimedValue extract() throws ExtractorException {
-        Subject subject = SubjectUtils.getSubjectByTypeAndLabel(subjectType, subjectLabelExtractor.extract());
+        String subjectLabel = subjectLabelExtractor.extract();
+        Subject subject = SubjectLabelIndex.getSubject(subjectType, subjectLabel);
         if (subject == null)
-            throw new UnknownSubjectLabelException("Unknown subject: "+subjectLabelExtractor.extract()+"("+subjectType.getLabel()+")");
-        Attribute attribute = AttributeUtils.getByProviderAndLabel(provider, attributeLabelExtractor.extract());
+            throw new UnknownSubjectLabelException("Unknown subject: "+subjectLabel+"("+subjectType.getLabel()+")");
+        Attribute attribute = getAttribute(attributeLabelExtractor.extract());
         if (attribute == null)
             throw new ExtractorException("Unknown attribute: "+attributeLabelExtractor.extract());
         LocalDateTime timestamp;
@@ -51,7 +58,7 @@ public class TimedValueExtractor {
         }
         String valueString = valueExtractor.extract();
         // Parsing out proper numbers
-        valueString = valueString.replaceAll("[^\\d]+(-?\\d+\\.?\\d+)[^\\d]+", "$1");
+        valueString = NUMBER_IN_TEXT.matcher(valueString).replaceAll("$1");
         if (valueString.isEmpty()) {
             throw new ExtractorException("Unparsable number: " + valueExtractor.extract());
         }
@@ -61,6 +68,16 @@ public class TimedValueExtractor {
         return new TimedValue(subject, attribute, timestamp, value);
     }
 
+    private Attribute getAttribute(String label) {
+        Attribute attribute = attributesByLabel.get(label);
+        if (attribute == null) {
+            attribute = AttributeUtils.getByProviderAndLabel(provider, label);
+            if (attribute != null)
+                attributesByLabel.put(label, attribute);
+        }
+        return attribute;
+    }
+
     public SingleValueExtractor getSubjectLabelExtractor() {
         return subjectLabelExtractor;
     }
@@ -8,6 +8,8 @@ public class DataExportRecipe {
 	// FIXME: We could include a syntactic-sugar such as "cvs", and "geojson" and then map that to class-name
 	String exporter;
 	Boolean timeStamp;
+	// Number of threads evaluating the fields of the subjects concurrently
+	Integer workers;
 
 	public DatasetRecipe getDataset() {
 		return dataset;
@@ -28,4 +30,12 @@ public class DataExportRecipe {
 	public Boolean getTimeStamp() {
 		return timeStamp;
 	}
+
+	public Integer getWorkers() {
+		return workers;
+	}
+
+	public void setWorkers(Integer workers) {
+		this.workers = workers;
+	}
 }
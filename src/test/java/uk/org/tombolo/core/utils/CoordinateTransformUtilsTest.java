@@ -0,0 +1,37 @@
+package uk.org.tombolo.core.utils;
+
+import org.junit.Test;
+import org.opengis.referencing.operation.MathTransform;
+
+import static org.junit.Assert.*;
+
+public class CoordinateTransformUtilsTest {
+
+    @Test
+    public void testGetTransformIsShared() throws Exception {
+        MathTransform transform = CoordinateTransformUtils.getTransform("EPSG:27700", "EPSG:4326");
+
+        assertSame(transform, CoordinateTransformUtils.getTransform("EPSG:27700", "EPSG:4326"));
+        assertSame(CoordinateTransformUtils.getCrs("EPSG:27700"), CoordinateTransformUtils.getCrs("EPSG:27700"));
+        // Axis order is part of the key
+        assertNotSame(transform, CoordinateTransformUtils.getTransform("EPSG:27700", false, "EPSG:4326", true));
+    }
+
+    @Test
+    public void testTransformPackedCoordinates() throws Exception {
+        // Charing Cross and a point in Manchester
+        double[] coordinates = {530044d, 180380d, 383900d, 398200d};
+        CoordinateTransformUtils.transform(
+                CoordinateTransformUtils.getTransform("EPSG:27700", false, "EPSG:4326", true), coordinates);
+
+        assertEquals(-0.1276, coordinates[0], 0.01);
+        assertEquals(51.5073, coordinates[1], 0.01);
+        assertEquals(-2.243, coordinates[2], 0.01);
+        assertEquals(53.481, coordinates[3], 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTransformOddLength() throws Exception {
+        CoordinateTransformUtils.transform(CoordinateTransformUtils.getTransform("EPSG:27700", "EPSG:4326"), new double[3]);
+    }
+}
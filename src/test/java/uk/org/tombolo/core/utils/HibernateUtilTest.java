@@ -2,10 +2,23 @@ package uk.org.tombolo.core.utils;
 
 import org.hibernate.Session;
 import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.TestFactory;
+import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+import uk.org.tombolo.core.TimedValue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
-public class HibernateUtilTest {
+public class HibernateUtilTest extends AbstractTest {
 
     @Test
     public void testWithSessionFunctionProvidesSession() throws Exception {
@@ -41,4 +54,72 @@ public class HibernateUtilTest {
 
         assertTrue(flag[0]);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWithSessionSharesSessionWhenNested() throws Exception {
+        HibernateUtil.withSession((Session outer) -> {
+            HibernateUtil.withSession((Session inner) -> {
+                assertSame(outer, inner);
+            });
+        });
+    }
+
+    @Test
+    public void testWithSessionClosesSessionAfterUnitOfWork() throws Exception {
+        Session session = HibernateUtil.withSession(s -> { return s; });
+
+        assertFalse(session.isOpen());
+        assertNotSame(session, HibernateUtil.withSession(s -> { return s; }));
+    }
+
+    @Test
+    public void testWithStatelessSessionProvidesSession() throws Exception {
+        Long count = HibernateUtil.withStatelessSession(session -> {
+            return (Long) session.createQuery("select count(*) from Subject").uniqueResult();
+        });
+
+        assertEquals(0L, count.longValue());
+    }
+
+    @Test
+    public void testConcurrentSessionsDoNotInterfere() throws Exception {
+        int numThreads = 8;
+        int numValues = 200;
+        SubjectType subjectType = TestFactory.makeSubjectType(TestFactory.DEFAULT_PROVIDER, "stress", "Stress Test");
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<Session>> futures = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++) {
+            int thread = i;
+            futures.add(executor.submit(() -> {
+                // Every thread writes and reads back its own subject, attribute and values
+                Subject subject = TestFactory.makeSubject(subjectType, "subject" + thread, "Subject " + thread, TestFactory.FAKE_POINT_GEOMETRY);
+                Attribute attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attribute" + thread);
+                List<TimedValue> timedValues = new ArrayList<>();
+                for (int j = 0; j < numValues; j++) {
+                    timedValues.add(new TimedValue(subject, attribute, LocalDateTime.parse(TestFactory.TIMESTAMP).plusDays(j), (double) thread));
+                }
+                TimedValueUtils.save(timedValues);
+
+                List<TimedValue> savedValues = TimedValueUtils.getBySubjectAndAttribute(
+                        SubjectUtils.getSubjectByTypeAndLabel(subjectType, "subject" + thread),
+                        AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attribute" + thread));
+                assertEquals(numValues, savedValues.size());
+                for (TimedValue savedValue : savedValues) {
+                    assertEquals(subject.getId(), savedValue.getId().getSubject().getId());
+                    assertEquals((double) thread, savedValue.getValue(), 0.0);
+                }
+
+                return HibernateUtil.withSession(session -> { return session; });
+            }));
+        }
+        executor.shutdown();
+
+        List<Session> sessions = new ArrayList<>();
+        for (Future<Session> future : futures) {
+            Session session = future.get();
+            assertFalse("Each unit of work gets its own session", sessions.contains(session));
+            sessions.add(session);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package uk.org.tombolo.core.utils;
+
+import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.TestFactory;
+import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.SubjectType;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MetadataRegistryTest extends AbstractTest {
+
+    @Test
+    public void testSavedEntitiesAreFound() throws Exception {
+        Attribute attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+        SubjectType subjectType = TestFactory.makeSubjectType(TestFactory.DEFAULT_PROVIDER, "type_label", "Type");
+
+        assertEquals(attribute, AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attr_label"));
+        assertEquals(subjectType.getId(), SubjectTypeUtils.getSubjectTypeByProviderAndLabel(
+                TestFactory.DEFAULT_PROVIDER.getLabel(), "type_label").getId());
+        assertEquals("default_provider_name", ProviderUtils.getByLabel("default_provider_label").getName());
+    }
+
+    @Test
+    public void testClearedWithDatabase() throws Exception {
+        TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+        assertNotNull(AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attr_label"));
+
+        DatabaseUtils.clearAllData();
+        assertNull(AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attr_label"));
+    }
+
+    @Test
+    public void testFindsEntitiesAddedElsewhere() throws Exception {
+        // Load the registry before the attribute exists
+        assertNull(AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attr_label"));
+
+        HibernateUtil.withSession(session -> {
+            session.beginTransaction();
+            session.createNativeQuery("INSERT INTO attribute (id, provider_label, label, description) " +
+                    "VALUES (nextval('attribute_id_sequence'), 'default_provider_label', 'attr_label', 'Added elsewhere')")
+                    .executeUpdate();
+            session.getTransaction().commit();
+        });
+
+        assertEquals("Added elsewhere",
+                AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attr_label").getDescription());
+    }
+
+    @Test
+    public void testSaveExistingAttribute() throws Exception {
+        Attribute attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+        AttributeUtils.save(new Attribute(TestFactory.DEFAULT_PROVIDER, "attr_label", "New description"));
+
+        Attribute saved = AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "attr_label");
+        assertEquals(attribute.getId(), saved.getId());
+        assertEquals("New description", saved.getDescription());
+        assertEquals(1, countAttributes());
+    }
+
+    @Test
+    public void testGetOrCreate() throws Exception {
+        Attribute existing = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "existing");
+
+        Map<String, Attribute> attributes = AttributeUtils.getOrCreate(TestFactory.DEFAULT_PROVIDER,
+                Arrays.asList("existing", "new1", "new2"),
+                label -> new Attribute(TestFactory.DEFAULT_PROVIDER, label, "Created " + label));
+
+        assertEquals(Arrays.asList("existing", "new1", "new2"), Arrays.asList(attributes.keySet().toArray()));
+        assertEquals(existing, attributes.get("existing"));
+        assertNotNull(attributes.get("new1").getId());
+        assertEquals(attributes.get("new2"), AttributeUtils.getByProviderAndLabel(TestFactory.DEFAULT_PROVIDER, "new2"));
+        assertEquals(3, countAttributes());
+    }
+
+    private int countAttributes() {
+        return HibernateUtil.withSession(session -> {
+            return ((BigInteger) session.createNativeQuery("SELECT count(*) FROM attribute").uniqueResult()).intValue();
+        });
+    }
+}
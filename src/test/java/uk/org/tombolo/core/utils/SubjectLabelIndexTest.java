@@ -0,0 +1,57 @@
+package uk.org.tombolo.core.utils;
+
+import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.TestFactory;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SubjectLabelIndexTest extends AbstractTest {
+
+    @Test
+    public void testGetSubject() throws Exception {
+        Subject cityOfLondon = TestFactory.makeNamedSubject("E01000001");
+        TestFactory.makeNamedSubject("E09000001");
+        SubjectType lsoa = cityOfLondon.getSubjectType();
+
+        SubjectLabelIndex index = SubjectLabelIndex.forSubjectType(lsoa);
+        assertEquals(1, index.size());
+        assertEquals(cityOfLondon.getId(), index.getId("E01000001"));
+        // Subjects of other types are not in the index
+        assertNull(index.getId("E09000001"));
+
+        Subject reference = SubjectLabelIndex.getSubject(lsoa, "E01000001");
+        assertEquals(cityOfLondon, reference);
+        assertEquals("E01000001", reference.getLabel());
+        assertEquals(lsoa.getId(), reference.getSubjectType().getId());
+        assertNull(SubjectLabelIndex.getSubject(lsoa, "E01000002"));
+    }
+
+    @Test
+    public void testInvalidatedOnSave() throws Exception {
+        SubjectType lsoa = TestFactory.makeNamedSubjectType("lsoa");
+        assertNull(SubjectLabelIndex.getSubject(lsoa, "E01000001"));
+
+        Subject saved = TestFactory.makeNamedSubject("E01000001");
+        assertEquals(saved, SubjectLabelIndex.getSubject(lsoa, "E01000001"));
+
+        Subject bulkSaved = new Subject(lsoa, "E01000002", "City of London 001B", TestFactory.FAKE_POINT_GEOMETRY);
+        SubjectUtils.bulkSave(Collections.singletonList(bulkSaved));
+        assertEquals(bulkSaved, SubjectLabelIndex.getSubject(lsoa, "E01000002"));
+    }
+
+    @Test
+    public void testClearedWithDatabase() throws Exception {
+        TestFactory.makeNamedSubject("E01000001");
+        SubjectType lsoa = TestFactory.makeNamedSubjectType("lsoa");
+        assertNotNull(SubjectLabelIndex.getSubject(lsoa, "E01000001"));
+
+        DatabaseUtils.clearAllData();
+        lsoa = TestFactory.makeNamedSubjectType("lsoa");
+        assertNull(SubjectLabelIndex.getSubject(lsoa, "E01000001"));
+    }
+}
@@ -0,0 +1,64 @@
+package uk.org.tombolo.core.utils;
+
+import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.DataExportSpecificationBuilder;
+import uk.org.tombolo.SubjectSpecificationBuilder;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.importer.ons.AbstractONSImporter;
+import uk.org.tombolo.recipe.SubjectRecipe;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class SubjectSourceTest extends AbstractTest {
+
+	@Test
+	public void testIteratesSubjectsBySpecifications() throws Exception {
+		List<SubjectRecipe> recipes = makeRecipes();
+		List<Subject> expected = SubjectUtils.getSubjectBySpecifications(recipes);
+
+		// A fetch size of one makes the cursor go back to the database for every subject
+		try (SubjectSource source = new SubjectSource(recipes, 1)) {
+			assertEquals(expected, toList(source));
+			// Each iteration reads the subjects again
+			assertEquals(expected, toList(source));
+		}
+	}
+
+	@Test
+	public void testGetSubjectIdsBySpecifications() throws Exception {
+		List<SubjectRecipe> recipes = makeRecipes();
+
+		assertEquals(SubjectUtils.getSubjectBySpecifications(recipes).stream().map(Subject::getId).collect(Collectors.toList()),
+				SubjectUtils.getSubjectIdsBySpecifications(recipes));
+	}
+
+	@Test
+	public void testCloseBeforeEnd() throws Exception {
+		SubjectSource source = new SubjectSource(makeRecipes(), 1);
+		Iterator<Subject> iterator = source.iterator();
+		assertTrue(iterator.hasNext());
+		iterator.next();
+
+		source.close();
+		assertFalse(iterator.hasNext());
+	}
+
+	private List<SubjectRecipe> makeRecipes() {
+		return DataExportSpecificationBuilder.withCSVExporter()
+				.addSubjectSpecification(new SubjectSpecificationBuilder(AbstractONSImporter.PROVIDER.getLabel(), "localAuthority"))
+				.addSubjectSpecification(new SubjectSpecificationBuilder(AbstractONSImporter.PROVIDER.getLabel(), "msoa"))
+				.build().getDataset().getSubjects();
+	}
+
+	private List<Subject> toList(Iterable<Subject> subjects) {
+		List<Subject> list = new ArrayList<>();
+		subjects.forEach(list::add);
+		return list;
+	}
+}
@@ -66,6 +66,35 @@ public class SubjectUtilsTest extends AbstractTest {
 		assertEquals(geometry, testSubject.getShape());
 	}
 
+	@Test
+	public void testBulkSave(){
+		SubjectType testSubjectType = TestFactory.makeSubjectType(TestFactory.DEFAULT_PROVIDER, "awsomeSubjectType1", "Awasome Subject Type");
+		Geometry geometry = TestFactory.makePointGeometry(1d,1d);
+
+		Subject subject1 = new Subject(testSubjectType, "subject1", "Subject 1a", TestFactory.FAKE_POINT_GEOMETRY);
+		Subject subject2 = new Subject(testSubjectType, "subject2", "Subject\t2", null);
+
+		List<Integer> ids = SubjectUtils.bulkSave(Arrays.asList(subject1, subject2));
+		assertEquals(Arrays.asList(subject1.getId(), subject2.getId()), ids);
+		Subject testSubject = SubjectUtils.getSubjectByTypeAndLabel(testSubjectType, "subject1");
+		assertEquals(subject1.getId(), testSubject.getId());
+		assertEquals("Subject 1a", testSubject.getName());
+		assertEquals(TestFactory.FAKE_POINT_GEOMETRY, testSubject.getShape());
+		testSubject = SubjectUtils.getSubjectByTypeAndLabel(testSubjectType, "subject2");
+		assertEquals("Subject\t2", testSubject.getName());
+		assertNull(testSubject.getShape());
+
+		// Existing subjects keep their id and are updated, the last duplicate wins
+		Subject subject3 = new Subject(testSubjectType, "subject1", "Subject 1b", TestFactory.FAKE_POINT_GEOMETRY);
+		Subject subject4 = new Subject(testSubjectType, "subject1", "Subject 1c", geometry);
+		SubjectUtils.bulkSave(Arrays.asList(subject3, subject4));
+		assertEquals(subject1.getId(), subject3.getId());
+		assertEquals(subject1.getId(), subject4.getId());
+		testSubject = SubjectUtils.getSubjectByTypeAndLabel(testSubjectType, "subject1");
+		assertEquals("Subject 1c", testSubject.getName());
+		assertEquals(geometry, testSubject.getShape());
+	}
+
 	@Test
 	public void testGetSubjectByTypeAndLabel(){
 		Subject subject = SubjectUtils.getSubjectByTypeAndLabel(localAuthority, "E09000001");
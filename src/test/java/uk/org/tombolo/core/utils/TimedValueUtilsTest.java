@@ -12,6 +12,7 @@ import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.importer.ParsingException;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -66,4 +67,66 @@ public class TimedValueUtilsTest extends AbstractTest {
 		assertTrue("Contains value for attr1 with latest timestamp", results.contains(latest1));
 		assertTrue("Contains value for attr2 with latest timestamp", results.contains(latest2));
 	}
+
+	@Test
+	public void testBulkSave() {
+		Subject subject = TestFactory.makeNamedSubject("E01000001");
+		Attribute attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+		LocalDateTime timestamp = LocalDateTime.parse("2011-01-01T00:00");
+
+		int saved = TimedValueUtils.bulkSave(Arrays.asList(
+				new TimedValue(subject, attribute, timestamp, 100d),
+				new TimedValue(subject, attribute, timestamp.plusDays(1), 200d)));
+		assertEquals(2, saved);
+		assertEquals(2, TimedValueUtils.getBySubjectAndAttribute(subject, attribute).size());
+		assertEquals(200d, TimedValueUtils.getLatestBySubjectAndAttribute(subject, attribute).getValue(), 0.0);
+
+		// Existing values are updated and the last duplicate in the list wins
+		TimedValueUtils.bulkSave(Arrays.asList(
+				new TimedValue(subject, attribute, timestamp.plusDays(1), 300d),
+				new TimedValue(subject, attribute, timestamp.plusDays(1), 400d)));
+		assertEquals(2, TimedValueUtils.getBySubjectAndAttribute(subject, attribute).size());
+		assertEquals(400d, TimedValueUtils.getLatestBySubjectAndAttribute(subject, attribute).getValue(), 0.0);
+	}
+
+	@Test
+	public void testBulkSaveUnsavedSubject() {
+		Subject subject = new Subject(TestFactory.makeNamedSubjectType("lsoa"), "E01000001", "City of London 001A", TestFactory.FAKE_POINT_GEOMETRY);
+		Attribute attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("subject E01000001");
+		TimedValueUtils.bulkSave(Arrays.asList(
+				new TimedValue(subject, attribute, LocalDateTime.parse("2011-01-01T00:00"), 100d)));
+	}
+
+	@Test
+	public void testBulkSaveAgainstHibernateSave() {
+		// Both write paths store the same values; their relative cost is measured by TimedValueSaveBenchmark
+		Subject subject = TestFactory.makeNamedSubject("E01000001");
+		Attribute hibernateAttribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "hibernate_label");
+		Attribute copyAttribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "copy_label");
+
+		List<TimedValue> hibernateValues = new ArrayList<>();
+		List<TimedValue> copyValues = new ArrayList<>();
+		LocalDateTime timestamp = LocalDateTime.parse("2011-01-01T00:00");
+		for (int i = 0; i < 10; i++) {
+			hibernateValues.add(new TimedValue(subject, hibernateAttribute, timestamp.plusHours(i), i * 1.5d));
+			copyValues.add(new TimedValue(subject, copyAttribute, timestamp.plusHours(i), i * 1.5d));
+		}
+		TimedValueUtils.save(hibernateValues);
+		TimedValueUtils.bulkSave(copyValues);
+
+		List<TimedValue> savedWithHibernate = TimedValueUtils.getBySubjectAndAttribute(subject, hibernateAttribute);
+		List<TimedValue> savedWithCopy = TimedValueUtils.getBySubjectAndAttribute(subject, copyAttribute);
+		assertEquals(10, savedWithCopy.size());
+		assertEquals(toTimestampValues(savedWithHibernate), toTimestampValues(savedWithCopy));
+	}
+
+	private static Map<LocalDateTime, Double> toTimestampValues(List<TimedValue> timedValues) {
+		Map<LocalDateTime, Double> timestampValues = new HashMap<>();
+		for (TimedValue timedValue : timedValues)
+			timestampValues.put(timedValue.getId().getTimestamp(), timedValue.getValue());
+		return timestampValues;
+	}
 }
@@ -29,4 +29,51 @@ public class FieldCacheTest extends AbstractTest {
         assertEquals("testvalue2", fieldCache.getChachedValue(field, subject));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void getCachedDouble() throws Exception {
+        Field field = FieldBuilder.constantField("mylabel", "myvalue").build().toField();
+        Subject subject = TestFactory.makeNamedSubject("E01000001");
+
+        assertNull(fieldCache.getCachedDouble(field, subject));
+        fieldCache.putCachedDouble(field, subject, 1.5d);
+        assertEquals(1.5d, fieldCache.getCachedDouble(field, subject), 0.0d);
+
+        // Numeric and string values are cached separately
+        assertNull(fieldCache.getChachedValue(field, subject));
+
+        assertEquals(1, fieldCache.getHits());
+        assertEquals(2, fieldCache.getMisses());
+    }
+
+    @Test
+    public void fieldsAreToldApartByIdentity() throws Exception {
+        // Same recipe and label, but two different field instances
+        Field field1 = FieldBuilder.constantField("mylabel", "myvalue").build().toField();
+        Field field2 = FieldBuilder.constantField("mylabel", "myvalue").build().toField();
+        Subject subject = TestFactory.makeNamedSubject("E01000001");
+
+        fieldCache.putCachedValue(field1, subject, "value1");
+        assertEquals("value1", fieldCache.getChachedValue(field1, subject));
+        assertNull(fieldCache.getChachedValue(field2, subject));
+    }
+
+    @Test
+    public void evictsWhenOverBudget() throws Exception {
+        // Room for a few hundred numeric values
+        FieldCache smallCache = new FieldCache(16 * 1024);
+        Field field = FieldBuilder.constantField("mylabel", "myvalue").build().toField();
+        Subject subject = new Subject();
+        for (int i = 0; i < 10000; i++) {
+            subject.setId(i);
+            smallCache.putCachedDouble(field, subject, i);
+        }
+
+        assertTrue(smallCache.getEvictions() > 0);
+        assertTrue(smallCache.getSize() < 1000);
+        assertEquals(10000, smallCache.getSize() + smallCache.getEvictions());
+
+        // The latest values are still there
+        subject.setId(9999);
+        assertEquals(9999d, smallCache.getCachedDouble(field, subject), 0.0d);
+    }
+}
@@ -0,0 +1,116 @@
+package uk.org.tombolo.execution;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.TestFactory;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.SubjectType;
+import uk.org.tombolo.core.utils.SubjectUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SpatialJoinServiceTest extends AbstractTest {
+    SubjectType squareType;
+    SubjectType pointType;
+    Subject bigSquare;
+    Subject smallSquare;
+    Subject insidePoint;
+    Subject outsidePoint;
+
+    @Before
+    public void setUp() {
+        squareType = TestFactory.makeSubjectType(TestFactory.DEFAULT_PROVIDER, "square", "Square");
+        pointType = TestFactory.makeSubjectType(TestFactory.DEFAULT_PROVIDER, "point", "Point");
+        bigSquare = TestFactory.makeSubject(squareType, "big", "Big square", TestFactory.makeSquareGeometry(0d, 0d, 10d));
+        smallSquare = TestFactory.makeSubject(squareType, "small", "Small square", TestFactory.makeSquareGeometry(8d, 8d, 4d));
+        insidePoint = TestFactory.makeSubject(pointType, "inside", "Inside", TestFactory.makePointGeometry(1d, 1d));
+        outsidePoint = TestFactory.makeSubject(pointType, "outside", "Outside", TestFactory.makePointGeometry(20d, 20d));
+    }
+
+    @Test
+    public void testSubjectsContainingSubject() throws Exception {
+        SpatialJoinService service = new SpatialJoinService();
+
+        assertEquals(Collections.singletonList(bigSquare), service.subjectsContainingSubject(squareType, insidePoint));
+        assertEquals(Collections.emptyList(), service.subjectsContainingSubject(squareType, outsidePoint));
+    }
+
+    @Test
+    public void testSubjectsWithinSubject() throws Exception {
+        SpatialJoinService service = new SpatialJoinService();
+
+        assertEquals(Collections.singletonList(insidePoint), service.subjectsWithinSubject(pointType, bigSquare));
+        assertEquals(Collections.emptyList(), service.subjectsWithinSubject(pointType, smallSquare));
+    }
+
+    @Test
+    public void testSubjectsIntersectingSubject() throws Exception {
+        SpatialJoinService service = new SpatialJoinService();
+
+        assertEquals(Arrays.asList(bigSquare, smallSquare), service.subjectsIntersectingSubject(squareType, smallSquare));
+    }
+
+    @Test
+    public void testMatchesDatabase() throws Exception {
+        SpatialJoinService service = new SpatialJoinService();
+        // No memory budget at all, so every lookup goes to the database
+        SpatialJoinService databaseService = new SpatialJoinService(0);
+
+        for (Subject subject : Arrays.asList(bigSquare, smallSquare, insidePoint, outsidePoint)) {
+            assertEquals(sorted(databaseService.subjectsContainingSubject(squareType, subject)),
+                    service.subjectsContainingSubject(squareType, subject));
+            assertEquals(sorted(databaseService.subjectsWithinSubject(pointType, subject)),
+                    service.subjectsWithinSubject(pointType, subject));
+            assertEquals(sorted(databaseService.subjectsIntersectingSubject(squareType, subject)),
+                    service.subjectsIntersectingSubject(squareType, subject));
+        }
+    }
+
+    @Test
+    public void testSubjectsNearestSubject() throws Exception {
+        SpatialJoinService service = new SpatialJoinService();
+        Subject nearPoint = TestFactory.makeSubject(pointType, "near", "Near", TestFactory.makePointGeometry(2d, 2d));
+
+        assertEquals(insidePoint, service.subjectNearestSubject(pointType, bigSquare, 0.01d));
+        assertEquals(Arrays.asList(insidePoint, nearPoint), service.subjectsNearestSubject(pointType, bigSquare, 5d, 3));
+        assertEquals(Arrays.asList(insidePoint, nearPoint, outsidePoint), service.subjectsNearestSubject(pointType, bigSquare, null, 3));
+        assertEquals(Collections.singletonList(outsidePoint), service.subjectsNearestSubject(pointType,
+                TestFactory.makeSubject(squareType, "far", "Far", TestFactory.makeSquareGeometry(100d, 100d, 1d)), null, 1));
+        assertNull(service.subjectNearestSubject(pointType, smallSquare, 0.01d));
+    }
+
+    @Test
+    public void testSubjectsNearestSubjectMatchesDatabase() throws Exception {
+        // Relative cost of the two paths is measured by SpatialJoinBenchmark
+        Random random = new Random(42);
+        SubjectType syntheticType = TestFactory.makeSubjectType(TestFactory.DEFAULT_PROVIDER, "synthetic", "Synthetic points");
+        List<Subject> points = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            points.add(new Subject(syntheticType, "point" + i, "Point " + i, TestFactory.makePointGeometry(random.nextDouble(), random.nextDouble())));
+        SubjectUtils.bulkSave(points);
+
+        SpatialJoinService service = new SpatialJoinService();
+        // No memory budget at all, so every lookup goes to PostGIS
+        SpatialJoinService databaseService = new SpatialJoinService(0);
+        for (int i = 0; i < 20; i++) {
+            Subject lookup = new Subject(pointType, "lookup" + i, "Lookup " + i, TestFactory.makePointGeometry(random.nextDouble(), random.nextDouble()));
+            assertEquals(databaseService.subjectsNearestSubject(syntheticType, lookup, 0.1d, 3),
+                    service.subjectsNearestSubject(syntheticType, lookup, 0.1d, 3));
+            assertEquals(databaseService.subjectsNearestSubject(syntheticType, lookup, null, 3),
+                    service.subjectsNearestSubject(syntheticType, lookup, null, 3));
+        }
+    }
+
+    private List<Subject> sorted(List<Subject> subjects) {
+        subjects.sort((subject1, subject2) -> subject1.getId().compareTo(subject2.getId()));
+        return subjects;
+    }
+}
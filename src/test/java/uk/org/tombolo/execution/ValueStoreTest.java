@@ -0,0 +1,85 @@
+package uk.org.tombolo.execution;
+
+import org.junit.Before;
+import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.TestFactory;
+import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.TimedValue;
+import uk.org.tombolo.field.value.LatestValueField;
+import uk.org.tombolo.recipe.AttributeMatcher;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ValueStoreTest extends AbstractTest {
+    Subject cityOfLondon;
+    Subject islington;
+    Subject barking;
+    Attribute attribute;
+    Attribute fixedAttribute;
+
+    @Before
+    public void setUp() {
+        cityOfLondon = TestFactory.makeNamedSubject("E09000001");
+        islington = TestFactory.makeNamedSubject("E09000019");
+        barking = TestFactory.makeNamedSubject("E09000002");
+        attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+        fixedAttribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "fixed_attr_label");
+
+        TestFactory.makeTimedValue(cityOfLondon.getSubjectType(), "E09000001", attribute, "2011-01-01T00:00:00", 100d);
+        TestFactory.makeTimedValue(cityOfLondon.getSubjectType(), "E09000001", attribute, "2013-01-01T00:00:00", 300d);
+        TestFactory.makeTimedValue(cityOfLondon.getSubjectType(), "E09000001", attribute, "2012-01-01T00:00:00", 200d);
+        TestFactory.makeTimedValue(barking.getSubjectType(), "E09000002", attribute, "2011-01-01T00:00:00", 10d);
+        TestFactory.makeFixedValue(cityOfLondon.getSubjectType(), "E09000001", fixedAttribute, "fixed");
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        ValueStore valueStore = ValueStore.load(Arrays.asList(cityOfLondon, islington), Arrays.asList(attribute, fixedAttribute));
+
+        List<TimedValue> timedValues = valueStore.getTimedValues(cityOfLondon, attribute);
+        assertEquals(3, timedValues.size());
+        assertEquals(LocalDateTime.parse("2011-01-01T00:00:00"), timedValues.get(0).getId().getTimestamp());
+        assertEquals(200d, timedValues.get(1).getValue(), 0.0d);
+        assertEquals(LocalDateTime.parse("2013-01-01T00:00:00"), timedValues.get(2).getId().getTimestamp());
+
+        TimedValue latest = valueStore.getLatestTimedValue(cityOfLondon, attribute);
+        assertEquals(300d, latest.getValue(), 0.0d);
+        assertEquals(cityOfLondon, latest.getId().getSubject());
+
+        assertEquals("fixed", valueStore.getFixedValue(cityOfLondon, fixedAttribute).getValue());
+        assertNull(valueStore.getFixedValue(cityOfLondon, attribute));
+    }
+
+    @Test
+    public void testCovers() throws Exception {
+        ValueStore valueStore = ValueStore.load(Arrays.asList(cityOfLondon, islington), Collections.singletonList(attribute));
+
+        assertTrue(valueStore.covers(cityOfLondon, attribute));
+        // Loaded subject without values
+        assertTrue(valueStore.covers(islington, attribute));
+        assertTrue(valueStore.getTimedValues(islington, attribute).isEmpty());
+        assertNull(valueStore.getLatestTimedValue(islington, attribute));
+        // Values of subjects and attributes outside the store have not been loaded
+        assertFalse(valueStore.covers(barking, attribute));
+        assertFalse(valueStore.covers(cityOfLondon, fixedAttribute));
+    }
+
+    @Test
+    public void testFieldReadsFromValueStore() throws Exception {
+        EvaluationContext context = new EvaluationContext(new FieldCache(), null);
+        context.setValueStore(ValueStore.load(Collections.singletonList(cityOfLondon), Collections.singletonList(attribute)));
+        LatestValueField field = new LatestValueField("attr_label", new AttributeMatcher("default_provider_label", "attr_label", null));
+        field.setEvaluationContext(context);
+
+        assertEquals("300.0", field.valueForSubject(cityOfLondon, null));
+        // Subjects outside the store fall back to the database
+        assertEquals("10.0", field.valueForSubject(barking, null));
+    }
+}
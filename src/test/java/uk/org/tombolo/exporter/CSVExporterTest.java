@@ -6,18 +6,24 @@ import org.apache.commons.csv.CSVRecord;
 import org.junit.Before;
 import org.junit.Test;
 import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.FieldBuilder;
 import uk.org.tombolo.TestFactory;
 import uk.org.tombolo.core.Attribute;
 import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.SubjectType;
 import uk.org.tombolo.core.utils.SubjectUtils;
+import uk.org.tombolo.field.IncomputableFieldException;
+import uk.org.tombolo.field.ParentField;
+import uk.org.tombolo.field.SingleValueField;
 import uk.org.tombolo.recipe.AttributeMatcher;
 import uk.org.tombolo.field.Field;
+import uk.org.tombolo.field.value.ConstantField;
 import uk.org.tombolo.field.value.LatestValueField;
 
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -51,6 +57,85 @@ public class CSVExporterTest extends AbstractTest {
 		assertEquals(4, record.size());
 	}
 
+	@Test
+	public void testWriteWithWorkers() throws Exception {
+		Attribute attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+		SubjectType localAuthority = TestFactory.makeNamedSubjectType("localAuthority");
+		List<Subject> subjects = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Subject subject = TestFactory.makeSubject(localAuthority, "E0" + i, "Subject " + i,
+					TestFactory.makePointGeometry((double) i, 0d));
+			TestFactory.makeTimedValue(localAuthority, subject.getLabel(), attribute, TestFactory.TIMESTAMP, (double) i);
+			subjects.add(subject);
+		}
+
+		Writer sequentialWriter = new StringWriter();
+		exporter.write(sequentialWriter, subjects, makeFields("default_provider_label", "attr_label"), false);
+
+		CSVExporter parallelExporter = new CSVExporter();
+		parallelExporter.setWorkers(4);
+		Writer parallelWriter = new StringWriter();
+		parallelExporter.write(parallelWriter, subjects, makeFields("default_provider_label", "attr_label"), false);
+
+		assertEquals(sequentialWriter.toString(), parallelWriter.toString());
+		List<CSVRecord> records = getRecords(parallelWriter.toString());
+		assertEquals(50, records.size());
+		for (int i = 0; i < 50; i++) {
+			assertEquals("E0" + i, records.get(i).get("label"));
+			assertEquals(String.valueOf((double) i), records.get(i).get("attr_label"));
+		}
+	}
+
+	@Test
+	public void testWriteWithWorkersInitialisesFieldsFirst() throws Exception {
+		List<Subject> subjects = new ArrayList<>();
+		for (int i = 0; i < 20; i++)
+			subjects.add(TestFactory.makeSubject(testSubject.getSubjectType(), "E0" + i, "Subject " + i,
+					TestFactory.makePointGeometry((double) i, 0d)));
+
+		LazyParentField field = new LazyParentField();
+		exporter.setWorkers(4);
+		Writer writer = new StringWriter();
+		exporter.write(writer, subjects, Collections.singletonList(field), false);
+
+		assertEquals(Thread.currentThread(), field.initialisingThread);
+		assertEquals(1, field.initialisations);
+		List<CSVRecord> records = getRecords(writer.toString());
+		assertEquals(20, records.size());
+		assertEquals("child_value", records.get(19).get("lazy"));
+	}
+
+	@Test
+	public void testWriteWithWorkersResolvesAttributesConcurrently() throws Exception {
+		Attribute dividend = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "dividend_label");
+		Attribute divisor = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "divisor_label");
+		SubjectType localAuthority = TestFactory.makeNamedSubjectType("localAuthority");
+		List<Subject> subjects = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			Subject subject = TestFactory.makeSubject(localAuthority, "E0" + i, "Subject " + i,
+					TestFactory.makePointGeometry((double) i, 0d));
+			TestFactory.makeTimedValue(localAuthority, subject.getLabel(), dividend, TestFactory.TIMESTAMP, (double) i);
+			TestFactory.makeTimedValue(localAuthority, subject.getLabel(), divisor, TestFactory.TIMESTAMP, 100d);
+			subjects.add(subject);
+		}
+
+		// Built from the recipe, so the field starts without its attribute cache as in an export
+		Field field = FieldBuilder.fractionOfTotal("fraction")
+				.addDividendAttribute("default_provider_label", "dividend_label")
+				.setDivisorAttribute("default_provider_label", "divisor_label")
+				.build().toField();
+		exporter.setWorkers(8);
+		Writer writer = new StringWriter();
+		exporter.write(writer, subjects, Collections.singletonList(field), false);
+
+		List<CSVRecord> records = getRecords(writer.toString());
+		assertEquals(50, records.size());
+		for (int i = 0; i < 50; i++) {
+			assertEquals("E0" + i, records.get(i).get("label"));
+			assertEquals(String.valueOf(i / 100d), records.get(i).get("fraction"));
+		}
+	}
+
 	@Test
 	public void testGetColumnNames() throws Exception {
 		List<String> attributes = exporter.getColumnNames(makeFields("uk.gov.london", "populationDensity"));
@@ -75,4 +160,36 @@ public class CSVExporterTest extends AbstractTest {
 		CSVParser parser = CSVParser.parse(csvString, CSVFormat.DEFAULT.withHeader());
 		return parser.getRecords();
 	}
-}
\ No newline at end of file
+
+	// A parent field initialising its child lazily, the way the recipe fields do
+	private static class LazyParentField extends ConstantField implements ParentField {
+		private Field child;
+		private Thread initialisingThread;
+		private int initialisations;
+
+		private LazyParentField() {
+			super("lazy", null);
+		}
+
+		@Override
+		public String valueForSubject(Subject subject, Boolean timeStamp) {
+			if (child == null)
+				throw new IllegalStateException("Evaluated before initialisation");
+			try {
+				return ((SingleValueField) child).valueForSubject(subject, timeStamp);
+			} catch (IncomputableFieldException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public List<Field> getChildFields() {
+			if (child == null) {
+				child = new ConstantField("child", "child_value");
+				initialisingThread = Thread.currentThread();
+				initialisations++;
+			}
+			return Collections.singletonList(child);
+		}
+	}
+}
@@ -10,6 +10,7 @@ import org.skyscreamer.jsonassert.JSONAssert;
 import uk.org.tombolo.AbstractTest;
 import uk.org.tombolo.TestFactory;
 import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.Subject;
 import uk.org.tombolo.core.SubjectType;
 import uk.org.tombolo.core.utils.SubjectUtils;
 import uk.org.tombolo.recipe.AttributeMatcher;
@@ -18,8 +19,10 @@ import uk.org.tombolo.field.value.TimeseriesField;
 
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -78,6 +81,44 @@ public class GeoJsonExporterTest extends AbstractTest {
 				"}", writer.toString(), false);
 	}
 
+	@Test
+	public void testWriteWithWorkers() throws Exception {
+		List<Subject> subjects = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			subjects.add(TestFactory.makeSubject(localAuthority, "E0" + i, "Subject " + i,
+					TestFactory.makePointGeometry((double) i, 0d)));
+		}
+
+		exporter.setWorkers(3);
+		Writer writer = new StringWriter();
+		exporter.write(writer, subjects, Arrays.asList(new ConstantField("some_label", "some_value")), false);
+
+		JSONArray features = (JSONArray) ((JSONObject) new JSONParser().parse(writer.toString())).get("features");
+		assertEquals(30, features.size());
+		for (int i = 0; i < 30; i++) {
+			JSONObject properties = (JSONObject) ((JSONObject) features.get(i)).get("properties");
+			assertEquals("E0" + i, properties.get("label"));
+			assertEquals("some_value", properties.get("some_label"));
+		}
+	}
+
+	@Test
+	public void testWriteWithCollidingLabels() throws Exception {
+		Writer writer = new StringWriter();
+		exporter.write(writer,
+				Arrays.asList(SubjectUtils.getSubjectByTypeAndLabel(localAuthority, "E09000001")),
+				Arrays.asList(new ConstantField("some_label", "first_value"), new ConstantField("name", "Field name"),
+						new ConstantField("some_label", "last_value")), false);
+
+		// Every property is written once, with the last value
+		assertEquals(1, writer.toString().split("\"some_label\"", -1).length - 1);
+		assertEquals(1, writer.toString().split("\"name\"", -1).length - 1);
+		JSONObject properties = (JSONObject) ((JSONObject) ((JSONArray) ((JSONObject) new JSONParser()
+				.parse(writer.toString())).get("features")).get(0)).get("properties");
+		assertEquals("last_value", properties.get("some_label"));
+		assertEquals("Field name", properties.get("name"));
+	}
+
 	private String getFirstFeatureLabel(String jsonString) throws ParseException {
 		JSONParser parser = new JSONParser();
 		JSONObject root = (JSONObject) parser.parse(jsonString);
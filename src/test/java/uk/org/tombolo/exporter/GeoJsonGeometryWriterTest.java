@@ -0,0 +1,82 @@
+package uk.org.tombolo.exporter;
+
+import com.google.gson.stream.JsonWriter;
+import com.vividsolutions.jts.geom.Geometry;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.io.WKTReader;
+import org.junit.Test;
+import uk.org.tombolo.core.Subject;
+
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class GeoJsonGeometryWriterTest {
+	private static final WKTReader wktReader = new WKTReader(new GeometryFactory(new PrecisionModel(), Subject.SRID));
+
+	@Test
+	public void testPoint() throws Exception {
+		assertEquals("{\"type\":\"Point\",\"coordinates\":[-0.1276,51.5073]}",
+				write(4, "POINT (-0.12763712 51.50732189)"));
+	}
+
+	@Test
+	public void testFullPrecision() throws Exception {
+		assertEquals("{\"type\":\"Point\",\"coordinates\":[-0.12763712,51.50732189]}",
+				write(-1, "POINT (-0.12763712 51.50732189)"));
+	}
+
+	@Test
+	public void testLineString() throws Exception {
+		assertEquals("{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[1.25,2.0]]}",
+				write(2, "LINESTRING (0 0, 1.249 2.001)"));
+	}
+
+	@Test
+	public void testLinearRing() throws Exception {
+		assertEquals("{\"type\":\"LineString\",\"coordinates\":[[0.0,0.0],[1.0,0.0],[1.0,1.0],[0.0,0.0]]}",
+				write(4, "LINEARRING (0 0, 1 0, 1 1, 0 0)"));
+	}
+
+	@Test
+	public void testPolygonWithHole() throws Exception {
+		assertEquals("{\"type\":\"Polygon\",\"coordinates\":["
+						+ "[[0.0,0.0],[10.0,0.0],[10.0,10.0],[0.0,10.0],[0.0,0.0]],"
+						+ "[[2.0,2.0],[2.0,3.0],[3.0,3.0],[2.0,2.0]]]}",
+				write(4, "POLYGON ((0 0, 10 0, 10 10, 0 10, 0 0), (2 2, 2 3, 3 3, 2 2))"));
+	}
+
+	@Test
+	public void testMultiPolygon() throws Exception {
+		assertEquals("{\"type\":\"MultiPolygon\",\"coordinates\":["
+						+ "[[[0.0,0.0],[1.0,0.0],[1.0,1.0],[0.0,0.0]]],"
+						+ "[[[5.0,5.0],[6.0,5.0],[6.0,6.0],[5.0,5.0]]]]}",
+				write(4, "MULTIPOLYGON (((0 0, 1 0, 1 1, 0 0)), ((5 5, 6 5, 6 6, 5 5)))"));
+	}
+
+	@Test
+	public void testGeometryCollection() throws Exception {
+		assertEquals("{\"type\":\"GeometryCollection\",\"geometries\":["
+						+ "{\"type\":\"Point\",\"coordinates\":[1.0,2.0]},"
+						+ "{\"type\":\"MultiPoint\",\"coordinates\":[[3.0,4.0],[5.0,6.0]]}]}",
+				write(4, "GEOMETRYCOLLECTION (POINT (1 2), MULTIPOINT ((3 4), (5 6)))"));
+	}
+
+	@Test
+	public void testNullGeometry() throws Exception {
+		StringWriter writer = new StringWriter();
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		jsonWriter.beginArray();
+		new GeoJsonGeometryWriter(4).write(jsonWriter, null);
+		jsonWriter.endArray();
+		assertEquals("[null]", writer.toString());
+	}
+
+	private static String write(int decimals, String wkt) throws Exception {
+		Geometry geometry = wktReader.read(wkt);
+		StringWriter writer = new StringWriter();
+		new GeoJsonGeometryWriter(decimals).write(new JsonWriter(writer), geometry);
+		return writer.toString();
+	}
+}
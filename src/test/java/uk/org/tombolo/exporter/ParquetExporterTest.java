@@ -0,0 +1,189 @@
+package uk.org.tombolo.exporter;
+
+import com.vividsolutions.jts.geom.Coordinate;
+import com.vividsolutions.jts.geom.GeometryFactory;
+import com.vividsolutions.jts.geom.PrecisionModel;
+import com.vividsolutions.jts.io.WKBReader;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.ParquetReader;
+import org.apache.parquet.hadoop.example.GroupReadSupport;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.execution.EvaluationContext;
+import uk.org.tombolo.field.Field;
+import uk.org.tombolo.field.IncomputableFieldException;
+import uk.org.tombolo.field.NumericField;
+import uk.org.tombolo.field.value.ConstantField;
+import uk.org.tombolo.field.value.SubjectLatitudeField;
+import uk.org.tombolo.field.value.SubjectLongitudeField;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParquetExporterTest {
+	private static final GeometryFactory geometryFactory = new GeometryFactory(new PrecisionModel(), Subject.SRID);
+
+	ParquetExporter exporter = new ParquetExporter();
+	File file;
+
+	@Before
+	public void before() throws Exception {
+		file = File.createTempFile("parquet-exporter-test", ".parquet");
+	}
+
+	@After
+	public void after() {
+		file.delete();
+	}
+
+	@Test
+	public void testWrite() throws Exception {
+		write(makeSubjects(3), Arrays.asList(
+				new ConstantField("some_label", "some_value"),
+				new SubjectLatitudeField("some_number"),
+				new JsonField("some_object"),
+				new ConstantField("some_code", "01234")));
+
+		MessageType schema = readMetadata().getSchema();
+		assertEquals(Arrays.asList("label", "name", "geometry", "some_label", "some_number", "some_object", "some_code"),
+				Arrays.asList(schema.getFieldName(0), schema.getFieldName(1), schema.getFieldName(2),
+						schema.getFieldName(3), schema.getFieldName(4), schema.getFieldName(5), schema.getFieldName(6)));
+		assertEquals(OriginalType.UTF8, schema.getType("some_label").getOriginalType());
+		assertEquals(PrimitiveTypeName.DOUBLE, schema.getType("some_number").asPrimitiveType().getPrimitiveTypeName());
+		// Only numeric fields have double columns, whatever their values look like
+		assertEquals(OriginalType.UTF8, schema.getType("some_code").getOriginalType());
+		assertEquals(PrimitiveTypeName.BINARY, schema.getType("geometry").asPrimitiveType().getPrimitiveTypeName());
+		assertEquals(OriginalType.UTF8, schema.getType("some_object").getOriginalType());
+
+		List<Group> rows = readRows();
+		assertEquals(3, rows.size());
+		for (int i = 0; i < 3; i++) {
+			Group row = rows.get(i);
+			assertEquals("E0" + i, row.getString("label", 0));
+			assertEquals("Subject " + i, row.getString("name", 0));
+			assertEquals("some_value", row.getString("some_label", 0));
+			assertEquals(51.5d, row.getDouble("some_number", 0), 0d);
+			assertEquals("{\"value\":1}", row.getString("some_object", 0));
+			assertEquals("01234", row.getString("some_code", 0));
+			assertEquals(geometryFactory.createPoint(new Coordinate(i, 51.5)),
+					new WKBReader(geometryFactory).read(row.getBinary("geometry", 0).getBytes()));
+		}
+	}
+
+	@Test
+	public void testWriteGeoParquetMetadata() throws Exception {
+		write(makeSubjects(1), new ArrayList<>());
+
+		String geo = readMetadata().getKeyValueMetaData().get("geo");
+		assertTrue(geo.contains("\"primary_column\":\"geometry\""));
+		assertTrue(geo.contains("\"encoding\":\"WKB\""));
+	}
+
+	@Test
+	public void testWriteWithWorkers() throws Exception {
+		exporter.setWorkers(3);
+		write(makeSubjects(1500), Arrays.asList(new SubjectLongitudeField("some_number")));
+
+		List<Group> rows = readRows();
+		assertEquals(1500, rows.size());
+		for (int i = 0; i < 1500; i++) {
+			assertEquals("E0" + i, rows.get(i).getString("label", 0));
+			assertEquals((double) i, rows.get(i).getDouble("some_number", 0), 0d);
+		}
+	}
+
+	@Test
+	public void testWriteIncomputableValues() throws Exception {
+		write(makeSubjects(2), Arrays.asList(new JsonField(null)));
+
+		List<Group> rows = readRows();
+		assertEquals(0, rows.get(0).getFieldRepetitionCount("incomputable"));
+		assertEquals(0, rows.get(1).getFieldRepetitionCount("incomputable"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testWriteNonNumericValueOfNumericField() throws Exception {
+		write(makeSubjects(1), Arrays.asList(new NotANumberField()));
+	}
+
+	private void write(List<Subject> subjects, List<Field> fields) throws Exception {
+		try (OutputStream outputStream = new FileOutputStream(file)) {
+			exporter.write(outputStream, subjects, fields, false);
+		}
+	}
+
+	private FileMetaData readMetadata() throws Exception {
+		return ParquetFileReader.readFooter(new Configuration(), new Path(file.toURI())).getFileMetaData();
+	}
+
+	private List<Group> readRows() throws Exception {
+		List<Group> rows = new ArrayList<>();
+		try (ParquetReader<Group> reader = ParquetReader.builder(new GroupReadSupport(), new Path(file.toURI())).build()) {
+			Group row;
+			while ((row = reader.read()) != null)
+				rows.add(row);
+		}
+		return rows;
+	}
+
+	private static List<Subject> makeSubjects(int count) {
+		List<Subject> subjects = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			subjects.add(new Subject(null, "E0" + i, "Subject " + i,
+					geometryFactory.createPoint(new Coordinate(i, 51.5))));
+		}
+		return subjects;
+	}
+
+	// A numeric field returning a value that is not a number
+	private static class NotANumberField extends ConstantField implements NumericField {
+		private NotANumberField() {
+			super("not_a_number", "N/A");
+		}
+	}
+
+	// A field that can only return JSON, or that cannot be computed when it has no label
+	private static class JsonField implements Field {
+		private final String label;
+
+		private JsonField(String label) {
+			this.label = label;
+		}
+
+		@Override
+		public JSONObject jsonValueForSubject(Subject subject, Boolean timeStamp) throws IncomputableFieldException {
+			if (label == null)
+				throw new IncomputableFieldException("No value");
+			JSONObject value = new JSONObject();
+			value.put("value", 1);
+			JSONObject object = new JSONObject();
+			object.put(label, value);
+			return object;
+		}
+
+		@Override
+		public String getLabel() {
+			return label == null ? "incomputable" : label;
+		}
+
+		@Override
+		public void setEvaluationContext(EvaluationContext context) {
+		}
+	}
+}
@@ -0,0 +1,220 @@
+package uk.org.tombolo.importer;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DownloadCacheTest {
+    private static final String PREFIX = "uk.gov.test";
+
+    private HttpServer server;
+    // Contents and ETags served for each path
+    private Map<String, byte[]> contents = new ConcurrentHashMap<>();
+    private Map<String, String> etags = new ConcurrentHashMap<>();
+    private Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private Map<String, AtomicInteger> notModified = new ConcurrentHashMap<>();
+    private boolean truncate = false;
+    private File cacheRoot;
+
+    @Before
+    public void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            byte[] content = contents.get(path);
+            String etag = etags.get(path);
+            if (content == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (etag != null && etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModified.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                if (etag != null)
+                    exchange.getResponseHeaders().add("ETag", etag);
+                exchange.sendResponseHeaders(200, content.length);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    body.write(content, 0, truncate ? content.length / 2 : content.length);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        cacheRoot = Files.createTempDirectory("download-cache-test").toFile();
+    }
+
+    @After
+    public void after() throws Exception {
+        server.stop(0);
+        FileUtils.deleteDirectory(cacheRoot);
+    }
+
+    @Test
+    public void testRecordsDownloadsInManifest() throws Exception {
+        contents.put("a.csv", bytes("a,b\n1,2\n"));
+        etags.put("a.csv", "\"v1\"");
+        DownloadUtils downloadUtils = downloadUtils(0, -1);
+
+        File file = downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+        assertEquals("a,b\n1,2\n", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        assertEquals(file, downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv"));
+        assertEquals(1, requests.get("a.csv").get());
+
+        // The manifest is read again by another process
+        DownloadCache.Entry entry = newCache(0, -1).get(file);
+        assertNotNull(entry);
+        assertEquals(8, entry.getSize());
+        assertEquals("\"v1\"", entry.getEtag());
+        assertEquals(64, entry.getChecksum().length());
+        assertTrue(new File(downloadUtils.getCacheDirectory(), DownloadCache.MANIFEST_FILE).exists());
+    }
+
+    @Test
+    public void testDownloadsCorruptedFilesAgain() throws Exception {
+        contents.put("a.csv", bytes("a,b\n1,2\n"));
+        File file = downloadUtils(0, -1).fetchFile(url("a.csv"), PREFIX, ".csv");
+
+        // Same size, different content
+        FileUtils.writeStringToFile(file, "a,b\n3,4\n", StandardCharsets.UTF_8);
+        DownloadUtils downloadUtils = downloadUtils(0, -1);
+        assertEquals("a,b\n1,2\n", FileUtils.readFileToString(
+                downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv"), StandardCharsets.UTF_8));
+        assertEquals(2, requests.get("a.csv").get());
+    }
+
+    @Test
+    public void testTruncatedDownloadsAreNotCached() throws Exception {
+        contents.put("a.csv", bytes("a,b\n1,2\n3,4\n"));
+        truncate = true;
+        DownloadUtils downloadUtils = downloadUtils(0, -1);
+
+        try {
+            downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+            fail("Expected the truncated download to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        File file = downloadUtils.urlToLocalFile(url("a.csv"), PREFIX, ".csv");
+        assertFalse(file.exists());
+        assertArrayEquals(new String[0], file.getParentFile().list());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedFiles() throws Exception {
+        contents.put("a.csv", bytes("aaaaaaaaaa"));
+        contents.put("b.csv", bytes("bbbbbbbbbb"));
+        contents.put("c.csv", bytes("cccccccccc"));
+        DownloadUtils downloadUtils = downloadUtils(25, -1);
+
+        File a = downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+        File b = downloadUtils.fetchFile(url("b.csv"), PREFIX, ".csv");
+        // Using a makes b the least recently used file
+        downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+
+        // The next run downloads c
+        File c = downloadUtils(25, -1).fetchFile(url("c.csv"), PREFIX, ".csv");
+
+        assertTrue(a.exists());
+        assertFalse(b.exists());
+        assertTrue(c.exists());
+        assertNull(newCache(25, -1).get(b));
+    }
+
+    @Test
+    public void testKeepsFilesUsedByTheCurrentRun() throws Exception {
+        contents.put("a.csv", bytes("aaaaaaaaaa"));
+        contents.put("b.csv", bytes("bbbbbbbbbb"));
+        contents.put("c.csv", bytes("cccccccccc"));
+        downloadUtils(15, -1).fetchFile(url("a.csv"), PREFIX, ".csv");
+
+        // a is used again before b and c are downloaded, and b is downloaded before c
+        DownloadUtils downloadUtils = downloadUtils(15, -1);
+        File a = downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+        File b = downloadUtils.fetchFile(url("b.csv"), PREFIX, ".csv");
+        File c = downloadUtils.fetchFile(url("c.csv"), PREFIX, ".csv");
+
+        assertTrue(a.exists());
+        assertTrue(b.exists());
+        assertTrue(c.exists());
+        assertEquals(1, requests.get("a.csv").get());
+    }
+
+    @Test
+    public void testRevalidatesStaleFiles() throws Exception {
+        contents.put("a.csv", bytes("a,b\n1,2\n"));
+        etags.put("a.csv", "\"v1\"");
+        // Every file is stale straight away
+        DownloadUtils downloadUtils = downloadUtils(0, 0);
+
+        File file = downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+        downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+        assertEquals(2, requests.get("a.csv").get());
+        assertEquals(1, notModified.get("a.csv").get());
+        assertEquals("a,b\n1,2\n", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+
+        contents.put("a.csv", bytes("a,b\n1,2\n3,4\n"));
+        etags.put("a.csv", "\"v2\"");
+        downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+        assertEquals(3, requests.get("a.csv").get());
+        assertEquals("a,b\n1,2\n3,4\n", FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+        assertEquals("\"v2\"", newCache(0, 0).get(file).getEtag());
+    }
+
+    @Test
+    public void testDownloadsDeletedFilesAgain() throws Exception {
+        contents.put("a.csv", bytes("a,b\n1,2\n"));
+        etags.put("a.csv", "\"v1\"");
+        DownloadUtils downloadUtils = downloadUtils(0, -1);
+        File file = downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv");
+
+        // The cache of the running process still has the file and its ETag
+        assertTrue(file.delete());
+        assertEquals("a,b\n1,2\n", FileUtils.readFileToString(
+                downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv"), StandardCharsets.UTF_8));
+        assertEquals(2, requests.get("a.csv").get());
+        assertNull(notModified.get("a.csv"));
+    }
+
+    @Test
+    public void testUsesFilesCopiedIntoTheCache() throws Exception {
+        DownloadUtils downloadUtils = downloadUtils(0, 0);
+        File file = downloadUtils.urlToLocalFile(url("a.csv"), PREFIX, ".csv");
+        FileUtils.writeStringToFile(file, "a,b\n", StandardCharsets.UTF_8);
+
+        assertEquals(file, downloadUtils.fetchFile(url("a.csv"), PREFIX, ".csv"));
+        assertTrue(requests.isEmpty());
+        assertFalse(new File(downloadUtils.getCacheDirectory(), DownloadCache.MANIFEST_FILE).exists());
+    }
+
+    private DownloadUtils downloadUtils(long budget, long maxAge) {
+        return new DownloadUtils(cacheRoot.getPath(), newCache(budget, maxAge));
+    }
+
+    private DownloadCache newCache(long budget, long maxAge) {
+        return new DownloadCache(new File(cacheRoot, "TomboloData"), budget, maxAge);
+    }
+
+    private URL url(String path) throws Exception {
+        return new URL("http", "localhost", server.getAddress().getPort(), "/" + path);
+    }
+
+    private static byte[] bytes(String content) {
+        return content.getBytes(StandardCharsets.UTF_8);
+    }
+}
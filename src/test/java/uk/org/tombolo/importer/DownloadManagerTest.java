@@ -0,0 +1,139 @@
+package uk.org.tombolo.importer;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class DownloadManagerTest {
+    // Files served by the stub, relative to the test data cache
+    private static final File SERVED_ROOT = new File("src/test/resources/datacache");
+    private static final String LONDON_FILE = "TomboloData/uk.gov.london/f0637521-9d4f-3edc-96e7-eabf10a96580.xlsx";
+    private static final String EDUCATION_FILE = "TomboloData/uk.gov.education/3d89d3e5-85ed-3976-8d5c-6744bc044e8a.xlsx";
+
+    private HttpServer server;
+    private Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    // Number of requests for each path answered with a server error before serving the file
+    private Map<String, Integer> failuresBeforeSuccess = new ConcurrentHashMap<>();
+    private File cacheRoot;
+    private DownloadUtils downloadUtils;
+
+    @Before
+    public void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath().substring(1);
+            int count = requests.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+            File file = new File(SERVED_ROOT, path);
+            if (count <= failuresBeforeSuccess.getOrDefault(path, 0)) {
+                exchange.sendResponseHeaders(503, -1);
+            } else if (!file.isFile()) {
+                exchange.sendResponseHeaders(404, -1);
+            } else {
+                exchange.sendResponseHeaders(200, file.length());
+                try (OutputStream body = exchange.getResponseBody()) {
+                    Files.copy(file.toPath(), body);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        cacheRoot = Files.createTempDirectory("download-manager-test").toFile();
+        downloadUtils = new DownloadUtils(cacheRoot.getPath());
+    }
+
+    @After
+    public void after() throws Exception {
+        server.stop(0);
+        FileUtils.deleteDirectory(cacheRoot);
+    }
+
+    @Test
+    public void testPrefetch() throws Exception {
+        Download london = download(LONDON_FILE);
+        Download education = download(EDUCATION_FILE);
+        DownloadManager downloadManager = new DownloadManager(downloadUtils, 2, 1, 0);
+
+        assertEquals(0, downloadManager.prefetch(Arrays.asList(london, education, london)));
+        assertCached(london, LONDON_FILE);
+        assertCached(education, EDUCATION_FILE);
+        assertEquals(1, requests.get(LONDON_FILE).get());
+
+        // Cached files are not downloaded again, and are the ones the importers read
+        assertEquals(0, downloadManager.prefetch(Collections.singletonList(london)));
+        assertEquals(1, requests.get(LONDON_FILE).get());
+        assertTrue(FileUtils.contentEquals(new File(SERVED_ROOT, LONDON_FILE),
+                downloadUtils.fetchFile(london.getUrl(), london.getPrefix(), london.getSuffix())));
+    }
+
+    @Test
+    public void testRetriesFailedDownloads() throws Exception {
+        failuresBeforeSuccess.put(LONDON_FILE, 2);
+        Download london = download(LONDON_FILE);
+
+        assertEquals(0, new DownloadManager(downloadUtils, 1, 3, 1).prefetch(Collections.singletonList(london)));
+        assertCached(london, LONDON_FILE);
+        assertEquals(3, requests.get(LONDON_FILE).get());
+    }
+
+    @Test
+    public void testGivesUpAfterLastAttempt() throws Exception {
+        failuresBeforeSuccess.put(LONDON_FILE, 5);
+        Download london = download(LONDON_FILE);
+
+        assertEquals(1, new DownloadManager(downloadUtils, 1, 2, 1).prefetch(Collections.singletonList(london)));
+        assertEquals(2, requests.get(LONDON_FILE).get());
+        assertFalse(downloadUtils.urlToLocalFile(london.getUrl(), london.getPrefix(), london.getSuffix()).exists());
+        assertNoPartialFiles(london);
+    }
+
+    @Test
+    public void testMissingFilesAreNotRetried() throws Exception {
+        Download missing = download("TomboloData/missing.csv");
+        List<Download> downloads = Arrays.asList(missing, download(LONDON_FILE));
+
+        assertEquals(1, new DownloadManager(downloadUtils, 2, 3, 1).prefetch(downloads));
+        assertEquals(1, requests.get("TomboloData/missing.csv").get());
+        assertNoPartialFiles(missing);
+    }
+
+    @Test
+    public void testNoWorkersDisablesPrefetch() throws Exception {
+        assertEquals(0, new DownloadManager(downloadUtils, 0, 3, 1).prefetch(Collections.singletonList(download(LONDON_FILE))));
+        assertTrue(requests.isEmpty());
+    }
+
+    private Download download(String path) throws Exception {
+        URL url = new URL("http", "localhost", server.getAddress().getPort(), "/" + path);
+        return new Download(url, "uk.gov.test", path.substring(path.lastIndexOf('.')));
+    }
+
+    private void assertCached(Download download, String path) throws Exception {
+        File cached = downloadUtils.urlToLocalFile(download.getUrl(), download.getPrefix(), download.getSuffix());
+        assertTrue(cached.exists());
+        assertTrue(FileUtils.contentEquals(new File(SERVED_ROOT, path), cached));
+    }
+
+    private void assertNoPartialFiles(Download download) {
+        File cacheDirectory = downloadUtils.urlToLocalFile(download.getUrl(), download.getPrefix(), download.getSuffix()).getParentFile();
+        File[] files = cacheDirectory.listFiles();
+        for (File file : files == null ? new File[0] : files)
+            assertFalse(file.getName().endsWith(".part"));
+    }
+}
@@ -0,0 +1,178 @@
+package uk.org.tombolo.importer;
+
+import org.junit.Test;
+import uk.org.tombolo.core.Datasource;
+import uk.org.tombolo.core.DatasourceSpec;
+import uk.org.tombolo.core.Provider;
+import uk.org.tombolo.importer.ons.OaImporter;
+import uk.org.tombolo.recipe.DatasourceRecipe;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ImportPlannerTest {
+    private static final String FAKE_IMPORTER = FakeImporter.class.getName();
+    private static final String FAKE_OA_IMPORTER = FakeOaImporter.class.getName();
+    private static final String FAKE_UNDECLARED_IMPORTER = "uk.org.tombolo.importer.FakeUndeclaredImporter";
+
+    // Events of the imports run by the fake importers, as "start:" or "end:" followed by the datasource id
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final Map<String, Runnable> importActions = new ConcurrentHashMap<>();
+
+    @Test
+    public void testDeduplicatesIdenticalRecipes() throws Exception {
+        ImportPlanner planner = makePlanner();
+        planner.add(recipe(FAKE_IMPORTER, "a", null));
+        planner.add(recipe(FAKE_IMPORTER, "a", Collections.emptyList()));
+        planner.add(recipe(FAKE_IMPORTER, "a", Collections.singletonList("london")));
+        planner.add(recipe(FAKE_IMPORTER, "b", null));
+
+        assertEquals(3, planner.getImports().size());
+        planner.run(1);
+        assertEquals(Arrays.asList("start:a", "end:a", "start:a", "end:a", "start:b", "end:b"), events);
+    }
+
+    @Test
+    public void testPlansOutputAreasFirst() throws Exception {
+        ImportPlanner planner = makePlanner();
+        planner.add(recipe(FAKE_IMPORTER, "a", null));
+        planner.add(recipe(FAKE_OA_IMPORTER, "census", null));
+        planner.add(recipe(FAKE_OA_IMPORTER, "wages", null));
+        // The recipe may also list the output areas itself
+        planner.add(recipe(OaImporter.class.getCanonicalName(), "lsoa", null));
+
+        List<String> plan = planner.getImports().stream().map(ImportPlanner.PlannedImport::toString).collect(Collectors.toList());
+        assertEquals(Arrays.asList(
+                FAKE_IMPORTER + ":a",
+                OaImporter.class.getCanonicalName() + ":lsoa",
+                FAKE_OA_IMPORTER + ":census",
+                FAKE_OA_IMPORTER + ":wages"), plan);
+        assertEquals(1, planner.getImports().get(2).getDependencies().size());
+        assertSame(planner.getImports().get(1), planner.getImports().get(2).getDependencies().get(0));
+
+        planner.run(4);
+        assertTrue(events.indexOf("end:lsoa") < events.indexOf("start:census"));
+        assertTrue(events.indexOf("end:lsoa") < events.indexOf("start:wages"));
+        assertEquals(8, events.size());
+    }
+
+    @Test
+    public void testRunsIndependentImportsConcurrently() throws Exception {
+        // Each import waits for the other one to start, which only happens if they run at the same time
+        CountDownLatch started = new CountDownLatch(2);
+        Runnable waitForOther = () -> {
+            started.countDown();
+            try {
+                assertTrue(started.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        };
+        importActions.put("a", waitForOther);
+        importActions.put("b", waitForOther);
+
+        ImportPlanner planner = makePlanner();
+        planner.add(recipe(FAKE_IMPORTER, "a", null));
+        planner.add(recipe(FAKE_IMPORTER, "b", null));
+        planner.run(2);
+
+        assertEquals(0, started.getCount());
+        assertEquals(4, events.size());
+    }
+
+    @Test
+    public void testKeepsRecipeOrderForUndeclaredDependencies() throws Exception {
+        ImportPlanner planner = makePlanner();
+        planner.add(recipe(FAKE_IMPORTER, "a", null));
+        planner.add(recipe(FAKE_IMPORTER, "b", null));
+        planner.add(recipe(FAKE_UNDECLARED_IMPORTER, "csv", null));
+        planner.add(recipe(FAKE_IMPORTER, "c", null));
+        planner.run(4);
+
+        assertTrue(events.indexOf("end:a") < events.indexOf("start:csv"));
+        assertTrue(events.indexOf("end:b") < events.indexOf("start:csv"));
+        assertTrue(events.indexOf("end:csv") < events.indexOf("start:c"));
+        assertEquals(8, events.size());
+    }
+
+    @Test
+    public void testFailureStopsFurtherImports() throws Exception {
+        importActions.put("lsoa", () -> { throw new IllegalStateException("Failed lsoa"); });
+
+        ImportPlanner planner = makePlanner();
+        planner.add(recipe(FAKE_OA_IMPORTER, "census", null));
+        try {
+            planner.run(2);
+            fail("Expected the import to fail");
+        } catch (IllegalStateException e) {
+            assertEquals("Failed lsoa", e.getMessage());
+        }
+        assertFalse(events.contains("start:census"));
+    }
+
+    private ImportPlanner makePlanner() throws Exception {
+        return new ImportPlanner(datasourceRecipe -> {
+            // Output areas are imported by a fake importer as well
+            FakeImporter importer = datasourceRecipe.getImporterClass().equals(FAKE_OA_IMPORTER)
+                    ? new FakeOaImporter() : new FakeImporter();
+            importer.test = this;
+            importer.declaresDependencies = !datasourceRecipe.getImporterClass().equals(FAKE_UNDECLARED_IMPORTER);
+            return importer;
+        }, new ImporterMatcher(""));
+    }
+
+    private static DatasourceRecipe recipe(String importerClass, String datasourceId, List<String> geographyScope) {
+        return new DatasourceRecipe(importerClass, datasourceId, geographyScope, null, null, null);
+    }
+
+    public static class FakeImporter extends AbstractOaImporter {
+        ImportPlannerTest test;
+        boolean declaresDependencies;
+
+        @Override
+        public void importDatasource(String datasourceId, List<String> geographyScope, List<String> temporalScope,
+                                     List<String> datasourceLocation, Boolean force) throws Exception {
+            test.events.add("start:" + datasourceId);
+            test.importActions.getOrDefault(datasourceId, () -> {}).run();
+            test.events.add("end:" + datasourceId);
+        }
+
+        @Override
+        public boolean declaresDependencies() {
+            return declaresDependencies;
+        }
+
+        @Override
+        protected List<String> getOaDatasourceIds() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Provider getProvider() {
+            return new Provider("uk.org.tombolo.test", "Tombolo test");
+        }
+
+        @Override
+        public DatasourceSpec getDatasourceSpec(String datasourceId) throws Exception {
+            return null;
+        }
+
+        @Override
+        protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope,
+                                        List<String> datasourceLocation) throws Exception {
+        }
+    }
+
+    public static class FakeOaImporter extends FakeImporter {
+        @Override
+        protected List<String> getOaDatasourceIds() {
+            return Collections.singletonList("lsoa");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uk.org.tombolo.importer;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ZipUtilsTest {
+    private static final File OPEN_MAPPING_ARCHIVE = new File(
+            "src/test/resources/datacache/TomboloData/com.spacesyntax/85749def-2230-31aa-9387-e04adbb42505.zip");
+
+    @Test
+    public void testOpenEntryReader() throws Exception {
+        try (BufferedReader reader = ZipUtils.openEntryReader(OPEN_MAPPING_ARCHIVE, "ssx_openmapping_gb_v1_greaterlondon.csv")) {
+            String line = reader.readLine();
+            assertNotNull(line);
+            assertTrue(line.startsWith("id,metres,meridian_id"));
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void testOpenMissingEntry() throws Exception {
+        ZipUtils.openEntry(OPEN_MAPPING_ARCHIVE, "missing.csv");
+    }
+
+    @Test
+    public void testUnzipToTemporaryDirectory() throws Exception {
+        Path directory = ZipUtils.unzipToTemporaryDirectory(OPEN_MAPPING_ARCHIVE);
+        try {
+            assertTrue(directory.resolve("ssx_openmapping_gb_v1_greaterlondon.csv").toFile().isFile());
+            assertTrue(directory.resolve("__MACOSX/._ssx_openmapping_gb_v1_greaterlondon.csv").toFile().isFile());
+        } finally {
+            ZipUtils.deleteTemporaryDirectory(directory);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package uk.org.tombolo.importer.osm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LongIdSetTest {
+
+    @Test
+    public void testAddAndContains() throws Exception {
+        LongIdSet ids = new LongIdSet();
+        assertTrue(ids.isEmpty());
+
+        ids.add(0);
+        ids.add(65535);
+        ids.add(65536);
+        ids.add(11000000000L);
+        ids.add(11000000000L);
+
+        assertEquals(4, ids.size());
+        assertTrue(ids.contains(0));
+        assertTrue(ids.contains(65535));
+        assertTrue(ids.contains(65536));
+        assertTrue(ids.contains(11000000000L));
+        assertFalse(ids.contains(1));
+        assertFalse(ids.contains(11000000001L));
+        assertFalse(ids.contains(42000000000L));
+    }
+}
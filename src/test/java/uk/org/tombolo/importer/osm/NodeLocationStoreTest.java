@@ -0,0 +1,52 @@
+package uk.org.tombolo.importer.osm;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NodeLocationStoreTest {
+
+    @Test
+    public void testGetAcrossChunks() throws Exception {
+        try (NodeLocationStore store = new NodeLocationStore(4)) {
+            for (long id = 1; id <= 20; id++)
+                store.put(id * 10, 51d + id / 1000d, -id / 1000d);
+
+            assertEquals(20, store.size());
+            for (long id = 1; id <= 20; id++) {
+                long location = store.get(id * 10);
+                assertEquals(51d + id / 1000d, NodeLocationStore.latitude(location), 1e-7);
+                assertEquals(-id / 1000d, NodeLocationStore.longitude(location), 1e-7);
+            }
+            assertEquals(NodeLocationStore.NO_LOCATION, store.get(15));
+            assertEquals(NodeLocationStore.NO_LOCATION, store.get(5));
+            assertEquals(NodeLocationStore.NO_LOCATION, store.get(205));
+        }
+    }
+
+    @Test
+    public void testOutOfOrderNodes() throws Exception {
+        try (NodeLocationStore store = new NodeLocationStore(4)) {
+            store.put(100, 10d, 20d);
+            store.put(50, -10d, -20d);
+            store.put(200, 89.9999999d, 179.9999999d);
+
+            assertEquals(-10d, NodeLocationStore.latitude(store.get(50)), 1e-7);
+            assertEquals(20d, NodeLocationStore.longitude(store.get(100)), 1e-7);
+            assertEquals(179.9999999d, NodeLocationStore.longitude(store.get(200)), 1e-7);
+            assertEquals(-180d, NodeLocationStore.longitude(pack(store, 300, -90d, -180d)), 1e-7);
+        }
+    }
+
+    @Test
+    public void testEmptyStore() throws Exception {
+        try (NodeLocationStore store = new NodeLocationStore()) {
+            assertEquals(NodeLocationStore.NO_LOCATION, store.get(1));
+        }
+    }
+
+    private long pack(NodeLocationStore store, long id, double latitude, double longitude) throws Exception {
+        store.put(id, latitude, longitude);
+        return store.get(id);
+    }
+}
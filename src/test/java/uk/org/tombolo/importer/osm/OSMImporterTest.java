@@ -17,6 +17,7 @@ import uk.org.tombolo.core.utils.SubjectUtils;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
@@ -100,6 +101,68 @@ public class OSMImporterTest extends AbstractTest {
         testFixedValue(osm2, "source", "OS_OpenData_VectorMapDistrict");
     }
 
+    @Test
+    public void importDatasourceInOnePass() throws Exception {
+        importer.importDatasource("OSMGreenspace", Arrays.asList(TEST_AREA), Collections.emptyList(), null);
+        SubjectType subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel("org.openstreetmap","OSMEntity");
+        List<Subject> twoPassSubjects = SubjectUtils.getSubjectsBySubjectType(subjectType);
+
+        clearDatabase();
+        System.setProperty(OSMImporter.TWO_PASS_IMPORT_PROPERTY, "false");
+        try {
+            importer = new OSMImporter();
+            mockDownloadUtils(importer);
+            importer.importDatasource("OSMGreenspace", Arrays.asList(TEST_AREA), Collections.emptyList(), null);
+        } finally {
+            System.clearProperty(OSMImporter.TWO_PASS_IMPORT_PROPERTY);
+        }
+        subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel("org.openstreetmap","OSMEntity");
+        List<Subject> onePassSubjects = SubjectUtils.getSubjectsBySubjectType(subjectType);
+
+        twoPassSubjects.sort(Comparator.comparing(Subject::getLabel));
+        onePassSubjects.sort(Comparator.comparing(Subject::getLabel));
+        assertEquals(twoPassSubjects.size(), onePassSubjects.size());
+        for (int i = 0; i < twoPassSubjects.size(); i++) {
+            assertEquals(twoPassSubjects.get(i).getLabel(), onePassSubjects.get(i).getLabel());
+            assertEquals(twoPassSubjects.get(i).getShape(), onePassSubjects.get(i).getShape());
+        }
+    }
+
+    @Test
+    public void importDatasourceOnTheReadingThread() throws Exception {
+        System.setProperty(OSMImporter.WORKERS_PROPERTY, "4");
+        try {
+            importer.importDatasource("OSMGreenspace", Arrays.asList(TEST_AREA), Collections.emptyList(), null);
+        } finally {
+            System.clearProperty(OSMImporter.WORKERS_PROPERTY);
+        }
+        SubjectType subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel("org.openstreetmap","OSMEntity");
+        List<Subject> parallelSubjects = SubjectUtils.getSubjectsBySubjectType(subjectType);
+        int parallelFixedValues = importer.getFixedValueCount();
+
+        clearDatabase();
+        System.setProperty(OSMImporter.WORKERS_PROPERTY, "1");
+        try {
+            importer = new OSMImporter();
+            mockDownloadUtils(importer);
+            importer.importDatasource("OSMGreenspace", Arrays.asList(TEST_AREA), Collections.emptyList(), null);
+        } finally {
+            System.clearProperty(OSMImporter.WORKERS_PROPERTY);
+        }
+        subjectType = SubjectTypeUtils.getSubjectTypeByProviderAndLabel("org.openstreetmap","OSMEntity");
+        List<Subject> sequentialSubjects = SubjectUtils.getSubjectsBySubjectType(subjectType);
+
+        // The writer saves the subjects in the order they are read
+        parallelSubjects.sort(Comparator.comparing(Subject::getId));
+        sequentialSubjects.sort(Comparator.comparing(Subject::getId));
+        assertEquals(sequentialSubjects.size(), parallelSubjects.size());
+        for (int i = 0; i < sequentialSubjects.size(); i++) {
+            assertEquals(sequentialSubjects.get(i).getLabel(), parallelSubjects.get(i).getLabel());
+            assertEquals(sequentialSubjects.get(i).getShape(), parallelSubjects.get(i).getShape());
+        }
+        assertEquals(importer.getFixedValueCount(), parallelFixedValues);
+    }
+
     private void testFixedValue(Subject subject, String attributeLabel, String value) {
         Attribute attribute = AttributeUtils.getByProviderAndLabel(importer.getProvider(), attributeLabel);
         FixedValue fixedValue = FixedValueUtils.getBySubjectAndAttribute(subject, attribute);
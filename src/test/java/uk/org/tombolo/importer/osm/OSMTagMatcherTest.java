@@ -0,0 +1,41 @@
+package uk.org.tombolo.importer.osm;
+
+import de.topobyte.osm4j.core.model.impl.Node;
+import de.topobyte.osm4j.core.model.impl.Tag;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OSMTagMatcherTest {
+    private static final Map<String, List<String>> CATEGORIES = new HashMap<>();
+    static {
+        CATEGORIES.put("amenity", Arrays.asList("school", "library"));
+        CATEGORIES.put("landuse", Collections.singletonList("*"));
+    }
+
+    @Test
+    public void testMatches() throws Exception {
+        OSMTagMatcher matcher = new OSMTagMatcher(CATEGORIES);
+
+        assertTrue(matcher.matches(new Node(1, 0, 0, Arrays.asList(new Tag("name", "A school"), new Tag("amenity", "school")))));
+        assertTrue(matcher.matches(new Node(2, 0, 0, Collections.singletonList(new Tag("landuse", "anything")))));
+        assertFalse(matcher.matches(new Node(3, 0, 0, Collections.singletonList(new Tag("amenity", "bench")))));
+        assertFalse(matcher.matches(new Node(4, 0, 0, Collections.singletonList(new Tag("school", "amenity")))));
+        assertFalse(matcher.matches(new Node(5, 0, 0, Collections.emptyList())));
+    }
+
+    @Test
+    public void testBuiltInImporters() throws Exception {
+        Node park = new Node(1, 0, 0, Collections.singletonList(new Tag("leisure", "park")));
+
+        assertTrue(OSMBuiltInImporters.OSMGreenspace.getTagMatcher().matches(park));
+        assertFalse(OSMBuiltInImporters.OSMHealth.getTagMatcher().matches(park));
+    }
+}
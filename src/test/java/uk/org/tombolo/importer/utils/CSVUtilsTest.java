@@ -0,0 +1,119 @@
+package uk.org.tombolo.importer.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.org.tombolo.AbstractTest;
+import uk.org.tombolo.TestFactory;
+import uk.org.tombolo.core.Attribute;
+import uk.org.tombolo.core.Datasource;
+import uk.org.tombolo.core.DatasourceSpec;
+import uk.org.tombolo.core.Provider;
+import uk.org.tombolo.core.Subject;
+import uk.org.tombolo.core.TimedValue;
+import uk.org.tombolo.core.utils.TimedValueUtils;
+import uk.org.tombolo.importer.AbstractImporter;
+import uk.org.tombolo.importer.utils.extraction.CSVExtractor;
+import uk.org.tombolo.importer.utils.extraction.ConstantExtractor;
+import uk.org.tombolo.importer.utils.extraction.TimedValueExtractor;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class CSVUtilsTest extends AbstractTest {
+    private Subject cityOfLondon;
+    private Attribute attribute;
+    private File csvFile;
+    private TestImporter importer = new TestImporter();
+
+    @Before
+    public void setUp() throws Exception {
+        cityOfLondon = TestFactory.makeNamedSubject("E01000001");
+        attribute = TestFactory.makeAttribute(TestFactory.DEFAULT_PROVIDER, "attr_label");
+        csvFile = File.createTempFile("csv-utils-test", ".csv");
+    }
+
+    @After
+    public void tearDown() {
+        csvFile.delete();
+    }
+
+    @Test
+    public void testExtractAndSaveTimedValues() throws Exception {
+        // A note spanning two lines, a blank line and a subject that is not in the database
+        FileUtils.writeStringToFile(csvFile,
+                "E01000001,2011,\"first\nsecond\",1.5\n"
+                        + "\n"
+                        + "E01000009,2011,,2\n"
+                        + "E01000001,2012,,3\n",
+                StandardCharsets.UTF_8);
+
+        CSVUtils.extractAndSaveTimedValues(Collections.singletonList(makeExtractor()), importer, csvFile);
+
+        List<TimedValue> timedValues = TimedValueUtils.getBySubjectAndAttribute(cityOfLondon, attribute);
+        assertEquals(2, timedValues.size());
+        assertEquals(3d, TimedValueUtils.getLatestBySubjectAndAttribute(cityOfLondon, attribute).getValue(), 0d);
+        // Every value is saved as soon as it is read
+        assertEquals(2, importer.batches);
+    }
+
+    @Test
+    public void testExtractAndSaveTimedValuesOfNewSubjects() throws Exception {
+        FileUtils.writeStringToFile(csvFile, "E01000001,2011,,1\n", StandardCharsets.UTF_8);
+        CSVUtils.extractAndSaveTimedValues(Collections.singletonList(makeExtractor()), importer, csvFile);
+
+        // Saving a subject drops the label index the first file was read with
+        Subject islington = TestFactory.makeNamedSubject("E01002766");
+        FileUtils.writeStringToFile(csvFile, "E01002766,2011,,2\n", StandardCharsets.UTF_8);
+        CSVUtils.extractAndSaveTimedValues(Collections.singletonList(makeExtractor()), importer, csvFile);
+
+        assertEquals(2d, TimedValueUtils.getLatestBySubjectAndAttribute(islington, attribute).getValue(), 0d);
+    }
+
+    private TimedValueExtractor makeExtractor() {
+        return new TimedValueExtractor(
+                TestFactory.DEFAULT_PROVIDER,
+                TestFactory.makeNamedSubjectType("lsoa"),
+                new CSVExtractor(0),
+                new ConstantExtractor("attr_label"),
+                new CSVExtractor(1),
+                new CSVExtractor(3)
+        );
+    }
+
+    private static class TestImporter extends AbstractImporter {
+        private int batches = 0;
+
+        @Override
+        protected void importDatasource(Datasource datasource, List<String> geographyScope, List<String> temporalScope, List<String> datasourceLocation) throws Exception {
+
+        }
+
+        @Override
+        public Provider getProvider() {
+            return TestFactory.DEFAULT_PROVIDER;
+        }
+
+        @Override
+        public DatasourceSpec getDatasourceSpec(String datasourceId) throws Exception {
+            return null;
+        }
+
+        @Override
+        public int getTimedValueBufferSize() {
+            return 1;
+        }
+
+        @Override
+        public void saveAndClearTimedValueBuffer(List<TimedValue> timedValueBuffer) {
+            if (!timedValueBuffer.isEmpty())
+                batches++;
+            super.saveAndClearTimedValueBuffer(timedValueBuffer);
+        }
+    }
+}
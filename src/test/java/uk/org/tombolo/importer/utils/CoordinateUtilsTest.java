@@ -1,5 +1,6 @@
 package uk.org.tombolo.importer.utils;
 
+import com.vividsolutions.jts.geom.Coordinate;
 import org.junit.Test;
 import uk.org.tombolo.AbstractTest;
 
@@ -20,4 +21,16 @@ public class CoordinateUtilsTest extends AbstractTest {
         assertEquals("54.972045", testMap.get("NE98").getLatitude());
         assertEquals("-1.598706", testMap.get("NE98").getLongitude());
     }
+
+    @Test
+    public void testEastNorthToLatLongBulk() throws Exception {
+        double[] eastNorths = {530044d, 180380d, 383900d, 398200d};
+        Coordinate[] coordinates = CoordinateUtils.eastNorthToLatLong(eastNorths, CoordinateUtils.OSGBCRS, CoordinateUtils.WGS84CRS);
+
+        assertEquals(2, coordinates.length);
+        assertEquals(CoordinateUtils.osgbToWgs84(530044d, 180380d), coordinates[0]);
+        assertEquals(CoordinateUtils.osgbToWgs84(383900d, 398200d), coordinates[1]);
+        // The input is left untouched
+        assertEquals(530044d, eastNorths[0], 0d);
+    }
 }
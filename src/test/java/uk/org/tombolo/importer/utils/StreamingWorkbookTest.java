@@ -0,0 +1,128 @@
+package uk.org.tombolo.importer.utils;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.org.tombolo.importer.utils.extraction.RowCellExtractor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.*;
+
+public class StreamingWorkbookTest {
+    private File file;
+
+    @Before
+    public void before() throws Exception {
+        file = File.createTempFile("streaming-workbook-test", ".xlsx");
+        try (XSSFWorkbook workbook = new XSSFWorkbook(); FileOutputStream out = new FileOutputStream(file)) {
+            workbook.createSheet("Notes").createRow(0).createCell(0).setCellValue("Read me");
+
+            Sheet sheet = workbook.createSheet("Data");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("label");
+            header.createCell(1).setCellValue("value");
+
+            // Row 1 is left empty
+            Row row = sheet.createRow(2);
+            row.createCell(0).setCellValue("E09000001");
+            row.createCell(1).setCellValue(11.43d);
+            row.createCell(2).setCellValue(true);
+            row.createCell(4).setCellValue("--");
+
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+            Calendar date = Calendar.getInstance();
+            date.clear();
+            date.set(2015, Calendar.NOVEMBER, 10);
+            Row dated = sheet.createRow(3);
+            dated.createCell(0).setCellValue("E09000002");
+            Cell dateCell = dated.createCell(1);
+            dateCell.setCellValue(date);
+            dateCell.setCellStyle(dateStyle);
+            dated.createCell(2).setCellStyle(dateStyle);
+
+            workbook.write(out);
+        }
+    }
+
+    @After
+    public void after() {
+        file.delete();
+    }
+
+    @Test
+    public void testGetSheetNames() throws Exception {
+        try (StreamingWorkbook workbook = new StreamingWorkbook(file)) {
+            assertEquals(Arrays.asList("Notes", "Data"), workbook.getSheetNames());
+        }
+    }
+
+    @Test
+    public void testRowIterator() throws Exception {
+        DataFormatter dataFormatter = new DataFormatter();
+        try (StreamingWorkbook workbook = new StreamingWorkbook(file)) {
+            Iterator<Row> rows = workbook.rowIterator("Data");
+
+            Row header = rows.next();
+            assertEquals(0, header.getRowNum());
+            assertEquals("value", header.getCell(1).getStringCellValue());
+
+            Row row = rows.next();
+            assertEquals(2, row.getRowNum());
+            assertEquals("E09000001", row.getCell(0).getStringCellValue());
+            assertEquals(11.43d, row.getCell(1).getNumericCellValue(), 0.0d);
+            assertTrue(row.getCell(2).getBooleanCellValue());
+            assertNull(row.getCell(3));
+
+            Row dated = rows.next();
+            assertEquals(3, dated.getRowNum());
+            assertEquals("2015-11-10", dataFormatter.formatCellValue(dated.getCell(1)));
+            assertEquals(CellType.BLANK, dated.getCell(2).getCellTypeEnum());
+
+            assertFalse(rows.hasNext());
+            try {
+                rows.next();
+                fail("Expected the rows to be exhausted");
+            } catch (NoSuchElementException e) {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testRowIteratorFeedsRowCellExtractor() throws Exception {
+        try (StreamingWorkbook workbook = new StreamingWorkbook(new FileInputStream(file))) {
+            Iterator<Row> rows = workbook.rowIterator(1);
+            rows.next();
+
+            RowCellExtractor valueExtractor = new RowCellExtractor(1, CellType.NUMERIC);
+            valueExtractor.setRow(rows.next());
+            assertEquals("11.43", valueExtractor.extract());
+
+            RowCellExtractor textExtractor = new RowCellExtractor(4, CellType.STRING);
+            textExtractor.setRow(rows.next());
+            try {
+                textExtractor.extract();
+                fail("Expected a missing cell");
+            } catch (Exception e) {
+                // The dated row has no fifth cell
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownSheet() throws Exception {
+        try (StreamingWorkbook workbook = new StreamingWorkbook(file)) {
+            workbook.rowIterator("Missing");
+        }
+    }
+}
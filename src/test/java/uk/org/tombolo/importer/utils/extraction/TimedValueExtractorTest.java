@@ -10,6 +10,7 @@ import uk.org.tombolo.core.TimedValue;
 import uk.org.tombolo.core.TimedValueId;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 public class TimedValueExtractorTest extends AbstractExtractorTest {
 
@@ -61,6 +62,24 @@ public class TimedValueExtractorTest extends AbstractExtractorTest {
         assertEquals(6.0d, value2.getValue(), 0.01d);
     }
 
+    @Test
+    public void extractUnknownSubject() throws Exception {
+        TimedValueExtractor unknownSubjectExtractor = new TimedValueExtractor(
+                provider,
+                TestFactory.makeNamedSubjectType("lsoa"),
+                new ConstantExtractor("E01000004"),
+                new ConstantExtractor("Attribute"),
+                new ConstantExtractor("2016"),
+                new ConstantExtractor("1")
+        );
+        try {
+            unknownSubjectExtractor.extract();
+            fail("Expected an unknown subject");
+        } catch (UnknownSubjectLabelException e) {
+            assertEquals("Unknown subject: E01000004(lsoa)", e.getMessage());
+        }
+    }
+
     @Test
     public void getValueExtractor() throws Exception {
         assertEquals(valueExtractor, extractor.getValueExtractor());